@@ -0,0 +1,69 @@
+/*
+  builds the B+-tree index <tablename>.<column>.idx over a column of
+  the binary <tablename>.dat file written by ConvertTblToDat.
+  the node size of the index can be given, by default it is 4096 bytes.
+  with bitmap the bitmap index <tablename>.<column>.bmp is built instead,
+  for columns with few distinct values.
+*/
+
+import qp.utils.Attribute;
+import qp.utils.BPlusTree;
+import qp.utils.BitmapIndex;
+import qp.utils.Schema;
+import qp.utils.TableFile;
+
+import java.io.*;
+
+public class BuildIndex {
+
+    static final int DEFAULT_PAGESIZE = 4096;
+
+    public static void main(String[] args) throws IOException {
+        // check the arguments
+        if (args.length != 2 && args.length != 3) {
+            System.out.println("usage: java BuildIndex <tablename> <column> [pagesize|bitmap] \n creates <tablename>.<column>.idx or <tablename>.<column>.bmp file");
+            System.exit(1);
+        }
+        String tblname = args[0];
+        String colname = args[1];
+        if (colname.startsWith(tblname + ".")) {
+            colname = colname.substring(tblname.length() + 1);
+        }
+        String mdfile = tblname + ".md";
+        boolean bitmap = args.length == 3 && args[2].equals("bitmap");
+        int pagesize = args.length == 3 && !bitmap ? Integer.parseInt(args[2]) : DEFAULT_PAGESIZE;
+
+        Schema schema = null;
+        try {
+            ObjectInputStream ins = new ObjectInputStream(new FileInputStream(mdfile));
+            schema = (Schema) ins.readObject();
+            ins.close();
+        } catch (ClassNotFoundException ce) {
+            System.out.println("class not found exception --- error in schema object file");
+            System.exit(1);
+        }
+        int column = schema.indexOf(new Attribute(tblname, colname));
+        if (column < 0) {
+            System.out.println("unknown column " + colname + " of " + tblname);
+            System.exit(1);
+        }
+
+        if (!TableFile.exists(tblname)) {
+            System.out.println(TableFile.fileName(tblname) + " not found, run ConvertTblToDat first");
+            System.exit(1);
+        }
+        TableFile table = new TableFile(TableFile.fileName(tblname));
+        if (!table.open()) {
+            System.exit(1);
+        }
+        String idxfile = bitmap ? BitmapIndex.fileName(tblname, colname) : BPlusTree.fileName(tblname, colname);
+        boolean built = bitmap ? BitmapIndex.build(idxfile, table, column)
+                : BPlusTree.build(idxfile, pagesize, table, column);
+        table.close();
+        if (!built) {
+            System.exit(1);
+        }
+        System.out.println("index " + idxfile + " built");
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+  converts the serialized <tablename>.tbl file of a table into the
+  binary page oriented <tablename>.dat file read by the Scan operator.
+  the page size of the file can be given, by default it is 4096 bytes.
+  the pages are in the columnar PAX layout unless row is given.
+  the zone map <tablename>.zone with the range of values of every page is written as well.
+*/
+
+import qp.utils.Schema;
+import qp.utils.TableFile;
+import qp.utils.TableFileWriter;
+import qp.utils.Tuple;
+import qp.utils.ZoneMap;
+
+import java.io.*;
+
+public class ConvertTblToDat {
+
+    static final int DEFAULT_PAGESIZE = 4096;
+
+    public static void main(String[] args) throws IOException {
+        // check the arguments
+        if (args.length < 1 || args.length > 3 || (args.length == 3 && !args[2].equals("row") && !args[2].equals("pax"))) {
+            System.out.println("usage: java ConvertTblToDat <tablename> [pagesize] [row|pax] \n creates <tablename>.dat file");
+            System.exit(1);
+        }
+        String tblname = args[0];
+        String mdfile = tblname + ".md";
+        String tblfile = tblname + ".tbl";
+        int pagesize = args.length >= 2 ? Integer.parseInt(args[1]) : DEFAULT_PAGESIZE;
+        int layout = args.length == 3 && args[2].equals("row") ? TableFile.ROW : TableFile.PAX;
+
+        Schema schema = null;
+        try {
+            ObjectInputStream ins = new ObjectInputStream(new FileInputStream(mdfile));
+            schema = (Schema) ins.readObject();
+            ins.close();
+        } catch (ClassNotFoundException ce) {
+            System.out.println("class not found exception --- error in schema object file");
+            System.exit(1);
+        }
+
+        TableFileWriter out = new TableFileWriter(TableFile.fileName(tblname), pagesize, schema, layout);
+        if (!out.open()) {
+            System.exit(1);
+        }
+        ObjectInputStream in = new ObjectInputStream(new FileInputStream(tblfile));
+        try {
+            while (true) {
+                Tuple tuple = (Tuple) in.readObject();
+                if (!out.next(tuple)) {
+                    System.exit(1);
+                }
+            }
+        } catch (EOFException eof) {
+            // all the tuples have been read
+        } catch (ClassNotFoundException ce) {
+            System.out.println("class not found exception --- error in table file");
+            System.exit(1);
+        }
+        in.close();
+        out.close();
+        if (!out.getZoneMap().write(ZoneMap.fileName(tblname), pagesize, out.getNumTuples())) {
+            System.exit(1);
+        }
+        System.out.println(out.getNumTuples() + " tuples written to " + out.getNumPages() + " pages");
+    }
+
+}
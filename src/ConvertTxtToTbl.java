@@ -8,9 +8,9 @@
 import qp.utils.Attribute;
 import qp.utils.Schema;
 import qp.utils.Tuple;
+import qp.utils.TupleLayout;
 
 import java.io.*;
-import java.util.ArrayList;
 import java.util.StringTokenizer;
 
 public class ConvertTxtToTbl {
@@ -43,29 +43,29 @@ public class ConvertTxtToTbl {
 
         boolean flag = false;
         StringTokenizer tokenizer;
+        TupleLayout layout = TupleLayout.of(schema);
         while ((line = in.readLine()) != null) {
             linenum++;
             tokenizer = new StringTokenizer(line);
 
-            ArrayList<Object> data = new ArrayList<>();
+            Tuple tuple = new Tuple(layout);
             int attrIndex = 0;
 
             while (tokenizer.hasMoreElements()) {
                 String dataElement = tokenizer.nextToken();
                 int datatype = schema.typeOf(attrIndex);
                 if (datatype == Attribute.INT) {
-                    data.add(Integer.valueOf(dataElement));
+                    tuple.setInt(attrIndex, Integer.parseInt(dataElement));
                 } else if (datatype == Attribute.REAL) {
-                    data.add(Float.valueOf(dataElement));
+                    tuple.setReal(attrIndex, Float.parseFloat(dataElement));
                 } else if (datatype == Attribute.STRING) {
-                    data.add(dataElement);
+                    tuple.setString(attrIndex, dataElement);
                 } else {
                     System.err.println("Invalid data type");
                     System.exit(1);
                 }
                 attrIndex++;
             }
-            Tuple tuple = new Tuple(data);
             outtbl.writeObject(tuple);
         }
         outtbl.close();
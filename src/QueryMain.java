@@ -4,8 +4,12 @@
  **/
 
 import qp.operators.Debug;
+import qp.operators.ExternalSort;
+import qp.operators.HashJoin;
+import qp.operators.JoinType;
 import qp.operators.Operator;
 import qp.operators.Project;
+import qp.operators.Scan;
 import qp.optimizer.BufferManager;
 import qp.optimizer.PlanCost;
 import qp.optimizer.RandomOptimizer;
@@ -14,26 +18,31 @@ import qp.parser.parser;
 import qp.utils.*;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 
 public class QueryMain {
 
+    static final String USAGE = "usage: java QueryMain <queryfilename> <resultfile> <pagesize> <numbuffer> [1] [poolframes] [clock|lru-K|mru|2q|arc] [memory[k|m|g]] [sortworkers] [block|replacement] [mmap|read] [nested|block|sortmerge|hash|hybrid|index]";
+
     static PrintWriter out;
     static int numAtts;
 
     public static void main(String[] args) {
         if (args.length < 2) {
-            System.out.println("usage: java QueryMain <queryfilename> <resultfile> <pagesize> <numbuffer>");
+            System.out.println(USAGE);
             System.exit(1);
         }
 
         BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
         Batch.setPageSize(getPageSize(args, in));
+        configureBufferPool(args);
 
         SQLQuery sqlquery = getSQLQuery(args[0]);
-        configureBufferManager(sqlquery.getNumJoin(), args, in);
+        configureBufferManager(sqlquery.getNumJoin() + (sqlquery.isDistinct() ? 1 : 0) + (sqlquery.hasAggregation() ? 1 : 0),
+                !sqlquery.getOrderByList().isEmpty(), args, in);
+        configureMemoryGovernor(args);
+        configureExternalSort(args);
+        configureScan(args);
+        configureJoins(args);
 
         Operator root = getQueryPlan(sqlquery);
         printFinalPlan(root, args, in);
@@ -58,6 +67,125 @@ public class QueryMain {
         return pagesize;
     }
 
+    /**
+     * Size the buffer pool and choose its replacement policy if given after the flag
+     * * that skips the confirmation, by default it has BufferPool.DEFAULT_FRAMES frames
+     * * and uses clock replacement
+     **/
+    private static void configureBufferPool(String[] args) {
+        if (args.length < 6) {
+            return;
+        }
+        int frames = 0;
+        try {
+            frames = Integer.parseInt(args[5]);
+        } catch (NumberFormatException nfe) {
+            exitWithUsage("invalid number of buffer pool frames " + args[5]);
+        }
+        if (frames < 1) {
+            exitWithUsage("invalid number of buffer pool frames " + args[5]);
+        }
+        ReplacementPolicy policy = args.length < 7 ? new ClockPolicy() : BufferPool.policyOf(args[6]);
+        if (policy == null) {
+            exitWithUsage("unknown replacement policy " + args[6]);
+        }
+        BufferPool.configure(frames, policy);
+    }
+
+    /**
+     * Reports an invalid argument followed by the usage line and stops
+     **/
+    private static void exitWithUsage(String message) {
+        System.out.println(message);
+        System.out.println(USAGE);
+        System.exit(1);
+    }
+
+    /**
+     * Set the bytes of heap the operators may hold if given after the replacement policy,
+     * * by default half of the maximum heap size, shared among the buffers of the query.
+     * * The memory, run and repartitioning statistics and the table metadata of the previous query are forgotten.
+     **/
+    private static void configureMemoryGovernor(String[] args) {
+        long budget = Runtime.getRuntime().maxMemory() / 2;
+        if (args.length >= 8) {
+            String size = args[7].toLowerCase();
+            long unit = 1;
+            if (size.endsWith("k")) {
+                unit = 1L << 10;
+            } else if (size.endsWith("m")) {
+                unit = 1L << 20;
+            } else if (size.endsWith("g")) {
+                unit = 1L << 30;
+            }
+            try {
+                budget = unit * Long.parseLong(unit == 1 ? size : size.substring(0, size.length() - 1));
+            } catch (NumberFormatException nfe) {
+                exitWithUsage("invalid memory size " + args[7]);
+            }
+        }
+        MemoryGovernor.configure(budget, BufferManager.getNumBuffers());
+        ExternalSort.clearRunCounts();
+        HashJoin.clearNumRepartitions();
+        TableMetadata.clear();
+    }
+
+    /**
+     * Set the number of worker threads of every external sort if given after the memory size,
+     * * the workers share the buffers granted to the sort. Then choose how the sorts generate
+     * * their runs, by default by sorting blocks of B pages.
+     **/
+    private static void configureExternalSort(String[] args) {
+        if (args.length < 9) {
+            return;
+        }
+        try {
+            ExternalSort.setDefaultParallelism(Integer.parseInt(args[8]));
+        } catch (NumberFormatException nfe) {
+            exitWithUsage("invalid number of sort workers " + args[8]);
+        }
+        if (args.length >= 10) {
+            int strategy = ExternalSort.runStrategyOf(args[9]);
+            if (strategy < 0) {
+                exitWithUsage("unknown run strategy " + args[9]);
+            }
+            ExternalSort.setDefaultRunStrategy(strategy);
+        }
+    }
+
+    /**
+     * Choose how the scans read the binary table files if given after the run strategy,
+     * * by default the files are memory mapped, read makes them read page by page.
+     **/
+    private static void configureScan(String[] args) {
+        if (args.length < 11) {
+            return;
+        }
+        String mode = args[10].toLowerCase();
+        if (mode.equals("mmap")) {
+            Scan.setDefaultMapped(true);
+        } else if (mode.equals("read")) {
+            Scan.setDefaultMapped(false);
+        } else {
+            exitWithUsage("unknown scan mode " + args[10]);
+        }
+    }
+
+    /**
+     * Make every join use the join method given after the scan mode,
+     * * by default the optimizer chooses the method of every join.
+     **/
+    private static void configureJoins(String[] args) {
+        if (args.length < 12) {
+            return;
+        }
+        int type = JoinType.typeOf(args[11]);
+        if (type < 0) {
+            exitWithUsage("unknown join method " + args[11]);
+        }
+        JoinType.setForced(type);
+    }
+
     /**
      * Parse query from query file
      **/
@@ -88,11 +216,13 @@ public class QueryMain {
     }
 
     /**
-     * If there are joins then assigns buffers to each join operator while preparing the plan.
-     * As buffer manager is not implemented, just input the number of buffers available.
+     * If there are joins, a distinct or an order by then reads the number of buffers
+     * available, which the optimizer grants to those operators while preparing the plan.
+     * The sort of an order by reads all its input before the merges start, and is
+     * not counted in the equal share of the joins and the distinct.
      **/
-    private static void configureBufferManager(int numJoin, String[] args, BufferedReader in) {
-        if (numJoin != 0) {
+    private static void configureBufferManager(int numOperators, boolean hasSort, String[] args, BufferedReader in) {
+        if (numOperators != 0 || hasSort) {
             int numBuff = 1000;
             if (args.length < 4) {
                 System.out.println("enter the number of buffers available");
@@ -103,13 +233,13 @@ public class QueryMain {
                     e.printStackTrace();
                 }
             } else numBuff = Integer.parseInt(args[3]);
-            BufferManager bm = new BufferManager(numBuff, numJoin);
+            BufferManager bm = new BufferManager(numBuff, Math.max(1, numOperators));
         }
 
         /** Check the number of buffers available is enough or not **/
         int numBuff = BufferManager.getBuffersPerJoin();
-        if (numJoin > 0 && numBuff < 3) {
-            System.out.println("Minimum 3 buffers are required per join operator ");
+        if ((numOperators > 0 || hasSort) && numBuff < 3) {
+            System.out.println("Minimum 3 buffers are required per join, distinct or aggregate operator, and for sorting ");
             System.exit(1);
         }
     }
@@ -128,11 +258,10 @@ public class QueryMain {
             System.exit(1);
         }
 
-        root = RandomOptimizer.makeExecPlan(planroot);
-
-        if(planroot.isDistinct()){
-            root.setIsDistinct(true);
-        }
+        /** The buffers are granted on the final plan, in a pass of their own **/
+        PlanCost pc = new PlanCost();
+        pc.allocateBuffers(planroot);
+        root = RandomOptimizer.makeExecPlan(planroot, pc);
 
         return root;
     }
@@ -142,27 +271,7 @@ public class QueryMain {
      **/
     private static void printFinalPlan(Operator root, String[] args, BufferedReader in) {
         System.out.println("----------------------Execution Plan----------------");
-        if(root.isOrderByQuery()) {
-            System.out.print("Orderby(");
-        }
-        if(root.isDistinct()){
-            System.out.print("Distinct(");
-        }
         Debug.PPrint(root);
-        if(root.isDistinct()){
-            System.out.print(")");
-        }
-
-        if(root.isOrderByQuery()) {
-            System.out.print(", <");
-            
-            for (int k = 0; k < root.getOrderByList().size(); k++) {
-                System.out.print(root.getOrderByList().get(k));
-                if (k + 1 != root.getOrderByList().size())
-                    System.out.print(", ");
-            }
-            System.out.print(">)");
-        }
         PlanCost pc = new PlanCost();
         System.out.printf("\nExpected cost: %d\n", pc.getCost(root));
         if (args.length < 5) {
@@ -201,75 +310,33 @@ public class QueryMain {
         numAtts = schema.getNumCols();
         printSchema(schema);
 
-
-        ArrayList<Integer> indexList = new ArrayList<>();
-        ArrayList<Attribute> orderbyList = root.getOrderByList();
-
-        /** Get list of indexes that points to the attributes to be sorted by**/
-        if (orderbyList.size() > 0) {
-            for (Attribute a : orderbyList) {
-                for (int i = 0; i < schema.getAttList().size(); i++) {
-                    if(a.toString().equals(schema.getAttList().get(i).toString()))
-                        indexList.add(i); 
-                }
-            }
-        }
-
         /** Print each tuple in the result **/
         Batch resultbatch;
-        ArrayList<Tuple> printedTuples = new ArrayList<>();
         while ((resultbatch = root.next()) != null) {
             for (int i = 0; i < resultbatch.size(); ++i) {
-                Tuple resultTuple = resultbatch.get(i);
-
-                /** Check if tuple is distinct before printing **/
-                if (root.isDistinct()) {
-                    if(printedTuples.isEmpty()){
-                        printedTuples.add(resultTuple);
-                    }else{
-                        boolean isSame = false;
-                        for(Tuple printedTuple: printedTuples){
-                            if (resultTuple.isEquals(printedTuple)) {
-                                isSame = true;
-                                break;
-                            }
-                        }
-                        if(!isSame){
-                            printedTuples.add(resultTuple);
-                        }
-                    }
-                }else{
-                    printedTuples.add(resultTuple);
-                }
+                printTuple(resultbatch.get(i));
             }
         }
-
-        
-        /** Sort the tuples based on the attributes (indexes pointing to attributes) **/
-        if (orderbyList.size() > 0) {
-            Collections.sort(printedTuples, new Comparator<Tuple>() {
-                @Override
-                public int compare(Tuple t1, Tuple t2) {
-                    int compareResult = Tuple.compareTuples(t1, t2, indexList, indexList);
-                    if (compareResult != 0) {
-                        int multiplier = (root.IsDesc()) ? -1 : 1;
-                        return multiplier * compareResult;
-                    }
-                    return 0;
-                }
-            });
-        }
-
-        // Print all tuples 
-        for(Tuple t : printedTuples) {
-            printTuple(t);
-        }
         root.close();
         out.close();
 
         long endtime = System.currentTimeMillis();
         double executiontime = (endtime - starttime) / 1000.0;
         System.out.println("Execution time = " + executiontime);
+        BufferPool pool = BufferPool.get();
+        System.out.println("Buffer pool (" + pool.getNumFrames() + " frames, " + pool.getPolicy() + "): "
+                + pool.getHits() + " hits, " + pool.getMisses() + " misses, " + pool.getWrites() + " pages written");
+        for (MemoryGovernor.Account account : MemoryGovernor.getAccounts()) {
+            System.out.println("Peak memory of " + account.getName() + ": " + account.getPeak()
+                    + " bytes of " + account.getGrant() + " granted");
+        }
+        for (ExternalSort.RunCount runs : ExternalSort.getRunCounts()) {
+            System.out.println("Runs of " + runs.getName() + ": " + runs.getNumRuns() + " runs, "
+                    + runs.getNumPasses() + " merge passes");
+        }
+        if (HashJoin.getNumRepartitions() > 0) {
+            System.out.println("Repartitioned partitions of the hash joins: " + HashJoin.getNumRepartitions());
+        }
         return executiontime;
     }
 
@@ -291,17 +358,17 @@ public class QueryMain {
 
     protected static void printTuple(Tuple t) {
         for (int i = 0; i < numAtts; ++i) {
-            Object data = t.dataAt(i);
-            if (data instanceof Integer) {
-                out.print(((Integer) data).intValue() + "\t");
-            } else if (data instanceof Float) {
-                out.print(((Float) data).floatValue() + "\t");
-            } else if (data == null) {
+            int type = t.typeAt(i);
+            if (type == Attribute.INT) {
+                out.print(t.intAt(i) + "\t");
+            } else if (type == Attribute.REAL) {
+                out.print(t.realAt(i) + "\t");
+            } else if (t.stringAt(i) == null) {
                 out.print("-NULL-\t");
             } else {
-                out.print(((String) data) + "\t");
+                out.print(t.stringAt(i) + "\t");
             }
         }
         out.println();
     }
-}
\ No newline at end of file
+}
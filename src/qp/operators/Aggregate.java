@@ -9,12 +9,19 @@ import java.util.stream.Collectors;
 import qp.utils.AggregateAttribute;
 import qp.utils.Attribute;
 import qp.utils.Batch;
+import qp.utils.MemoryGovernor;
+import qp.utils.PageFile;
+import qp.utils.Schema;
 import qp.utils.Tuple;
+import qp.utils.TupleLayout;
+import qp.utils.TupleReader;
+import qp.utils.TupleWriter;
 
 /**
  * This class functions as a Helper Class to support the Aggregate Computation
  **/
 public class Aggregate extends Operator {
+    static int filenum = 0;                 // To get unique filenum for this operation
     Operator base;                          // Base table to project
     ArrayList<Attribute> attrset;           // Set of attributes to project
     Batch inbatch;                          // Buffer page for input
@@ -24,6 +31,10 @@ public class Aggregate extends Operator {
     int tuplesize;                          // Size of tuple
     int batchsize;                          // Number of tuples per out batch
     List<AggregateAttribute> aggrAttrList;  // ArrayList of aggregated values
+    MemoryGovernor.Account memory;          // Heap held by the input tuples kept in inbatch
+    String spillfile;                       // File of the input tuples which did not fit in memory
+    TupleReader spillreader;                // Reader of the spilled input tuples, null if none
+    TupleLayout outlayout;                  // Layout of the output tuples
 
     /**
      * Default constructor for Aggregate, which is instantiated from {@code Project.java}
@@ -56,11 +67,17 @@ public class Aggregate extends Operator {
      * Opens the connection to the base operator, loop through the tuples to compute the aggregation value.
      * Computed value are stored and updated as an attribute in {@code AggregateAttribute}.
      * The tuples are then copied over to input buffer - {@code inbatch} for processing.
+     * Once the tuples take more memory than the heap granted for the buffers of the
+     * operator, the rest of them are written to a file and read back after the ones
+     * in {@code inbatch}.
      **/
     @Override
     public boolean open() {
         batchsize = Batch.getPageSize() / tuplesize;
         inbatch = new Batch(batchsize);
+        outlayout = outputLayout();
+        memory = MemoryGovernor.open("Aggregate", numBuff);
+        TupleWriter spill = null;
 
         while ((tempbatch = base.next()) != null) {
             while (!tempbatch.isEmpty()) {
@@ -68,12 +85,68 @@ public class Aggregate extends Operator {
                 for (AggregateAttribute aggAttr : aggrAttrList) {
                     aggAttr.setAggVal(tuple);
                 }
-                inbatch.add(tuple);
+                if (spill == null && memory.isOver()) {
+                    filenum++;
+                    spillfile = "AGGtemp-" + filenum;
+                    spill = new TupleWriter(spillfile, batchsize);
+                    if (!spill.open()) {
+                        System.out.println("Aggregate: Error writing to temporary file");
+                        return false;
+                    }
+                }
+                if (spill != null) {
+                    spill.next(tuple);
+                } else {
+                    inbatch.add(tuple);
+                    memory.reserve(tuple.memorySize());
+                }
+            }
+        }
+        if (spill != null) {
+            spill.close();
+            spillreader = new TupleReader(spillfile, batchsize);
+            if (!spillreader.open()) {
+                System.out.println("Aggregate: Error reading temporary file");
+                return false;
             }
         }
         return true;
     }
 
+    /**
+     * Layout of the output tuples, the columns of the base followed by the aggregated values
+     */
+    private TupleLayout outputLayout() {
+        Schema baseSchema = base.getSchema();
+        ArrayList<Integer> types = new ArrayList<>();
+        for (int i = 0; i < baseSchema.getNumCols(); ++i) {
+            types.add(baseSchema.getAttribute(i).getProjectedType());
+        }
+        for (int j = 0; j < attrset.size(); j++) {
+            Attribute attr = attrset.get(j);
+            int index = attrIndex[j];
+            if (attr.getAggType() != Attribute.NONE
+                    && aggrAttrList.stream().anyMatch(x -> x.aggType == attr.getAggType() && x.attrIndex == index)) {
+                types.add(attr.getProjectedType());
+            }
+        }
+        return TupleLayout.of(types.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Whether there are input tuples left, refills inbatch from the spilled tuples when it is empty
+     */
+    private boolean hasInput() {
+        if (inbatch.isEmpty() && spillreader != null) {
+            memory.releaseAll();
+            Tuple tuple;
+            while (inbatch.size() < batchsize && (tuple = spillreader.next()) != null) {
+                inbatch.add(tuple);
+            }
+        }
+        return !inbatch.isEmpty();
+    }
+
     /**
      * Read next tuple from operator
      * It keeps the original tuple's data and appending the aggregate values as new columns to the end of the tuples
@@ -83,12 +156,12 @@ public class Aggregate extends Operator {
     public Batch next() {
         outbatch = new Batch(batchsize);
 
-        if (inbatch.isEmpty()) {
+        if (!hasInput()) {
             close();
             return null;
         }
 
-        while (!outbatch.isFull() && !inbatch.isEmpty()) {
+        while (!outbatch.isFull() && hasInput()) {
             Tuple tuple = inbatch.removeFirst();
             /* Extract out the Attribute Column Name and store in a list.
                This is then used later to obtain the object index in the data's ArrayList */
@@ -151,7 +224,7 @@ public class Aggregate extends Operator {
             }
 
             if (output) {
-                Tuple outtuple = new Tuple(present);
+                Tuple outtuple = new Tuple(outlayout, present);
                 if (!outbatch.isContains(outtuple)) { // Only unique tuples to be written out
                     outbatch.add(outtuple);
                 }
@@ -163,6 +236,14 @@ public class Aggregate extends Operator {
     @Override
     public boolean close() {
         inbatch = null;
+        if (spillreader != null) {
+            spillreader.close();
+            spillreader = null;
+            PageFile.delete(spillfile);
+        }
+        if (memory != null) {
+            memory.releaseAll();
+        }
         base.close();
         return true;
     }
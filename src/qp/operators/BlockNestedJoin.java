@@ -1,21 +1,19 @@
 package qp.operators;
 
-import java.io.EOFException;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 
+import qp.utils.AccessPattern;
 import qp.utils.Attribute;
 import qp.utils.Batch;
 import qp.utils.Condition;
+import qp.utils.MemoryGovernor;
+import qp.utils.PageFile;
 import qp.utils.Tuple;
 
 /**
  * Block Nested Loop Join Algorithm
+ * A block of left tuples that takes more heap than the join is granted by the
+ * MemoryGovernor makes the following blocks smaller.
  */
 public class BlockNestedJoin extends Join {
 
@@ -28,7 +26,10 @@ public class BlockNestedJoin extends Join {
     Batch outbatch;                 // Buffer page for output
     Batch leftbatch;                // Buffer page for left input stream
     Batch rightbatch;               // Buffer page for right input stream
-    ObjectInputStream in;           // File pointer to the right hand materialized file
+    PageFile rightfile;             // The right hand materialized file, read through the buffer pool
+    int rpageno;                    // Next page of the materialized file to read
+    MemoryGovernor.Account memory;  // Heap held by the left block
+    long blockbytes;                // Bytes of the current left block
 
     int lcurs;                      // Cursor for left side buffer
     int rcurs;                      // Cursor for right side buffer
@@ -58,6 +59,8 @@ public class BlockNestedJoin extends Join {
         batchsize = pageSize / tuplesize;
 
         blocksize = (numBuff - 2) * batchsize;
+        memory = MemoryGovernor.open("BlockNestedJoin", numBuff);
+        blockbytes = 0;
 
         /* Throw error if a tuple cannot be fit into a page */
         if (pageSize < tuplesize) {
@@ -97,16 +100,21 @@ public class BlockNestedJoin extends Join {
              **/
             filenum++;
             rfname = "BNJtemp-" + String.valueOf(filenum);
-            try {
-                ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(rfname));
-                while ((rightpage = right.next()) != null) {
-                    out.writeObject(rightpage);
-                }
-                out.close();
-            } catch (IOException io) {
+            rightfile = PageFile.create(rfname);
+            if (rightfile == null) {
                 System.out.println("BlockNestedJoin: Error writing to temporary file");
                 return false;
             }
+            rightfile.setAccessPattern(AccessPattern.LOOPING);
+            while ((rightpage = right.next()) != null) {
+                rightfile.appendBatch(rightpage);
+            }
+            rightfile.close();
+            rightfile = PageFile.open(rfname);
+            if (rightfile == null) {
+                return false;
+            }
+            rightfile.setAccessPattern(AccessPattern.LOOPING);
             if (!right.close())
                 return false;
         }
@@ -130,70 +138,60 @@ public class BlockNestedJoin extends Join {
             if (lcurs == 0 && eosr == true) {
                 /** Fetch a block of tuples from left relation */
                 leftbatch = (Batch) left.getBlock(blocksize);
+                memory.release(blockbytes);
                 if (leftbatch == null) {
                     eosl = true;
                     return outbatch;
                 }
+                blockbytes = leftbatch.memorySize();
+                memory.reserve(blockbytes);
+                if (memory.isOver()) {
+                    blocksize = (int) Math.max(batchsize, blocksize * memory.getGrant() / blockbytes);
+                }
 
                 /** Whenever a new left page came, we have to start the
                  ** scanning of right table
                  **/
-                try {
-                    in = new ObjectInputStream(new FileInputStream(rfname));
-                    eosr = false;
-                } catch (IOException io) {
-                    System.err.println("BlockNestedJoin:error in reading the file");
-                    System.exit(1);
-                }
+                rpageno = 0;
+                eosr = false;
 
             }
             while (eosr == false) {
-                try {
-                    if (rcurs == 0 && lcurs == 0) {
-                        rightbatch = (Batch) in.readObject();
+                if (rcurs == 0 && lcurs == 0) {
+                    if (rpageno == rightfile.getNumPages()) {
+                        eosr = true;
+                        break;
                     }
-                    for (i = lcurs; i < leftbatch.size(); ++i) {
-                        for (j = rcurs; j < rightbatch.size(); ++j) {
-                            Tuple lefttuple = leftbatch.get(i);
-                            Tuple righttuple = rightbatch.get(j);
-                            if (lefttuple.checkJoin(righttuple, leftindex, rightindex)) {
-                                Tuple outtuple = lefttuple.joinWith(righttuple);
-                                outbatch.add(outtuple);
-                                if (outbatch.isFull()) {
-                                    if (i == leftbatch.size() - 1 && j == rightbatch.size() - 1) {  //case 1
-                                        lcurs = 0;
-                                        rcurs = 0;
-                                    } else if (i != leftbatch.size() - 1 && j == rightbatch.size() - 1) {  //case 2
-                                        lcurs = i + 1;
-                                        rcurs = 0;
-                                    } else if (i == leftbatch.size() - 1 && j != rightbatch.size() - 1) {  //case 3
-                                        lcurs = i;
-                                        rcurs = j + 1;
-                                    } else {
-                                        lcurs = i;
-                                        rcurs = j + 1;
-                                    }
-                                    return outbatch;
+                    rightbatch = rightfile.readBatch(rpageno++);
+                }
+                for (i = lcurs; i < leftbatch.size(); ++i) {
+                    for (j = rcurs; j < rightbatch.size(); ++j) {
+                        Tuple lefttuple = leftbatch.get(i);
+                        Tuple righttuple = rightbatch.get(j);
+                        if (lefttuple.checkJoin(righttuple, leftindex, rightindex)) {
+                            Tuple outtuple = lefttuple.joinWith(righttuple);
+                            outbatch.add(outtuple);
+                            if (outbatch.isFull()) {
+                                if (i == leftbatch.size() - 1 && j == rightbatch.size() - 1) {  //case 1
+                                    lcurs = 0;
+                                    rcurs = 0;
+                                } else if (i != leftbatch.size() - 1 && j == rightbatch.size() - 1) {  //case 2
+                                    lcurs = i + 1;
+                                    rcurs = 0;
+                                } else if (i == leftbatch.size() - 1 && j != rightbatch.size() - 1) {  //case 3
+                                    lcurs = i;
+                                    rcurs = j + 1;
+                                } else {
+                                    lcurs = i;
+                                    rcurs = j + 1;
                                 }
+                                return outbatch;
                             }
                         }
-                        rcurs = 0;
-                    }
-                    lcurs = 0;
-                } catch (EOFException e) {
-                    try {
-                        in.close();
-                    } catch (IOException io) {
-                        System.out.println("BlockNestedJoin: Error in reading temporary file");
                     }
-                    eosr = true;
-                } catch (ClassNotFoundException c) {
-                    System.out.println("BlockNestedJoin: Error in deserialising temporary file ");
-                    System.exit(1);
-                } catch (IOException io) {
-                    System.out.println("BlockNestedJoin: Error in reading temporary file");
-                    System.exit(1);
+                    rcurs = 0;
                 }
+                lcurs = 0;
             }
         }
         return outbatch;
@@ -208,8 +206,14 @@ public class BlockNestedJoin extends Join {
      * Close the operator
      */
     public boolean close() {
-        File f = new File(rfname);
-        f.delete();
+        if (memory != null) {
+            memory.releaseAll();
+        }
+        if (rightfile != null) {
+            rightfile.close();
+        }
+        PageFile.delete(rfname);
+        left.close();
         return true;
     }
 }
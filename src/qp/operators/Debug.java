@@ -94,6 +94,12 @@ public class Debug {
                 case JoinType.HASHJOIN:
                     System.out.print("HashJoin(");
                     break;
+                case JoinType.HYBRIDHASH:
+                    System.out.print("HybridHash(");
+                    break;
+                case JoinType.INDEXNESTED:
+                    System.out.print("IndexNested(");
+                    break;
             }
             PPrint(((Join) node).getLeft());
             System.out.print("  [");
@@ -105,8 +111,10 @@ public class Debug {
         } else if (optype == OpType.SELECT) {
             System.out.print("Select(");
             PPrint(((Select) node).getBase());
-            System.out.print("  '");
-            PPrint(((Select) node).getCondition());
+            for (Condition con : ((Select) node).getConditionList()) {
+                System.out.print("  '");
+                PPrint(con);
+            }
             System.out.print(")");
 
         } else if (optype == OpType.PROJECT || optype == OpType.AGGREGATE) {
@@ -115,8 +123,52 @@ public class Debug {
             PPrint(node.getSchema());
             System.out.print(")");
 
+        } else if (optype == OpType.DISTINCT) {
+            System.out.print("Distinct(");
+            PPrint(((Distinct) node).getBase());
+            System.out.print(")");
+
+        } else if (optype == OpType.SORT) {
+            Sort sort = (Sort) node;
+            System.out.print(sort instanceof TopN ? "TopN(" : "OrderBy(");
+            PPrint(sort.getBase());
+            System.out.print(", <");
+            for (int i = 0; i < sort.getSortList().size(); ++i) {
+                if (i > 0) {
+                    System.out.print(", ");
+                }
+                System.out.print(sort.getSortList().get(i) + (sort.isDescending(i) ? " DESC" : ""));
+            }
+            System.out.print(">");
+            if (sort instanceof TopN) {
+                System.out.print(", " + ((TopN) sort).getLimit());
+            }
+            System.out.print(")");
+
+        } else if (optype == OpType.LIMIT) {
+            System.out.print("Limit(");
+            PPrint(((Limit) node).getBase());
+            System.out.print(", " + ((Limit) node).getLimit() + ")");
+
         } else if (optype == OpType.SCAN) {
-            System.out.print(((Scan) node).getTabName());
+            Scan scan = (Scan) node;
+            if (scan instanceof IndexScan) {
+                System.out.print("IndexScan(" + scan.getTabName() + "." + ((IndexScan) scan).getIndexAttribute().getColName());
+                for (Condition con : scan.getPredicates()) {
+                    System.out.print("  '");
+                    PPrint(con);
+                }
+                System.out.print(")");
+            } else if (scan.getPredicates().isEmpty()) {
+                System.out.print(scan.getTabName());
+            } else {
+                System.out.print("Scan(" + scan.getTabName());
+                for (Condition con : scan.getPredicates()) {
+                    System.out.print("  '");
+                    PPrint(con);
+                }
+                System.out.print(")");
+            }
         }
     }
 
@@ -125,7 +177,7 @@ public class Debug {
      * print a tuple
      **/
     public static void PPrint(Tuple t) {
-        for (int i = 0; i < t.data().size(); i++) {
+        for (int i = 0; i < t.size(); i++) {
             Object data = t.dataAt(i);
             if (data instanceof Integer) {
                 System.out.print((Integer) data + "\t");
@@ -0,0 +1,280 @@
+/**
+ * Removes the duplicate tuples of the result
+ **/
+
+package qp.operators;
+
+import qp.utils.Batch;
+import qp.utils.MemoryGovernor;
+import qp.utils.PageFile;
+import qp.utils.Tuple;
+import qp.utils.TupleHashTable;
+import qp.utils.TupleReader;
+import qp.utils.TupleWriter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+
+/**
+ * Hash based duplicate elimination
+ * The distinct tuples of the input are kept in a hash table on all the columns and are
+ * output as soon as they are first seen. Half of the buffers left after the input and
+ * output pages are kept for partition files. Once the table fills the other half (at
+ * least one page), or takes more heap than granted by the MemoryGovernor, the input
+ * tuples which are not in the table are hashed into the partition files instead. Every
+ * partition holds tuples absent from the table, so it is deduplicated on its own
+ * afterwards in the same way, with the hash function of the next level.
+ */
+public class Distinct extends Operator {
+
+    static int filenum = 0;             // To get unique filenum for this operation
+    public static final int MAXLEVEL = 3;   // Maximum number of recursive partitioning passes
+
+    Operator base;                      // Base operator
+    int batchsize;                      // Number of tuples per out batch
+    int[] keyindex;                     // Indices of all the columns
+    int numPartitions;                  // Number of partitions of an input that does not fit
+    int residentCapacity;               // Number of distinct tuples the table may hold
+    String fileprefix;                  // Prefix of the partition files of this operator
+    int numPartitionFiles;              // Number of partition files created so far
+    ArrayList<String> tempFiles;        // Partition files to be cleaned up on close
+    Deque<Partition> pending;           // Partitions which are yet to be deduplicated
+    MemoryGovernor.Account memory;      // Heap held by the hash table
+
+    int level;                          // Partitioning level of the current input
+    TupleHashTable table;               // Distinct tuples of the current input seen so far
+    TupleWriter[] partitions;           // Partitions of the current input, null while the table has room
+    TupleReader reader;                 // Partition being deduplicated, null while reading the base
+    Batch inbatch;                      // Buffer page for the base input
+    int incurs;                         // Cursor for the base input buffer
+    boolean eosb;                       // Whether the base input is consumed
+    boolean eos;                        // Whether end of stream is reached
+
+    /**
+     * A partition file and the level it was hashed at
+     */
+    static class Partition {
+        final String filename;
+        final int level;
+
+        Partition(String filename, int level) {
+            this.filename = filename;
+            this.level = level;
+        }
+    }
+
+    public Distinct(Operator base, int type) {
+        super(type);
+        this.base = base;
+    }
+
+    public Operator getBase() {
+        return base;
+    }
+
+    public void setBase(Operator base) {
+        this.base = base;
+    }
+
+    /**
+     * Number of partitions an input that does not fit is hashed into
+     */
+    public static int numDistinctPartitions(int numBuff) {
+        return Math.max(1, (numBuff - 2) / 2);
+    }
+
+    public boolean open() {
+        int tuplesize = schema.getTupleSize();
+        batchsize = Batch.getPageSize() / tuplesize;
+        if (batchsize < 1) {
+            System.err.println("Error: Page size must be bigger than tuple size for distinct.");
+            return false;
+        }
+        if (numBuff < 3) {
+            System.err.println("Error: Distinct requires at least 3 buffers.");
+            return false;
+        }
+        numPartitions = numDistinctPartitions(numBuff);
+        residentCapacity = Math.max(1, numBuff - 2 - numPartitions) * batchsize;
+
+        keyindex = new int[schema.getNumCols()];
+        for (int i = 0; i < keyindex.length; ++i) {
+            keyindex[i] = i;
+        }
+
+        filenum++;
+        fileprefix = "DTtemp-" + filenum;
+        numPartitionFiles = 0;
+        tempFiles = new ArrayList<>();
+        pending = new ArrayDeque<>();
+        memory = MemoryGovernor.open("Distinct", numBuff);
+
+        startInput(0);
+        reader = null;
+        inbatch = null;
+        incurs = 0;
+        eosb = false;
+        eos = false;
+        return base.open();
+    }
+
+    /**
+     * Starts deduplicating an input of the given level with an empty table
+     */
+    private void startInput(int level) {
+        this.level = level;
+        table = new TupleHashTable(keyindex);
+        partitions = null;
+        memory.releaseAll();
+    }
+
+    /**
+     * Returns the next page of distinct tuples
+     */
+    public Batch next() {
+        if (eos) {
+            return null;
+        }
+        Batch outbatch = new Batch(batchsize);
+        while (!outbatch.isFull()) {
+            Tuple t = nextInput();
+            if (t == null) {
+                if (!nextPartition()) {
+                    eos = true;
+                    break;
+                }
+                continue;
+            }
+            if (table.contains(t, keyindex)) {
+                continue;
+            }
+            if (partitions == null && level < MAXLEVEL
+                    && (table.size() >= residentCapacity || memory.isOver())) {
+                partitions = createPartitions();
+            }
+            if (partitions != null) {
+                partitions[HashJoin.partitionOf(t.hashOf(keyindex), level, numPartitions)].next(t);
+                continue;
+            }
+            table.add(t);
+            memory.reserve(TupleHashTable.entrySize(t));
+            outbatch.add(t);
+        }
+
+        if (outbatch.isEmpty()) {
+            return null;
+        }
+        return outbatch;
+    }
+
+    @Override
+    public Batch getBlock(int sizeofblock) {
+        return next();
+    }
+
+    /**
+     * Next tuple of the current input, null at its end
+     */
+    private Tuple nextInput() {
+        if (reader != null) {
+            return reader.next();
+        }
+        while (!eosb && (inbatch == null || incurs >= inbatch.size())) {
+            inbatch = base.next();
+            incurs = 0;
+            if (inbatch == null) {
+                eosb = true;
+            }
+        }
+        return eosb ? null : inbatch.get(incurs++);
+    }
+
+    /**
+     * Queues the partitions of the current input and starts on the next pending one.
+     * Returns false if there are no more partitions.
+     */
+    private boolean nextPartition() {
+        if (reader != null) {
+            reader.close();
+            deleteFile(reader.getFileName());
+            reader = null;
+        }
+        if (partitions != null) {
+            for (TupleWriter partition : partitions) {
+                partition.close();
+                if (partition.getNumTuple() == 0) {
+                    deleteFile(partition.getFileName());
+                } else {
+                    pending.push(new Partition(partition.getFileName(), level + 1));
+                }
+            }
+            partitions = null;
+        }
+        if (pending.isEmpty()) {
+            table = null;
+            memory.releaseAll();
+            return false;
+        }
+        Partition p = pending.pop();
+        startInput(p.level);
+        reader = new TupleReader(p.filename, batchsize);
+        if (!reader.open()) {
+            System.exit(1);
+        }
+        return true;
+    }
+
+    private TupleWriter[] createPartitions() {
+        TupleWriter[] writers = new TupleWriter[numPartitions];
+        for (int i = 0; i < numPartitions; ++i) {
+            String filename = fileprefix + "-" + numPartitionFiles++;
+            writers[i] = new TupleWriter(filename, batchsize);
+            if (!writers[i].open()) {
+                System.exit(1);
+            }
+            tempFiles.add(filename);
+        }
+        return writers;
+    }
+
+    private void deleteFile(String filename) {
+        PageFile.delete(filename);
+        tempFiles.remove(filename);
+    }
+
+    /**
+     * Close the operator
+     */
+    public boolean close() {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+        if (partitions != null) {
+            for (TupleWriter partition : partitions) {
+                partition.close();
+            }
+            partitions = null;
+        }
+        table = null;
+        if (memory != null) {
+            memory.releaseAll();
+        }
+        if (tempFiles != null) {
+            for (String filename : new ArrayList<>(tempFiles)) {
+                deleteFile(filename);
+            }
+        }
+        base.close();
+        return true;
+    }
+
+    public Object clone() {
+        Operator newbase = (Operator) base.clone();
+        Distinct newdistinct = new Distinct(newbase, optype);
+        newdistinct.setSchema(newbase.getSchema());
+        newdistinct.setNumBuff(numBuff);
+        return newdistinct;
+    }
+}
@@ -1,26 +1,65 @@
 package qp.operators;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import qp.utils.Batch;
 import qp.utils.Block;
+import qp.utils.LoserTree;
+import qp.utils.MemoryGovernor;
+import qp.utils.PageFile;
 import qp.utils.Tuple;
+import qp.utils.TupleReader;
+import qp.utils.TupleWriter;
 
 /**
  * External Sort Algorithm
+ * Sorted runs are generated either by sorting blocks of B pages in memory, or by
+ * replacement selection which grows runs of 2B pages on average, and are then merged
+ * (B-1) at a time until at most (B-1) runs are left. The last merge is not written out,
+ * it is done page by page in next() as the consumer asks for the sorted output.
+ * With a parallelism level of P above 1, the B buffers are split among P workers of a
+ * ForkJoinPool, each holding B/P of them. The input pages are dealt to the workers, which
+ * generate runs concurrently, and the groups of an intermediate merge pass are merged
+ * concurrently (B/P-1) runs at a time. The final merge uses all the (B-1) buffers.
+ * The blocks and the heap also stop growing when the tuples they hold take more heap
+ * than the sort is granted by the MemoryGovernor, the runs are then shorter.
  */
 public class ExternalSort extends Operator {
+    public static final int SORTED_BLOCK = 0;           // Runs of B pages sorted in memory
+    public static final int REPLACEMENT_SELECTION = 1;  // Runs grown by a heap of B pages
+
+    static int defaultRunStrategy = SORTED_BLOCK;           // Run generation of new sorts
+    static int defaultParallelism = 1;                      // Number of worker threads of new sorts
+    static final AtomicInteger filenum = new AtomicInteger();  // To get unique file names for every sort
+    static final Batch END = new Batch(0);                     // Marks the end of the pages dealt to a worker
+    static final List<RunCount> runCounts = new ArrayList<>();  // Runs of the sorts of the query, in order
+
+    int parallelism;                // Number of worker threads asked for
+    int numWorkers;                 // Number of worker threads used, at most B/3
+    int workerBuffers;              // Number of buffers held by each worker (B/P)
+    ForkJoinPool pool;              // Workers for sorting and merging, null if single threaded
+    String fileprefix;              // Prefix of the temporary files of this sort
+    AtomicInteger numTempFiles;     // Number of temporary files created so far
+    List<File> tempFiles;           // Temporary files to be cleaned up on close
+    int runStrategy;                // How the initial runs are generated
+    int numRuns;                    // Number of initial sorted runs
+    int numPasses;                  // Number of merge passes over the runs
+    RunCount runCount;              // Runs and passes of this sort reported after the query
     int batchsize;                  // Number of tuples per out batch
     int noOfBuffer;                 // Number of buffers (B)
     int noOfAvailBuffer;            // Number of buffers available for sorting (B-1)
@@ -30,18 +69,162 @@ public class ExternalSort extends Operator {
     ArrayList<Integer> attrIndex;   // Set of attributes index to sort
     Comparator<Tuple> comparator;   // Tuple comparator
     List<File> sortedFiles;         // List of files (runs) to sort
-    ObjectInputStream inputStream;  // Input file (run) being read
-    ObjectOutputStream outputStream;// Output file (run) being written
+    LoserTree finalMerge;           // Merge of the last runs, consumed by next()
+    MemoryGovernor.Account memory;  // Heap held by the blocks and the heap of tuples
     Operator base;                  // Base operator
+    boolean baseclosed;             // Whether the base is closed, as soon as the runs are generated
 
     public ExternalSort(Operator base, int noOfBuffer, ArrayList<Integer> attrIndex, String direction) {
+        this(base, noOfBuffer, attrIndex, null, direction);
+    }
+
+    /**
+     * Sorts on the given attributes, in descending order on those whose flag is set.
+     * All of them are sorted in ascending order if descending is null.
+     */
+    public ExternalSort(Operator base, int noOfBuffer, ArrayList<Integer> attrIndex, boolean[] descending,
+                        String direction) {
         super(OpType.JOIN);
         this.base = base;
         this.noOfBuffer = noOfBuffer;
         this.noOfAvailBuffer = noOfBuffer - 1;
         this.direction = direction;
         this.attrIndex = attrIndex;
-        this.comparator = (t1, t2) -> Tuple.compareTuples(t1, t2, attrIndex, attrIndex);
+        this.runStrategy = defaultRunStrategy;
+        this.parallelism = defaultParallelism;
+        int[] keys = new int[attrIndex.size()];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = attrIndex.get(i);
+        }
+        if (descending == null) {
+            this.comparator = (t1, t2) -> Tuple.compareTuples(t1, t2, keys, keys);
+        } else {
+            this.comparator = (t1, t2) -> compareTuples(t1, t2, keys, descending);
+        }
+    }
+
+    /**
+     * Compares two tuples on the keys in turn, the order of a descending key is reversed
+     */
+    static int compareTuples(Tuple t1, Tuple t2, int[] keys, boolean[] descending) {
+        for (int i = 0; i < keys.length; ++i) {
+            int flag = Tuple.compareTuples(t1, t2, keys[i], keys[i]);
+            if (flag != 0) {
+                return descending[i] ? -flag : flag;
+            }
+        }
+        return 0;
+    }
+
+    public static void setDefaultRunStrategy(int strategy) {
+        defaultRunStrategy = strategy;
+    }
+
+    public static int getDefaultRunStrategy() {
+        return defaultRunStrategy;
+    }
+
+    /**
+     * Run strategy of the given name, block or replacement, -1 if there is none
+     */
+    public static int runStrategyOf(String name) {
+        name = name.toLowerCase();
+        if (name.equals("block")) {
+            return SORTED_BLOCK;
+        } else if (name.equals("replacement")) {
+            return REPLACEMENT_SELECTION;
+        }
+        return -1;
+    }
+
+    /**
+     * Number of runs and merge passes of one sort, which outlives the sort
+     */
+    public static class RunCount {
+        final String name;  // Sort which generated the runs
+        int numRuns;        // Number of initial sorted runs
+        int numPasses;      // Number of merge passes written out
+
+        RunCount(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getNumRuns() {
+            return numRuns;
+        }
+
+        public int getNumPasses() {
+            return numPasses;
+        }
+    }
+
+    /**
+     * Runs of the sorts which generated them since the query was configured, in the order they did
+     */
+    public static List<RunCount> getRunCounts() {
+        synchronized (runCounts) {
+            return new ArrayList<>(runCounts);
+        }
+    }
+
+    /**
+     * Forgets the runs of the sorts of the previous query
+     */
+    public static void clearRunCounts() {
+        synchronized (runCounts) {
+            runCounts.clear();
+        }
+    }
+
+    public String getName() {
+        return "ExternalSort(" + direction + ")";
+    }
+
+    public static void setDefaultParallelism(int level) {
+        defaultParallelism = Math.max(1, level);
+    }
+
+    public static int getDefaultParallelism() {
+        return defaultParallelism;
+    }
+
+    /**
+     * Number of worker threads used to generate runs and merge them. The workers share
+     * the B buffers of the sort, so at most B/3 of them are used.
+     */
+    public void setParallelism(int level) {
+        this.parallelism = Math.max(1, level);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setRunStrategy(int strategy) {
+        this.runStrategy = strategy;
+    }
+
+    public int getRunStrategy() {
+        return runStrategy;
+    }
+
+    /**
+     * Number of sorted runs generated from the input, available after open
+     */
+    public int getNumRuns() {
+        return numRuns;
+    }
+
+    /**
+     * Number of merge passes written out to disk, available after open. The last
+     * merge is pipelined into next() and is not counted.
+     */
+    public int getNumPasses() {
+        return numPasses;
     }
 
     public Operator getBase() {
@@ -54,108 +237,429 @@ public class ExternalSort extends Operator {
 
     @Override
     public boolean open() {
+        if (!generateRuns()) {
+            return false;
+        }
+        //Merge until the remaining runs fit in the buffers, they are merged on demand by next()
+        while (getNumRemainingRuns() > noOfAvailBuffer) {
+            if (!mergePass()) {
+                return false;
+            }
+        }
+        return startFinalMerge();
+    }
+
+    /**
+     * Reads the whole input and writes it out as sorted runs with the selected strategy
+     */
+    boolean generateRuns() {
         int tuplesize = base.getSchema().getTupleSize();
         batchsize = Batch.getPageSize() / tuplesize;
 
+        baseclosed = false;
         if (!base.open()) {
             return false;
         }
 
         sortedFiles = new ArrayList<>();
+        fileprefix = String.format("%s-SMTemp-%d", direction, filenum.incrementAndGet());
+        numTempFiles = new AtomicInteger();
+        tempFiles = Collections.synchronizedList(new ArrayList<>());
+        numWorkers = workersFor(parallelism, noOfBuffer);
+        workerBuffers = noOfBuffer / numWorkers;
+        pool = numWorkers > 1 ? new ForkJoinPool(numWorkers) : null;
+        memory = MemoryGovernor.open(getName(), noOfBuffer);
+        runCount = new RunCount(getName());
+        synchronized (runCounts) {
+            runCounts.add(runCount);
+        }
+        numPasses = 0;
         // Try creating sorted runs
         // If any exception encountered, it will be captured here and error message will be printed accordingly.
         try {
-            createRuns();
+            if (runStrategy == REPLACEMENT_SELECTION) {
+                createReplacementRuns();
+            } else {
+                createBlockRuns();
+            }
         } catch (IOException ex) {
             System.out.println("EXTERNALSORT: " + ex.getMessage());
+            shutdownPool();
             return false;
         }
+        numRuns = sortedFiles.size();
+        runCount.numRuns = numRuns;
+
+        /* The input is consumed, the operators below give back their buffers before the merges */
+        base.close();
+        baseclosed = true;
+        return true;
+    }
 
-        //There should be only one file at the end
-        if (sortedFiles.size() != 1) {
+    /**
+     * Number of sorted runs left to be merged
+     */
+    int getNumRemainingRuns() {
+        return sortedFiles.size();
+    }
+
+    /**
+     * Performs one merge pass, merging the runs (B-1) at a time
+     */
+    boolean mergePass() {
+        try {
+            mergeRuns();
+        } catch (IOException ex) {
+            System.out.println("EXTERNALSORT: " + ex.getMessage());
+            shutdownPool();
             return false;
         }
+        return true;
+    }
 
-        File f = sortedFiles.get(0);
+    /**
+     * Opens the merge of the remaining runs, which is consumed page by page by next()
+     * or tuple by tuple by nextTuple()
+     */
+    boolean startFinalMerge() {
+        shutdownPool();
+        if (sortedFiles.size() > noOfAvailBuffer) {
+            return false;
+        }
         try {
-            inputStream = new ObjectInputStream(new FileInputStream(f));
-        } catch (FileNotFoundException ex) {
-            System.out.println("ERROR: File " + f.getName() + " not found");
+            finalMerge = new LoserTree(openReaders(sortedFiles), comparator);
         } catch (IOException ex) {
-            System.out.println("ERROR: Unable to read file: " + f.getName());
+            System.out.println("EXTERNALSORT: " + ex.getMessage());
+            return false;
         }
         return true;
     }
 
+    private void shutdownPool() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
     /**
      * Creates sorted runs by load data into buffer to perform in-memory sort by using {@code comparator}.
      */
-    private void createRuns() throws IOException {
-        int noOfRuns = 0;
+    private void createBlockRuns() throws IOException {
+        Deque<Future<Void>> pending = new ArrayDeque<>();
         inbatch = base.next();
         while (inbatch != null && !inbatch.isEmpty()) {
-            Block run = new Block(noOfBuffer, batchsize);
-            while (!run.isFull() && inbatch != null && !inbatch.isEmpty()) {
+            /* At most one block per worker is held in memory, the one being filled included */
+            if (pool != null && pending.size() >= numWorkers - 1) {
+                await(pending.removeFirst());
+            }
+            Block run = new Block(workerBuffers, batchsize);
+            long runbytes = 0;
+            while (!run.isFull() && inbatch != null && !inbatch.isEmpty() && (run.isEmpty() || !memory.isOver())) {
                 run.addBatch(inbatch);
+                long bytes = inbatch.memorySize();
+                memory.reserve(bytes);
+                runbytes += bytes;
                 inbatch = base.next();
             }
-            noOfRuns++;
+            File f = newTempFile();
+            sortedFiles.add(f);
+            long held = runbytes;
+            if (pool == null) {
+                sortAndWrite(run, f);
+                memory.release(held);
+                continue;
+            }
+            pending.addLast(pool.submit(() -> {
+                sortAndWrite(run, f);
+                memory.release(held);
+                return null;
+            }));
+        }
+        while (!pending.isEmpty()) {
+            await(pending.removeFirst());
+        }
+    }
+
+    /**
+     * Sorts a block in memory and writes it out as a run
+     */
+    private void sortAndWrite(Block run, File f) throws IOException {
+        ArrayList<Tuple> tuples = run.getTuples();
+        tuples.sort(comparator);
+        Block sortedRun = new Block(workerBuffers, batchsize);
+        sortedRun.setTuples(tuples);
+        write(sortedRun, f);
+    }
+
+    /**
+     * Creates sorted runs by replacement selection. Single threaded, one heap of B pages reads
+     * the input directly. Otherwise every worker grows its own runs with a heap of B/P pages,
+     * and the input pages are dealt to the workers in turn through queues of one page.
+     */
+    private void createReplacementRuns() throws IOException {
+        if (pool == null) {
+            sortedFiles.addAll(new ReplacementSelection(noOfBuffer).run(base::next));
+            return;
+        }
+        List<BlockingQueue<Batch>> queues = new ArrayList<>();
+        List<Future<List<File>>> workers = new ArrayList<>();
+        for (int w = 0; w < numWorkers; ++w) {
+            BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(1);
+            queues.add(queue);
+            workers.add(pool.submit(() -> new ReplacementSelection(workerBuffers).run(() -> {
+                Batch page = take(queue);
+                return page == END ? null : page;
+            })));
+        }
+        int w = 0;
+        Batch page;
+        while ((page = base.next()) != null && !page.isEmpty()) {
+            put(queues.get(w), page, workers.get(w));
+            w = (w + 1) % numWorkers;
+        }
+        for (w = 0; w < numWorkers; ++w) {
+            put(queues.get(w), END, workers.get(w));
+        }
+        for (Future<List<File>> worker : workers) {
+            sortedFiles.addAll(await(worker));
+        }
+    }
+
+    /**
+     * Source of the input pages of a run generation, null at the end
+     */
+    private interface PageSource {
+        Batch next() throws IOException;
+    }
+
+    /**
+     * Hands a page to a worker, waiting for its queue to have room. Fails with the
+     * worker if it stops before taking the page.
+     */
+    private void put(BlockingQueue<Batch> queue, Batch page, Future<List<File>> worker) throws IOException {
+        try {
+            while (!queue.offer(page, 10, TimeUnit.MILLISECONDS)) {
+                if (worker.isDone()) {
+                    await(worker);
+                    throw new IOException("Sort worker stopped before the end of the input");
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sorting");
+        }
+    }
+
+    private static Batch take(BlockingQueue<Batch> queue) throws IOException {
+        try {
+            return queue.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sorting");
+        }
+    }
+
+    /**
+     * Replacement selection over a heap of the given number of pages. The smallest tuple is
+     * repeatedly written to the current run and replaced by the next input tuple. An input tuple
+     * smaller than the last one written has to wait for the next run. While the sort holds more
+     * memory than granted, written tuples are not replaced.
+     */
+    private class ReplacementSelection {
+        final Tuple[] heap;     // Heap of tuples
+        final int[] heapRun;    // Run that each tuple in the heap belongs to
+        int heapSize;           // Number of tuples in the heap
+
+        ReplacementSelection(int numBuff) {
+            heap = new Tuple[numBuff * batchsize];
+            heapRun = new int[numBuff * batchsize];
+        }
+
+        /**
+         * Reads the whole source and returns the runs written
+         */
+        List<File> run(PageSource source) throws IOException {
+            List<File> runs = new ArrayList<>();
+            int capacity = heap.length;
+            long arraybytes = MemoryGovernor.arraySize(capacity, MemoryGovernor.REFERENCE) + MemoryGovernor.arraySize(capacity, 4);
+            memory.reserve(arraybytes);
+            Batch inbatch = source.next();
+            int incurs = 0;
+
+            /* Fill the heap, all the tuples go to the first run */
+            while (heapSize < capacity && inbatch != null && (heapSize == 0 || !memory.isOver())) {
+                if (incurs >= inbatch.size()) {
+                    inbatch = source.next();
+                    incurs = 0;
+                    continue;
+                }
+                push(inbatch.get(incurs++), 1);
+            }
+
+            int currentRun = 0;
+            TupleWriter writer = null;
+            while (heapSize > 0) {
+                int run = heapRun[0];
+                Tuple smallest = pop();
+                if (run != currentRun) {
+                    if (writer != null) {
+                        writer.close();
+                    }
+                    currentRun = run;
+                    File f = newTempFile();
+                    writer = new TupleWriter(f.getPath(), batchsize);
+                    if (!writer.open()) {
+                        throw new IOException("Problem encountered when writing the file");
+                    }
+                    runs.add(f);
+                }
+                writer.next(smallest);
 
-            ArrayList<Tuple> tuples = run.getTuples();
-            tuples.sort(comparator);
-            Block sortedRun = new Block(noOfBuffer, batchsize);
-            sortedRun.setTuples(tuples);
-            write(sortedRun, noOfRuns);
+                /* Replace the written tuple by the next input tuple */
+                while (heapSize < capacity && (heapSize == 0 || !memory.isOver())) {
+                    while (inbatch != null && incurs >= inbatch.size()) {
+                        inbatch = source.next();
+                        incurs = 0;
+                    }
+                    if (inbatch == null) {
+                        break;
+                    }
+                    Tuple t = inbatch.get(incurs++);
+                    push(t, comparator.compare(t, smallest) >= 0 ? currentRun : currentRun + 1);
+                }
+            }
+            if (writer != null) {
+                writer.close();
+            }
+            memory.release(arraybytes);
+            return runs;
+        }
+
+        /**
+         * Whether heap entry i comes before entry j, ordered by run first and then by tuple
+         */
+        private boolean less(int i, int j) {
+            if (heapRun[i] != heapRun[j]) {
+                return heapRun[i] < heapRun[j];
+            }
+            return comparator.compare(heap[i], heap[j]) < 0;
+        }
+
+        private void swap(int i, int j) {
+            Tuple t = heap[i];
+            heap[i] = heap[j];
+            heap[j] = t;
+            int r = heapRun[i];
+            heapRun[i] = heapRun[j];
+            heapRun[j] = r;
+        }
+
+        private void push(Tuple t, int run) {
+            memory.reserve(t.memorySize());
+            int i = heapSize++;
+            heap[i] = t;
+            heapRun[i] = run;
+            while (i > 0 && less(i, (i - 1) / 2)) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        }
+
+        private Tuple pop() {
+            Tuple top = heap[0];
+            heapSize--;
+            swap(0, heapSize);
+            heap[heapSize] = null;
+            memory.release(top.memorySize());
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && less(child + 1, child)) child++;
+                if (!less(child, i)) break;
+                swap(i, child);
+                i = child;
+            }
+            return top;
         }
-        mergeRuns();
     }
 
     /**
      * Write out to temporary file
      */
-    private void write(Block run, int noOfRuns) throws IOException {
+    private void write(Block run, File f) throws IOException {
+        PageFile out = PageFile.create(f.getPath());
+        if (out == null) {
+            throw new IOException("Problem encountered when writing the file");
+        }
+        for (Batch batch : run.getBatches()) {
+            out.appendBatch(batch);
+        }
+        out.close();
+    }
+
+    /**
+     * Waits for a task of the pool and rethrows its failure
+     */
+    private <T> T await(Future<T> task) throws IOException {
         try {
-            File f = new File(generateRunFileName(noOfRuns));
-            ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(f));
-            for (Batch batch : run.getBatches()) {
-                out.writeObject(batch);
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sorting");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
             }
-            out.close();
-            sortedFiles.add(f);
-        } catch (IOException ex) {
-            throw new IOException("Problem encountered when writing the file");
+            throw new IOException(cause);
         }
     }
 
     /**
-     * Runs through the sorted files (runs) and calls merge() to do the actual merging
+     * Runs through the sorted files (runs) once and calls merge() to do the actual merging,
+     * each worker merges (B/P-1) runs at a time
      */
     private void mergeRuns() throws IOException {
-        int noOfRuns = 0;
-        List<File> result;
-        while (sortedFiles.size() > 1) {
-            result = new ArrayList<>();
-            int noOfMergeRun = 0;
-
-            int start;
-            for (int i = 0; (start = (i * noOfAvailBuffer)) < sortedFiles.size(); i++) {
-                int end = Math.min((i + 1) * noOfAvailBuffer, sortedFiles.size());
-                result.add(merge(sortedFiles.subList(start, end), noOfRuns, noOfMergeRun));
-                noOfMergeRun++;
+        List<File> result = new ArrayList<>();
+        List<Callable<Void>> merges = new ArrayList<>();
+        int fanin = workerBuffers - 1;
+
+        int start;
+        for (int i = 0; (start = (i * fanin)) < sortedFiles.size(); i++) {
+            int end = Math.min((i + 1) * fanin, sortedFiles.size());
+            List<File> group = sortedFiles.subList(start, end);
+            File f = newTempFile();
+            result.add(f);
+            if (pool == null) {
+                merge(group, f);
+            } else {
+                merges.add(() -> {
+                    merge(group, f);
+                    return null;
+                });
             }
-            sortedFiles.forEach(File::delete);
-            noOfRuns++;
-            sortedFiles = result;
         }
+
+        /* The merge groups of a pass are independent of each other */
+        if (pool != null) {
+            for (Future<Void> task : pool.invokeAll(merges)) {
+                await(task);
+            }
+        }
+        sortedFiles.forEach(this::deleteTempFile);
+        numPasses++;
+        runCount.numPasses = numPasses;
+        sortedFiles = result;
     }
 
     /**
      * Performs one pass of merging process
-     * The body of the actual merging process
+     * The runs are merged by a loser tree which holds one page per run, with one more page for output
      */
-    private File merge(List<File> runs, int numOfMergeRuns, int numOfMerges) throws IOException {
+    private void merge(List<File> runs, File file) throws IOException {
         int runSize = runs.size();
-        outbatch = new Batch(batchsize);
 
         if (runs.isEmpty()) {
             throw new IOException("There is no runs available.");
@@ -165,110 +669,139 @@ public class ExternalSort extends Operator {
             throw new IOException("Exceed the number of available buffers (B-1)");
         }
 
-        /* Populate the batches arraylist */
-        ArrayList<Batch> batches = new ArrayList<>();
+        /* Open a cursor on every run */
+        List<TupleReader> readers = openReaders(runs);
+
+        /* Starts merging process */
+        TupleWriter writer = new TupleWriter(file.getPath(), batchsize);
+        if (!writer.open()) {
+            readers.forEach(TupleReader::close);
+            throw new IOException("Problem writing to output file.");
+        }
+        LoserTree tree = new LoserTree(readers, comparator);
+        Tuple currentTuple;
+        while ((currentTuple = tree.next()) != null) {
+            writer.next(currentTuple);
+        }
+        tree.close();
+        writer.close();
+    }
+
+    /**
+     * Opens a cursor on every run, each holding one page of its run
+     */
+    private List<TupleReader> openReaders(List<File> runs) throws IOException {
+        List<TupleReader> readers = new ArrayList<>(runs.size());
         for (File f : runs) {
-            try {
-                ObjectInputStream stream = new ObjectInputStream(new FileInputStream(f));
-                Batch batch;
-                while ((batch = nextBatch(stream)) != null) {
-                    batches.add(batch);
-                }
-            } catch (IOException e) {
+            TupleReader reader = new TupleReader(f.getPath(), batchsize);
+            if (!reader.open()) {
+                readers.forEach(TupleReader::close);
                 throw new IOException("There is a problem reading the temporary file.");
             }
+            readers.add(reader);
         }
+        return readers;
+    }
 
-        /* Insert the tuples in ascending order */
-        Queue<Tuple> inputTuples = new PriorityQueue<>(comparator);
-        for (Batch batch : batches) {
-            if (batch != null) {
-                while (!batch.isEmpty()) {
-                    inputTuples.add(batch.removeFirst());
-                }
-            }
-        }
+    /**
+     * Creates a unique name for a run file of this sort, safe to be called by concurrent workers
+     */
+    private File newTempFile() {
+        File f = new File(String.format("%s-%d", fileprefix, numTempFiles.getAndIncrement()));
+        tempFiles.add(f);
+        return f;
+    }
 
-        /* Starts merging process */
-        File file = new File(generateRunFileName(numOfMerges, numOfMergeRuns));
-        outputStream = new ObjectOutputStream(new FileOutputStream(file, true));
-        while (!inputTuples.isEmpty()) {
-            Tuple currentTuple = inputTuples.poll();
-            outbatch.add(currentTuple);
-
-            /* Write out if the buffer page is full */
-            if (outbatch.isFull()) {
-                writeOut();
-                outbatch.clear();
-            }
-        }
+    private void deleteTempFile(File f) {
+        PageFile.delete(f.getPath());
+        tempFiles.remove(f);
+    }
 
-        if (!outbatch.isEmpty()) {
-            writeOut();
+    /**
+     * Merges the next page of sorted output from the remaining runs
+     */
+    @Override
+    public Batch next() {
+        if (finalMerge == null || finalMerge.isEmpty()) {
+            return null;
         }
+        outbatch = new Batch(batchsize);
+        Tuple t;
+        while (!outbatch.isFull() && (t = finalMerge.next()) != null) {
+            outbatch.add(t);
+        }
+        return outbatch;
+    }
 
-        outputStream.close();
-        return file;
+    /**
+     * Next tuple of the sorted output without removing it, null at the end
+     */
+    Tuple peekTuple() {
+        return finalMerge == null ? null : finalMerge.peek();
     }
 
     /**
-     * Attempt to write out the output buffer page
-     * @throws IOException if error encountered
+     * Removes and returns the next tuple of the sorted output, null at the end
      */
-    private void writeOut() throws IOException {
-        try {
-            outputStream.writeObject(outbatch);
-            outputStream.reset();
-        } catch (IOException ex) {
-            throw new IOException("Problem writing to output file. " + ex.getMessage());
-        }
+    Tuple nextTuple() {
+        return finalMerge == null ? null : finalMerge.next();
     }
 
     /**
-     * Reads in the next batch using stream
+     * Number of workers sharing the given number of buffers, each needs at least 3 of them
      */
-    private Batch nextBatch(ObjectInputStream stream) throws IOException {
-        try {
-            Batch batch = (Batch) stream.readObject();
-            return batch.isEmpty() ? null : batch;
-        } catch (ClassNotFoundException ex) {
-            throw new IOException("Unable to serialize the object.");
-        } catch (IOException ex) {
-            return null;
-        }
+    static int workersFor(int parallelism, long numBuff) {
+        return (int) Math.max(1, Math.min(parallelism, numBuff / 3));
     }
 
-    private String generateRunFileName(int noOfRuns) {
-        return String.format("%s-SMTemp-%d", direction, noOfRuns);
+    /**
+     * Number of runs merged at a time by an intermediate merge pass of a new sort
+     */
+    public static long estimateFanIn(long numBuff) {
+        return numBuff / workersFor(defaultParallelism, numBuff) - 1;
     }
 
-    private String generateRunFileName(int noOfMerge, int noOfMergeRun) {
-        return String.format("%s-SMTemp-%d-%d", direction, noOfMerge, noOfMergeRun);
+    /**
+     * Estimated number of initial runs for an input of the given number of pages
+     */
+    public static long estimateRuns(long pages, long numBuff) {
+        long workerBuff = numBuff / workersFor(defaultParallelism, numBuff);
+        long runpages = defaultRunStrategy == REPLACEMENT_SELECTION ? 2 * workerBuff : workerBuff;
+        return (long) Math.ceil((double) pages / runpages);
     }
 
-    @Override
-    public Batch next() {
-        try {
-            Batch batch = (Batch) inputStream.readObject();
-            return batch.isEmpty() ? null : batch;
-        } catch (ClassNotFoundException ex) {
-            System.out.println("Unable to serialize the object.");
-            return null;
-        } catch (IOException ex) {
-            return null;
+    /**
+     * Estimated number of merge passes written out for an input of the given number of pages
+     */
+    public static long estimatePasses(long pages, long numBuff) {
+        long runs = estimateRuns(pages, numBuff);
+        long fanin = estimateFanIn(numBuff);
+        long passes = 0;
+        while (runs > numBuff - 1) {
+            runs = (long) Math.ceil((double) runs / fanin);
+            passes++;
         }
+        return passes;
     }
 
     @Override
     public boolean close() {
-        try {
-            //Clean up the temporarily files
-            for (File file : sortedFiles) {
-                file.delete();
+        shutdownPool();
+        if (memory != null) {
+            memory.releaseAll();
+        }
+        if (finalMerge != null) {
+            finalMerge.close();
+            finalMerge = null;
+        }
+        //Clean up the temporarily files, including the ones left by a failed sort
+        if (tempFiles != null) {
+            for (File file : new ArrayList<>(tempFiles)) {
+                deleteTempFile(file);
             }
-            inputStream.close();
-        } catch (IOException e) {
-            System.out.println("Error in closing result file stream.");
+        }
+        if (!baseclosed) {
+            base.close();
         }
         return true;
     }
@@ -0,0 +1,448 @@
+/**
+ * Joins by partitioning both inputs on the join attributes
+ **/
+
+package qp.operators;
+
+import qp.utils.Attribute;
+import qp.utils.Batch;
+import qp.utils.Condition;
+import qp.utils.MemoryGovernor;
+import qp.utils.PageFile;
+import qp.utils.Tuple;
+import qp.utils.TupleHashTable;
+import qp.utils.TupleReader;
+import qp.utils.TupleWriter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+
+/**
+ * Grace Hash Join Algorithm
+ * Both inputs are partitioned into (B-1) files on the join attributes, then
+ * each pair of partitions is joined by building an in-memory hash table on the
+ * left partition and probing it with the right partition. A build partition larger
+ * than (B-2) pages, or than the heap granted by the MemoryGovernor, is loaded and
+ * probed in chunks.
+ */
+public class HashJoin extends Join {
+
+    static int filenum = 0;             // To get unique filenum for this operation
+    static final int MAXLEVEL = 3;      // Maximum number of recursive repartitioning passes
+    static int numRepartitions = 0;     // Number of partitions repartitioned by the joins of the query
+
+    int batchsize;                      // Number of tuples per out batch
+    int leftbatchsize;                  // Number of tuples per page of the left input
+    int rightbatchsize;                 // Number of tuples per page of the right input
+    int numPartitions;                  // Number of partitions per partitioning pass (B-1)
+    int buildCapacity;                  // Number of build pages that fit in memory (B-2)
+    int[] leftindex;                    // Indices of the join attributes in left table
+    int[] rightindex;                   // Indices of the join attributes in right table
+    String fileprefix;                  // Prefix of the partition files of this operator
+    int numPartitionFiles;              // Number of partition files created so far
+    ArrayList<String> tempFiles;        // Partition files to be cleaned up on close
+    Deque<Partition> pending;           // Partition pairs which are yet to be joined
+
+    Partition current;                  // Partition pair being joined
+    TupleHashTable hashtable;           // In-memory hash table on the build partition
+    TupleReader buildReader;            // Reader for the build (left) partition
+    TupleReader probeReader;            // Reader for the probe (right) partition
+    Tuple probeTuple;                   // Current probe tuple
+    TupleHashTable matchtable;          // Hash table probed by the current probe tuple
+    TupleHashTable.Entry match;         // Next build tuple matching the current probe tuple
+    Batch outbatch;                     // Buffer page for output
+    boolean eos;                        // Whether end of stream is reached
+    boolean closed;                     // Whether the operator has been closed
+    MemoryGovernor.Account memory;      // Heap held by the hash tables
+
+    public HashJoin(Join jn) {
+        super(jn.getLeft(), jn.getRight(), jn.getConditionList(), jn.getOpType());
+        schema = jn.getSchema();
+        jointype = jn.getJoinType();
+        numBuff = jn.getNumBuff();
+    }
+
+    public static int getNumRepartitions() {
+        return numRepartitions;
+    }
+
+    /**
+     * Forgets the repartitioning of the joins of the previous query
+     */
+    public static void clearNumRepartitions() {
+        numRepartitions = 0;
+    }
+
+    /**
+     * A pair of left and right partition files at a given partitioning level
+     */
+    static class Partition {
+        final String leftfile;
+        final String rightfile;
+        final int leftpages;
+        final int level;
+
+        Partition(String leftfile, String rightfile, int leftpages, int level) {
+            this.leftfile = leftfile;
+            this.rightfile = rightfile;
+            this.leftpages = leftpages;
+            this.level = level;
+        }
+    }
+
+    /**
+     * During open finds the index of the join attributes
+     * * Partitions both the inputs into (B-1) partition files
+     **/
+    public boolean open() {
+        if (!initialize()) {
+            return false;
+        }
+
+        /** Partitioning phase: both inputs are hashed into (B-1) partitions **/
+        if (!left.open()) {
+            return false;
+        }
+        TupleWriter[] leftparts = createPartitions(leftbatchsize);
+        Batch inbatch;
+        while ((inbatch = left.next()) != null) {
+            for (int i = 0; i < inbatch.size(); ++i) {
+                Tuple t = inbatch.get(i);
+                leftparts[partitionOf(t, leftindex, 0)].next(t);
+            }
+        }
+        left.close();
+        closePartitions(leftparts);
+
+        if (!right.open()) {
+            return false;
+        }
+        TupleWriter[] rightparts = createPartitions(rightbatchsize);
+        while ((inbatch = right.next()) != null) {
+            for (int i = 0; i < inbatch.size(); ++i) {
+                Tuple t = inbatch.get(i);
+                rightparts[partitionOf(t, rightindex, 0)].next(t);
+            }
+        }
+        right.close();
+
+        addPartitions(leftparts, rightparts, 0);
+        return true;
+    }
+
+    /**
+     * Computes the page sizes, the buffer split and the indices of the join attributes
+     */
+    boolean initialize() {
+        int tuplesize = schema.getTupleSize();
+        batchsize = Batch.getPageSize() / tuplesize;
+        leftbatchsize = Math.max(1, Batch.getPageSize() / left.getSchema().getTupleSize());
+        rightbatchsize = Math.max(1, Batch.getPageSize() / right.getSchema().getTupleSize());
+
+        if (batchsize < 1) {
+            System.err.println("Error: Page size must be bigger than tuple size for joining.");
+            return false;
+        }
+        if (numBuff < 3) {
+            System.err.println("Error: Hash join requires at least 3 buffers.");
+            return false;
+        }
+        numPartitions = numBuff - 1;
+        buildCapacity = numBuff - 2;
+
+        /** find indices attributes of join conditions **/
+        leftindex = new int[conditionList.size()];
+        rightindex = new int[conditionList.size()];
+        for (int i = 0; i < conditionList.size(); ++i) {
+            Condition con = conditionList.get(i);
+            Attribute leftattr = con.getLhs();
+            Attribute rightattr = (Attribute) con.getRhs();
+            leftindex[i] = left.getSchema().indexOf(leftattr);
+            rightindex[i] = right.getSchema().indexOf(rightattr);
+        }
+
+        filenum++;
+        fileprefix = "HJtemp-" + filenum;
+        numPartitionFiles = 0;
+        tempFiles = new ArrayList<>();
+        pending = new ArrayDeque<>();
+        memory = MemoryGovernor.open(getClass().getSimpleName(), numBuff);
+        eos = false;
+        closed = false;
+        return true;
+    }
+
+    /**
+     * from the partitions selects the tuples satisfying join condition
+     * * And returns a page of output tuples
+     **/
+    public Batch next() {
+        if (eos) {
+            return null;
+        }
+        outbatch = new Batch(batchsize);
+        while (!outbatch.isFull()) {
+            /** Output the remaining build tuples matching the current probe tuple **/
+            if (match != null) {
+                Tuple lefttuple = match.getTuple();
+                outbatch.add(lefttuple.joinWith(probeTuple));
+                match = matchtable.findNext(match, probeTuple, rightindex);
+                continue;
+            }
+
+            if (!nextProbeTuple()) {
+                eos = true;
+                break;
+            }
+        }
+
+        if (outbatch.isEmpty()) {
+            close();
+            return null;
+        }
+        return outbatch;
+    }
+
+    @Override
+    public Batch getBlock(int sizeofblock) {
+        return next();
+    }
+
+    /**
+     * Advances to the next probe tuple and looks up its matching build tuples.
+     * Returns false when all the partition pairs have been joined.
+     */
+    boolean nextProbeTuple() {
+        while (true) {
+            if (probeReader != null) {
+                Tuple righttuple = probeReader.next();
+                if (righttuple != null) {
+                    probeTuple = righttuple;
+                    matchtable = hashtable;
+                    match = hashtable.find(righttuple, rightindex);
+                    return true;
+                }
+                probeReader.close();
+                probeReader = null;
+                match = null;
+
+                /** The build partition did not fit, rescan the probe partition for the next chunk **/
+                if (loadBuildChunk()) {
+                    probeReader = openReader(current.rightfile, rightbatchsize);
+                    continue;
+                }
+                finishPartition();
+            }
+
+            if (!startNextPartition()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Takes the next pair of partitions and builds the hash table on its left partition.
+     * Partitions which are too large for the buffers are recursively repartitioned.
+     * Returns false if there are no more partitions to join.
+     */
+    private boolean startNextPartition() {
+        while (!pending.isEmpty()) {
+            current = pending.pop();
+            if (current.leftpages > buildCapacity && current.level < MAXLEVEL) {
+                repartition(current);
+                deleteFile(current.leftfile);
+                deleteFile(current.rightfile);
+                continue;
+            }
+            buildReader = openReader(current.leftfile, leftbatchsize);
+            if (loadBuildChunk()) {
+                probeReader = openReader(current.rightfile, rightbatchsize);
+                return true;
+            }
+            finishPartition();
+        }
+        return false;
+    }
+
+    /**
+     * Loads up to (B-2) pages of the build partition into the hash table.
+     * Returns false if the build partition is exhausted.
+     */
+    private boolean loadBuildChunk() {
+        if (buildReader == null) {
+            return false;
+        }
+        int maxtuples = buildCapacity * leftbatchsize;
+        memory.releaseAll();
+        hashtable = new TupleHashTable(leftindex, maxtuples);
+        int numtuples = 0;
+        Tuple t;
+        while (numtuples < maxtuples && (numtuples == 0 || !memory.isOver()) && (t = buildReader.next()) != null) {
+            hashtable.add(t);
+            memory.reserve(TupleHashTable.entrySize(t));
+            numtuples++;
+        }
+        if (numtuples == 0) {
+            buildReader.close();
+            buildReader = null;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Releases the hash table and files of the partition pair that has been joined
+     */
+    private void finishPartition() {
+        if (buildReader != null) {
+            buildReader.close();
+            buildReader = null;
+        }
+        hashtable = null;
+        memory.releaseAll();
+        deleteFile(current.leftfile);
+        deleteFile(current.rightfile);
+    }
+
+    /**
+     * Splits a partition pair into (B-1) smaller pairs using the hash function of the next level
+     */
+    private void repartition(Partition p) {
+        numRepartitions++;
+        int level = p.level + 1;
+        TupleWriter[] leftparts = createPartitions(leftbatchsize);
+        TupleReader reader = openReader(p.leftfile, leftbatchsize);
+        Tuple t;
+        while ((t = reader.next()) != null) {
+            leftparts[partitionOf(t, leftindex, level)].next(t);
+        }
+        reader.close();
+        closePartitions(leftparts);
+
+        TupleWriter[] rightparts = createPartitions(rightbatchsize);
+        reader = openReader(p.rightfile, rightbatchsize);
+        while ((t = reader.next()) != null) {
+            rightparts[partitionOf(t, rightindex, level)].next(t);
+        }
+        reader.close();
+
+        addPartitions(leftparts, rightparts, level);
+    }
+
+    /**
+     * Closes the partition writers and queues the pairs where both sides are non-empty
+     */
+    void addPartitions(TupleWriter[] leftparts, TupleWriter[] rightparts, int level) {
+        for (int i = 0; i < leftparts.length; ++i) {
+            addPartition(leftparts[i], rightparts[i], level);
+        }
+    }
+
+    void addPartition(TupleWriter leftpart, TupleWriter rightpart, int level) {
+        leftpart.close();
+        rightpart.close();
+        if (leftpart.getNumTuple() == 0 || rightpart.getNumTuple() == 0) {
+            deleteFile(leftpart.getFileName());
+            deleteFile(rightpart.getFileName());
+        } else {
+            pending.push(new Partition(leftpart.getFileName(), rightpart.getFileName(),
+                    leftpart.getNumBatch(), level));
+        }
+    }
+
+    /**
+     * Flushes the partition writers of one input, so their output buffers are
+     * * released before the partitions of the other input are written
+     */
+    void closePartitions(TupleWriter[] parts) {
+        for (TupleWriter part : parts) {
+            if (part != null) {
+                part.close();
+            }
+        }
+    }
+
+    TupleWriter[] createPartitions(int pagesize) {
+        TupleWriter[] writers = new TupleWriter[numPartitions];
+        for (int i = 0; i < numPartitions; ++i) {
+            writers[i] = createPartition(pagesize);
+        }
+        return writers;
+    }
+
+    TupleWriter createPartition(int pagesize) {
+        String filename = fileprefix + "-" + numPartitionFiles++;
+        TupleWriter writer = new TupleWriter(filename, pagesize);
+        if (!writer.open()) {
+            System.exit(1);
+        }
+        tempFiles.add(filename);
+        return writer;
+    }
+
+    TupleReader openReader(String filename, int pagesize) {
+        TupleReader reader = new TupleReader(filename, pagesize);
+        if (!reader.open()) {
+            System.exit(1);
+        }
+        return reader;
+    }
+
+    /**
+     * Hash function on the join attributes, a different function is used at every level
+     */
+    int partitionOf(Tuple t, int[] index, int level) {
+        return partitionOf(t.hashOf(index), level, numPartitions);
+    }
+
+    /**
+     * Partition of a hash among the given number, a different function is used at every level
+     */
+    static int partitionOf(int h, int level, int numPartitions) {
+        h ^= (level + 1) * 0x9E3779B9;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, numPartitions);
+    }
+
+    void deleteFile(String filename) {
+        PageFile.delete(filename);
+        tempFiles.remove(filename);
+    }
+
+    /**
+     * Close the operator, next() closes it at the end of the stream
+     * * so a second call does nothing
+     */
+    public boolean close() {
+        if (closed) {
+            return true;
+        }
+        closed = true;
+        if (buildReader != null) {
+            buildReader.close();
+            buildReader = null;
+        }
+        if (probeReader != null) {
+            probeReader.close();
+            probeReader = null;
+        }
+        hashtable = null;
+        matchtable = null;
+        match = null;
+        if (memory != null) {
+            memory.releaseAll();
+        }
+        if (tempFiles != null) {
+            for (String filename : new ArrayList<>(tempFiles)) {
+                deleteFile(filename);
+            }
+        }
+        left.close();
+        right.close();
+        return true;
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * Hash join keeping partitions resident in memory
+ **/
+
+package qp.operators;
+
+import qp.utils.Batch;
+import qp.utils.Tuple;
+import qp.utils.TupleHashTable;
+import qp.utils.TupleWriter;
+
+/**
+ * Hybrid Hash Join Algorithm
+ * The left input is hashed into partitions which are all kept in memory at first. When the
+ * buffers run out, the largest partition other than partition 0 is written out to disk, so
+ * partition 0 stays resident unless it cannot fit on its own. Right tuples hashing to a resident
+ * partition are joined immediately, only the spilled partitions go through the Grace hash join.
+ * Partitions are also spilled while the resident ones take more heap than granted by the
+ * MemoryGovernor.
+ */
+public class HybridHashJoin extends HashJoin {
+
+    int numResidentPages;                       // Number of pages held by the resident partitions
+    int numSpilled;                             // Number of partitions written out to disk
+    TupleHashTable[] tables;                    // Hash tables of the resident partitions
+    int[] counts;                               // Number of tuples in each resident partition
+    long[] bytes;                               // Bytes of heap held by each resident partition
+    TupleWriter[] leftparts;                    // Left partition files, null if resident
+    TupleWriter[] rightparts;                   // Right partition files, null if resident
+    boolean eosr;                               // Whether the right input has been consumed
+    Batch rightbatch;                           // Buffer page for right input stream
+    int rcurs;                                  // Cursor for right side buffer
+
+    public HybridHashJoin(Join jn) {
+        super(jn);
+    }
+
+    /**
+     * Number of partitions of the first pass, half of the buffers are left for
+     * the resident partitions and the other half for the output of spilled ones
+     */
+    public static int numHybridPartitions(int numBuff) {
+        return Math.max(1, (numBuff - 2) / 2);
+    }
+
+    /**
+     * During open finds the index of the join attributes
+     * * Builds the hash tables of the left input, spilling partitions when the buffers are full
+     * * Opens the right input to be probed in next()
+     **/
+    public boolean open() {
+        if (!initialize()) {
+            return false;
+        }
+        numPartitions = numHybridPartitions(numBuff);
+        tables = new TupleHashTable[numPartitions];
+        counts = new int[numPartitions];
+        bytes = new long[numPartitions];
+        leftparts = new TupleWriter[numPartitions];
+        rightparts = new TupleWriter[numPartitions];
+        for (int i = 0; i < numPartitions; ++i) {
+            tables[i] = new TupleHashTable(leftindex);
+        }
+        numResidentPages = 0;
+        numSpilled = 0;
+
+        if (!left.open()) {
+            return false;
+        }
+        Batch inbatch;
+        while ((inbatch = left.next()) != null) {
+            for (int i = 0; i < inbatch.size(); ++i) {
+                Tuple t = inbatch.get(i);
+                int p = partitionOf(t, leftindex, 0);
+                if (leftparts[p] != null) {
+                    leftparts[p].next(t);
+                    continue;
+                }
+                tables[p].add(t);
+                long size = TupleHashTable.entrySize(t);
+                bytes[p] += size;
+                memory.reserve(size);
+                if (counts[p]++ % leftbatchsize == 0) {
+                    numResidentPages++;
+                }
+                /** One buffer is kept for reading the input and one for the output **/
+                while (numResidentPages + numSpilled > buildCapacity || memory.isOver()) {
+                    if (!spillPartition()) {
+                        break;
+                    }
+                }
+            }
+        }
+        left.close();
+        closePartitions(leftparts);
+
+        for (int i = 0; i < numPartitions; ++i) {
+            if (leftparts[i] != null) {
+                rightparts[i] = createPartition(rightbatchsize);
+            }
+        }
+        eosr = false;
+        rcurs = 0;
+        rightbatch = null;
+        return right.open();
+    }
+
+    /**
+     * Writes out the largest resident partition, partition 0 is only chosen when
+     * it is the last one left in memory. Returns false if nothing is resident.
+     */
+    private boolean spillPartition() {
+        int victim = -1;
+        for (int i = 1; i < numPartitions; ++i) {
+            if (leftparts[i] == null && (victim == -1 || counts[i] > counts[victim])) {
+                victim = i;
+            }
+        }
+        if (victim == -1) {
+            if (leftparts[0] != null) {
+                return false;
+            }
+            victim = 0;
+        }
+        leftparts[victim] = createPartition(leftbatchsize);
+        for (Tuple t : tables[victim].getTuples()) {
+            leftparts[victim].next(t);
+        }
+        numResidentPages -= (counts[victim] + leftbatchsize - 1) / leftbatchsize;
+        numSpilled++;
+        memory.release(bytes[victim]);
+        tables[victim] = null;
+        counts[victim] = 0;
+        bytes[victim] = 0;
+        return true;
+    }
+
+    /**
+     * Probes the resident partitions with the right input as it is read, right tuples of
+     * spilled partitions are written out. Once the right input is consumed, the spilled
+     * partition pairs are joined by the Grace hash join.
+     */
+    @Override
+    boolean nextProbeTuple() {
+        while (!eosr) {
+            if (rightbatch == null || rcurs >= rightbatch.size()) {
+                rightbatch = right.next();
+                rcurs = 0;
+                if (rightbatch == null) {
+                    finishProbe();
+                    break;
+                }
+                continue;
+            }
+            Tuple righttuple = rightbatch.get(rcurs++);
+            int p = partitionOf(righttuple, rightindex, 0);
+            if (rightparts[p] != null) {
+                rightparts[p].next(righttuple);
+                continue;
+            }
+            TupleHashTable.Entry found = tables[p].find(righttuple, rightindex);
+            if (found != null) {
+                probeTuple = righttuple;
+                matchtable = tables[p];
+                match = found;
+                return true;
+            }
+        }
+        return super.nextProbeTuple();
+    }
+
+    /**
+     * Releases the resident partitions and queues the spilled partition pairs
+     */
+    private void finishProbe() {
+        eosr = true;
+        right.close();
+        match = null;
+        matchtable = null;
+        tables = null;
+        memory.releaseAll();
+        for (int i = 0; i < numPartitions; ++i) {
+            if (leftparts[i] != null) {
+                addPartition(leftparts[i], rightparts[i], 0);
+            }
+        }
+        /** Recursive repartitioning of the spilled partitions uses all the buffers **/
+        numPartitions = numBuff - 1;
+    }
+
+    /**
+     * Close the operator
+     */
+    public boolean close() {
+        tables = null;
+        if (leftparts != null) {
+            for (int i = 0; i < leftparts.length; ++i) {
+                if (leftparts[i] != null) leftparts[i].close();
+                if (rightparts[i] != null) rightparts[i].close();
+            }
+        }
+        return super.close();
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * Joins by probing an index on the right table
+ **/
+
+package qp.operators;
+
+import qp.utils.Attribute;
+import qp.utils.BPlusTree;
+import qp.utils.Batch;
+import qp.utils.Condition;
+import qp.utils.MemoryGovernor;
+import qp.utils.Tuple;
+import qp.utils.TupleHashTable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+
+/**
+ * Index Nested Loop Join Algorithm
+ * The right input must be a scan of a base table with a B+-tree index on the
+ * attribute of the first join condition. The left input is read a block of
+ * (B-2) pages at a time and hashed on its join attributes. The distinct keys of
+ * the block are looked up in the index together, and only the right pages holding
+ * those keys are read, each once per block, to probe the hashed block.
+ * A block that takes more heap than granted by the MemoryGovernor makes the
+ * following blocks smaller.
+ */
+public class IndexNestedJoin extends Join {
+    int batchsize;                  // Number of tuples per out batch
+    int blocksize;                  // Number of left tuples per block
+    int[] leftindex;                // Indices of the join attributes in left table
+    int[] rightindex;               // Indices of the join attributes in right table
+    Scan inner;                     // Scan of the right table
+    BPlusTree index;                // Index on the first join attribute of the right table
+
+    Batch outbatch;                 // Buffer page for output
+    TupleHashTable blocktable;      // Left block hashed on the join attributes
+    BitSet pages;                   // Right pages holding the keys of the left block
+    int pageno;                     // Next right page to read
+    ArrayList<Tuple> innertuples;   // Tuples of the current right page
+    int icurs;                      // Cursor within the current right page
+    TupleHashTable.Entry match;     // Next left tuple matching the current right tuple
+    boolean eosl;                   // Whether end of stream (left table) is reached
+    MemoryGovernor.Account memory;  // Heap held by the hashed left block
+
+    public IndexNestedJoin(Join jn) {
+        super(jn.getLeft(), jn.getRight(), jn.getConditionList(), jn.getOpType());
+        schema = jn.getSchema();
+        jointype = jn.getJoinType();
+        numBuff = jn.getNumBuff();
+    }
+
+    /**
+     * Index the join can probe on its right input, null if the right input is not
+     * * a scan of a table with an index on the attribute of the first join condition
+     * * or if the keys of the left input are of another type than the index keys
+     */
+    public static BPlusTree getIndex(Join jn) {
+        if (!(jn.getRight() instanceof Scan)) {
+            return null;
+        }
+        Scan scan = (Scan) jn.getRight();
+        Condition con = jn.getConditionList().get(0);
+        Attribute rightattr = (Attribute) con.getRhs();
+        BPlusTree index = BPlusTree.of(scan.getTabName(), rightattr.getColName());
+        if (index == null || jn.getLeft().getSchema().typeOf(con.getLhs()) != index.getKeyType()) {
+            return null;
+        }
+        return index;
+    }
+
+    public boolean open() {
+        int tuplesize = schema.getTupleSize();
+        batchsize = Batch.getPageSize() / tuplesize;
+        if (batchsize < 1) {
+            System.err.println("Error: Page size must be bigger than tuple size for joining.");
+            return false;
+        }
+        if (numBuff < 3) {
+            System.err.println("Error: Index nested loop join requires at least 3 buffers.");
+            return false;
+        }
+        blocksize = Math.max(1, (numBuff - 2) * (Batch.getPageSize() / left.getSchema().getTupleSize()));
+        memory = MemoryGovernor.open("IndexNestedJoin", numBuff);
+
+        index = getIndex(this);
+        if (index == null) {
+            System.err.println("Error: Index nested loop join requires an index on the right table.");
+            return false;
+        }
+        inner = (Scan) right;
+
+        /** find indices attributes of join conditions **/
+        leftindex = new int[conditionList.size()];
+        rightindex = new int[conditionList.size()];
+        for (int i = 0; i < conditionList.size(); ++i) {
+            Condition con = conditionList.get(i);
+            leftindex[i] = left.getSchema().indexOf(con.getLhs());
+            rightindex[i] = right.getSchema().indexOf((Attribute) con.getRhs());
+        }
+
+        if (!inner.open()) {
+            return false;
+        }
+        if (!inner.isPaged()) {
+            System.err.println("Error: Index nested loop join requires the binary file of " + inner.getTabName());
+            return false;
+        }
+        blocktable = null;
+        pages = new BitSet();
+        pageno = 0;
+        innertuples = new ArrayList<>();
+        icurs = 0;
+        match = null;
+        eosl = false;
+        return left.open();
+    }
+
+    public Batch getBlock(int sizeofblock) {
+        return fill(new Batch(sizeofblock));
+    }
+
+    /**
+     * from input buffers selects the tuples satisfying join condition
+     * * And returns a page of output tuples
+     **/
+    public Batch next() {
+        return fill(new Batch(batchsize));
+    }
+
+    /**
+     * Fills the output buffer with the next joined tuples, returns null at the end
+     */
+    private Batch fill(Batch batch) {
+        if (eosl) {
+            return null;
+        }
+        outbatch = batch;
+        while (!outbatch.isFull()) {
+            /** Join the current right tuple with the remaining matching left tuples **/
+            if (match != null) {
+                outbatch.add(match.getTuple().joinWith(innertuples.get(icurs)));
+                match = blocktable.findNext(match, innertuples.get(icurs), rightindex);
+                if (match == null) {
+                    icurs++;
+                }
+                continue;
+            }
+
+            /** Probe the left block with the next right tuple **/
+            if (icurs < innertuples.size()) {
+                match = blocktable.find(innertuples.get(icurs), rightindex);
+                if (match == null) {
+                    icurs++;
+                }
+                continue;
+            }
+
+            /** Read the next right page holding keys of the left block **/
+            pageno = pages.nextSetBit(pageno);
+            if (pageno >= 0) {
+                innertuples.clear();
+                icurs = 0;
+                inner.readPage(pageno++, innertuples);
+                continue;
+            }
+
+            /** Hash the next left block and look up its keys in the index **/
+            if (!nextBlock()) {
+                eosl = true;
+                break;
+            }
+        }
+
+        if (outbatch.isEmpty()) {
+            close();
+            return null;
+        }
+        return outbatch;
+    }
+
+    private boolean nextBlock() {
+        Batch leftblock = left.getBlock(blocksize);
+        memory.releaseAll();
+        if (leftblock == null) {
+            return false;
+        }
+        blocktable = new TupleHashTable(leftindex, leftblock.size());
+        HashSet<Object> keys = new HashSet<>();
+        long blockbytes = 0;
+        for (int i = 0; i < leftblock.size(); ++i) {
+            Tuple t = leftblock.get(i);
+            blocktable.add(t);
+            blockbytes += TupleHashTable.entrySize(t);
+            Object key = t.dataAt(leftindex[0]);
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        memory.reserve(blockbytes);
+        if (memory.isOver()) {
+            blocksize = (int) Math.max(1, blocksize * memory.getGrant() / blockbytes);
+        }
+        pages = index.lookup(keys);
+        pageno = 0;
+        innertuples.clear();
+        icurs = 0;
+        return true;
+    }
+
+    /**
+     * Close the operator
+     */
+    public boolean close() {
+        left.close();
+        if (inner != null) {
+            inner.close();
+        }
+        blocktable = null;
+        if (memory != null) {
+            memory.releaseAll();
+        }
+        return true;
+    }
+}
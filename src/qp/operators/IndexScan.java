@@ -0,0 +1,75 @@
+/**
+ * Scans the pages of a base table selected through an index
+ **/
+
+package qp.operators;
+
+import qp.utils.Attribute;
+import qp.utils.BPlusTree;
+import qp.utils.Condition;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+/**
+ * IndexScan looks up the predicates on the indexed attribute in the B+-tree
+ * * index of the attribute and only reads the data pages holding matching keys.
+ * * All the predicates are still evaluated on the tuples of those pages. If the
+ * * index is missing or out of date when the scan is opened, the whole table is read.
+ */
+public class IndexScan extends Scan {
+
+    Attribute indexattr;   // Attribute whose index is looked up
+
+    /**
+     * Index scan reading the same columns with the same predicates as the scan
+     */
+    public IndexScan(Scan scan, Attribute indexattr) {
+        super(scan.getTabName(), scan.getOpType());
+        scan.copyInto(this);
+        this.indexattr = indexattr;
+    }
+
+    public Attribute getIndexAttribute() {
+        return indexattr;
+    }
+
+    /**
+     * Index of the attribute, null if there is none for the current table file
+     */
+    public BPlusTree getIndex() {
+        return BPlusTree.of(tabname, indexattr.getColName());
+    }
+
+    /**
+     * Predicates that are looked up in the index
+     */
+    public ArrayList<Condition> getIndexConditions() {
+        ArrayList<Condition> conditions = new ArrayList<>();
+        for (Condition con : predicates) {
+            if (con.getLhs().equals(indexattr) && BPlusTree.isIndexable(con)) {
+                conditions.add(con);
+            }
+        }
+        return conditions;
+    }
+
+    @Override
+    protected BitSet selectPages() {
+        BitSet zones = super.selectPages();
+        BPlusTree index = getIndex();
+        if (index == null) {
+            return zones;
+        }
+        BitSet pages = index.search(getIndexConditions());
+        if (zones != null) {
+            pages.and(zones);
+        }
+        return pages;
+    }
+
+    public Object clone() {
+        return new IndexScan(this, indexattr);
+    }
+
+}
@@ -14,7 +14,6 @@ public class Join extends Operator {
     Operator left;                       // Left child
     Operator right;                      // Right child
     ArrayList<Condition> conditionList;  // List of join conditions
-    int numBuff;                         // Number of buffers available
     int jointype;                        // JoinType.NestedJoin/SortMerge/HashJoin
     int nodeIndex;                       // Each join node is given a number
 
@@ -40,14 +39,6 @@ public class Join extends Operator {
         this.conditionList = conditionList;
     }
 
-    public int getNumBuff() {
-        return numBuff;
-    }
-
-    public void setNumBuff(int num) {
-        this.numBuff = num;
-    }
-
     public int getNodeIndex() {
         return nodeIndex;
     }
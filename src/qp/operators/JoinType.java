@@ -12,8 +12,36 @@ public class JoinType {
     public static final int BLOCKNESTED = 1;
     public static final int SORTMERGE = 2;
     public static final int HASHJOIN = 3;
+    public static final int HYBRIDHASH = 4;
+    public static final int INDEXNESTED = 5;
+
+    static int forced = -1;    // Join type every join must use, -1 if the optimizer chooses
 
     public static int numJoinTypes() {
-        return 3;
+        return 6;
+    }
+
+    /**
+     * Makes every join of the plans use the given type, -1 lets the optimizer choose again
+     */
+    public static void setForced(int type) {
+        forced = type;
+    }
+
+    public static int getForced() {
+        return forced;
+    }
+
+    /**
+     * The join type of the given name, -1 if there is none
+     */
+    public static int typeOf(String name) {
+        String[] names = {"nested", "block", "sortmerge", "hash", "hybrid", "index"};
+        for (int i = 0; i < names.length; ++i) {
+            if (names[i].equals(name.toLowerCase())) {
+                return i;
+            }
+        }
+        return -1;
     }
 }
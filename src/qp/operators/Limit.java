@@ -0,0 +1,98 @@
+/**
+ * LIMIT operator
+ **/
+
+package qp.operators;
+
+import qp.utils.Batch;
+
+/**
+ * Returns the first n tuples of the base
+ * As soon as n tuples are returned the base is closed, without waiting for the end of
+ * the query. The operators below stop being asked for pages, and their scans and
+ * temporary files are closed while the result is still being consumed.
+ */
+public class Limit extends Operator {
+
+    Operator base;                      // Base operator
+    int limit;                          // Number of tuples to return
+    int numreturned;                    // Number of tuples returned so far
+    boolean baseclosed;                 // Whether the base is already closed
+
+    public Limit(Operator base, int limit, int type) {
+        super(type);
+        this.base = base;
+        this.limit = limit;
+    }
+
+    public Operator getBase() {
+        return base;
+    }
+
+    public void setBase(Operator base) {
+        this.base = base;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean open() {
+        numreturned = 0;
+        baseclosed = false;
+        return base.open();
+    }
+
+    /**
+     * Returns the next page of the base, cut at the limit
+     */
+    public Batch next() {
+        if (numreturned >= limit) {
+            closeBase();
+            return null;
+        }
+        Batch inbatch = base.next();
+        if (inbatch == null) {
+            return null;
+        }
+        Batch outbatch = inbatch;
+        if (numreturned + inbatch.size() > limit) {
+            outbatch = new Batch(limit - numreturned);
+            for (int i = 0; i < limit - numreturned; ++i) {
+                outbatch.add(inbatch.get(i));
+            }
+        }
+        numreturned += outbatch.size();
+        if (numreturned >= limit) {
+            closeBase();
+        }
+        return outbatch;
+    }
+
+    @Override
+    public Batch getBlock(int sizeofblock) {
+        return next();
+    }
+
+    private void closeBase() {
+        if (!baseclosed) {
+            base.close();
+            baseclosed = true;
+        }
+    }
+
+    /**
+     * Close the operator, the base is closed only if it was not closed early
+     */
+    public boolean close() {
+        closeBase();
+        return true;
+    }
+
+    public Object clone() {
+        Operator newbase = (Operator) base.clone();
+        Limit newlimit = new Limit(newbase, limit, optype);
+        newlimit.setSchema(newbase.getSchema());
+        return newlimit;
+    }
+}
@@ -13,4 +13,5 @@ public class OpType {
     public static final int SORT = 4;
     public static final int DISTINCT = 5;
     public static final int AGGREGATE = 6;
+    public static final int LIMIT = 7;
 }
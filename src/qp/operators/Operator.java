@@ -5,17 +5,12 @@ package qp.operators;
 
 import qp.utils.Batch;
 import qp.utils.Schema;
-import qp.utils.Attribute;
-
-import java.util.ArrayList;
 
 public class Operator {
 
     int optype;             // Whether it is OpType.SELECT/ Optype.PROJECT/OpType.JOIN
     Schema schema;          // Schema of the result at this operator
-    boolean isDistinct;     // Whether the query is distinct, false by default
-    ArrayList<Attribute> orderbyList = new ArrayList<Attribute>(); // List of attributes to be sorted by
-    boolean isDesc;         // Whether to be sort by descending, false by default
+    int numBuff;            // Number of buffers granted, 0 for operators holding no buffers
 
     public Operator(int type) {
         this.optype = type;
@@ -37,32 +32,12 @@ public class Operator {
         this.optype = type;
     }
 
-    public boolean isDistinct(){
-        return isDistinct;
-    }
-
-    public void setIsDistinct(boolean flag){
-        this.isDistinct = flag;
-    }
-
-    public boolean isOrderByQuery() {
-        return (orderbyList.size() > 0);
-    }
-
-    public ArrayList<Attribute> getOrderByList() {
-        return orderbyList;
-    }
-    
-    public void setOrderByList(ArrayList<Attribute> alist) {
-        orderbyList = alist;
-    }
-
-    public void setIsDesc(boolean value) {
-        isDesc = value;
+    public int getNumBuff() {
+        return numBuff;
     }
 
-    public boolean IsDesc() {
-        return isDesc;
+    public void setNumBuff(int num) {
+        this.numBuff = num;
     }
 
     public boolean open() {
@@ -13,6 +13,7 @@ import qp.utils.Attribute;
 import qp.utils.Batch;
 import qp.utils.Schema;
 import qp.utils.Tuple;
+import qp.utils.TupleLayout;
 
 public class Project extends Operator {
 
@@ -32,6 +33,9 @@ public class Project extends Operator {
      * * that are to be projected
      **/
     int[] attrIndex;                       // Set of attributes index to aggregate
+    TupleLayout inlayout;                  // Layout of the last projected input tuple
+    TupleLayout outlayout;                 // Layout of the projected output tuples
+    TupleLayout aggrlayout;                // Layout of the aggregated output tuples
 
     boolean isAggregation;                 // Flag used to differentiate Project and Aggregate
     Aggregate aggregate;                   // Aggregate attribute to instantiate the helper class
@@ -66,6 +70,19 @@ public class Project extends Operator {
         this.base = base;
     }
 
+    /**
+     * Whether one of the projected attributes is aggregated, the aggregation
+     * * then holds the buffers granted to this operator
+     */
+    public boolean hasAggregation() {
+        for (Attribute attr : attrset) {
+            if (attr.getAggType() != Attribute.NONE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Getter for AttrSet
      */
@@ -108,7 +125,9 @@ public class Project extends Operator {
         }
 
         if (isAggregation) {
+            aggrlayout = TupleLayout.of(schema);
             aggregate = new Aggregate(base, attrset, tuplesize, attrIndex, aggrAttrList);
+            aggregate.setNumBuff(numBuff);
             aggregate.open(); // Performs aggregation computation
         }
 
@@ -146,16 +165,22 @@ public class Project extends Operator {
             Tuple basetuple = inbatch.get(i);
             //Debug.PPrint(basetuple);
             //System.out.println();
-            ArrayList<Object> present = new ArrayList<>();
-            for (int j = 0; j < attrset.size(); j++) {
-                Object data = basetuple.dataAt(attrIndex[j]);
-                present.add(data);
-            }
-            Tuple outtuple = new Tuple(present);
-            outbatch.add(outtuple);
+            outbatch.add(projectTuple(basetuple));
         }
     }
 
+    /**
+     * Copies the projected columns into a new tuple, the layout
+     * * of the output is only computed again when the input layout changes
+     */
+    private Tuple projectTuple(Tuple basetuple) {
+        if (basetuple.layout() != inlayout) {
+            inlayout = basetuple.layout();
+            outlayout = inlayout.project(attrIndex);
+        }
+        return basetuple.project(attrIndex, outlayout);
+    }
+
     /**
      * Read next tuple from operator and determine which column and tuple to be written out.
      */
@@ -186,7 +211,7 @@ public class Project extends Operator {
                 }
             }
 
-            Tuple outtuple = new Tuple(present);
+            Tuple outtuple = new Tuple(aggrlayout, present);
             if (!outbatch.isContains(outtuple)) { // Eliminates duplicates
                 outbatch.add(outtuple);
             }
@@ -207,13 +232,7 @@ public class Project extends Operator {
 
         for (int i = 0; i < inbatch.size(); i++) {
             Tuple basetuple = inbatch.get(i);
-            ArrayList<Object> present = new ArrayList<>();
-            for (int j = 0; j < attrset.size(); j++) {
-                Object data = basetuple.dataAt(attrIndex[j]);
-                present.add(data);
-            }
-            Tuple outtuple = new Tuple(present);
-            outbatch.add(outtuple);
+            outbatch.add(projectTuple(basetuple));
         }
         return outbatch;
     }
@@ -4,25 +4,67 @@
 
 package qp.operators;
 
+import qp.utils.AccessPattern;
+import qp.utils.Attribute;
 import qp.utils.Batch;
+import qp.utils.BitmapIndex;
+import qp.utils.BufferPool;
+import qp.utils.CompiledCondition;
+import qp.utils.Condition;
+import qp.utils.ConjunctiveFilter;
 import qp.utils.Schema;
+import qp.utils.TableFile;
 import qp.utils.Tuple;
+import qp.utils.TupleLayout;
+import qp.utils.ZoneMap;
 
 import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * Scan operator - read data from a file
+ * * The binary <tablename>.dat file is read a page at a time when it exists,
+ * * otherwise the serialized tuples of <tablename>.tbl are read one by one.
+ * * The binary file is memory mapped by default, so the pages come straight
+ * * from the page cache of the OS without being copied into stream buffers.
+ * * Pages are read through the buffer pool, so repeated scans of a table hit memory.
+ * * The scan can be restricted to the columns the query refers to, then its
+ * * schema only holds those columns and only those columns are decoded.
+ * * The selection conditions on the table are pushed into the scan as predicates.
+ * * They are evaluated on the fields as the pages are decoded, so only the tuples
+ * * satisfying all of them are materialized, and the pages whose zone map shows
+ * * they cannot satisfy the conditions are skipped. Conditions on columns with a
+ * * bitmap index are intersected on the bitmaps first, and only the pages holding
+ * * a remaining tuple are read.
  */
 public class Scan extends Operator {
 
+    static boolean defaultMapped = true;   // Whether binary table files are memory mapped
+
     String filename;       // Corresponding file name
     String tabname;        // Table name
     int batchsize;         // Number of tuples per out batch;
     ObjectInputStream in;  // Input file being scanned
     boolean eos;           // To indicate whether end of stream reached or not
+    Schema baseSchema;     // Schema of all the columns of the table
+    int[] columns;         // Indices of the scanned columns in the table, null for all
+    ArrayList<Condition> predicates = new ArrayList<>();  // Selection conditions on the table
+    double[] selectivity;       // Estimated fraction of tuples passing each predicate, null if unknown
+    CompiledCondition filter;   // All the predicates compiled, null if there are none
+    boolean[] filtered;         // Whether the predicates read the column at that position
+
+    TableFile table;            // Binary table file being scanned, null when reading the .tbl file
+    TupleLayout layout;         // Layout of the decoded tuples
+    ArrayList<Tuple> pending;   // Decoded tuples of the current page
+    int pendcurs;               // Cursor within the decoded tuples
+    int pageno;                 // Next page of the binary file to decode
+    BitSet pages;               // Pages that may satisfy the predicates, null to read all
 
     /**
      * Constructor - just save filename
@@ -33,10 +75,112 @@ public class Scan extends Operator {
         filename = tabname + ".tbl";
     }
 
+    public static void setDefaultMapped(boolean mapped) {
+        defaultMapped = mapped;
+    }
+
+    public static boolean getDefaultMapped() {
+        return defaultMapped;
+    }
+
     public String getTabName() {
         return tabname;
     }
 
+    /**
+     * Schema of the whole table, regardless of the columns being scanned
+     */
+    public Schema getBaseSchema() {
+        return baseSchema != null ? baseSchema : schema;
+    }
+
+    public int[] getColumns() {
+        return columns;
+    }
+
+    public ArrayList<Condition> getPredicates() {
+        return predicates;
+    }
+
+    public void setPredicates(ArrayList<Condition> predicates) {
+        this.predicates = predicates;
+        selectivity = null;
+    }
+
+    public void addPredicate(Condition con) {
+        predicates.add(con);
+        selectivity = null;
+    }
+
+    public double[] getSelectivity() {
+        return selectivity;
+    }
+
+    /**
+     * Sets the estimated selectivity of every predicate, used for the initial evaluation order
+     */
+    public void setSelectivity(double[] selectivity) {
+        this.selectivity = selectivity;
+    }
+
+    /**
+     * Compiles the predicates against the schema of the scan into a single filter,
+     * * which evaluates the predicates most likely to fail first
+     */
+    private boolean compilePredicates() {
+        filter = null;
+        filtered = new boolean[schema.getNumCols()];
+        if (predicates.isEmpty()) {
+            return true;
+        }
+        CompiledCondition[] tests = new CompiledCondition[predicates.size()];
+        for (int i = 0; i < tests.length; ++i) {
+            Condition con = predicates.get(i);
+            tests[i] = CompiledCondition.compile(con, schema);
+            if (tests[i] == null) {
+                return false;
+            }
+            filtered[schema.indexOf(con.getLhs())] = true;
+            if (con.getRhs() instanceof Attribute) {
+                filtered[schema.indexOf((Attribute) con.getRhs())] = true;
+            }
+        }
+        if (tests.length == 1) {
+            filter = tests[0];
+        } else {
+            filter = new ConjunctiveFilter(tests, selectivity);
+        }
+        return true;
+    }
+
+    /**
+     * Restricts the scan to the given attributes of the table, they are kept in
+     * * the order of the table. The schema of the scan shrinks accordingly.
+     */
+    public void setColumns(ArrayList<Attribute> attrlist) {
+        Schema base = getBaseSchema();
+        ArrayList<Attribute> scanned = new ArrayList<>();
+        ArrayList<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < base.getNumCols(); ++i) {
+            Attribute attr = base.getAttribute(i);
+            if (attrlist.contains(attr)) {
+                scanned.add(attr);
+                indices.add(i);
+            }
+        }
+        baseSchema = base;
+        if (indices.size() == base.getNumCols()) {
+            columns = null;
+            schema = base;
+            return;
+        }
+        columns = new int[indices.size()];
+        for (int i = 0; i < columns.length; ++i) {
+            columns[i] = indices.get(i);
+        }
+        schema = base.subSchema(scanned);
+    }
+
     /**
      * Open file prepare a stream pointer to read input file
      */
@@ -45,6 +189,28 @@ public class Scan extends Operator {
         int tuplesize = schema.getTupleSize();
         batchsize = Batch.getPageSize() / tuplesize;
         eos = false;
+        if (!compilePredicates()) {
+            return false;
+        }
+        if (TableFile.exists(tabname)) {
+            table = new TableFile(TableFile.fileName(tabname));
+            if (!table.open(defaultMapped)) {
+                return false;
+            }
+            if (table.getTypes().length != getBaseSchema().getNumCols()) {
+                System.err.println(" Schema does not match " + table.getFileName());
+                table.close();
+                return false;
+            }
+            layout = TupleLayout.of(schema);
+            pending = new ArrayList<>();
+            pendcurs = 0;
+            pageno = 0;
+            pages = selectPages();
+            return true;
+        }
+        table = null;
+        layout = TupleLayout.of(schema);
         try {
             in = new ObjectInputStream(new FileInputStream(filename));
         } catch (Exception e) {
@@ -54,6 +220,60 @@ public class Scan extends Operator {
         return true;
     }
 
+    /**
+     * Pages of the binary file that may hold tuples satisfying the predicates,
+     * * null if all the pages have to be read
+     **/
+    protected BitSet selectPages() {
+        return candidatePages(tabname, predicates, getBaseSchema());
+    }
+
+    /**
+     * Pages of the binary file of the table that may hold tuples satisfying the predicates
+     * * by its zone map and its bitmap indexes, null if all the pages have to be read
+     **/
+    public static BitSet candidatePages(String tabname, List<Condition> predicates, Schema baseschema) {
+        if (predicates.isEmpty()) {
+            return null;
+        }
+        BitSet pages = null;
+        ZoneMap zones = ZoneMap.of(tabname);
+        if (zones != null) {
+            pages = zones.match(predicates, baseschema);
+        }
+        BitSet bitmapped = BitmapIndex.match(tabname, predicates, baseschema);
+        if (bitmapped != null) {
+            if (pages == null) {
+                pages = bitmapped;
+            } else {
+                pages.and(bitmapped);
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Whether the open scan reads the binary file, whose pages can be read by number
+     **/
+    public boolean isPaged() {
+        return table != null;
+    }
+
+    /**
+     * Decodes a single page of the binary file with the columns and the predicates
+     * * of the scan, the scan must be open on the binary file
+     **/
+    public void readPage(int pageno, List<Tuple> out) {
+        readPage(pageno, AccessPattern.RANDOM, out);
+    }
+
+    private void readPage(int pageno, int pattern, List<Tuple> out) {
+        BufferPool pool = BufferPool.get();
+        ByteBuffer page = pool.pin(table, pageno, pattern);
+        table.decodePage(page, columns, layout, filter, filtered, out);
+        pool.unpin(table, pageno, false);
+    }
+
     /**
      * Next operator - get a tuple from the file
      **/
@@ -63,11 +283,19 @@ public class Scan extends Operator {
             close();
             return null;
         }
+        if (table != null) {
+            return fill(new Batch(batchsize));
+        }
         Batch tuples = new Batch(batchsize);
         while (!tuples.isFull()) {
             try {
                 Tuple data = (Tuple) in.readObject();
-                tuples.add(data);
+                if (columns != null) {
+                    data = data.project(columns, layout);
+                }
+                if (filter == null || filter.test(data)) {
+                    tuples.add(data);
+                }
             } catch (ClassNotFoundException cnf) {
                 System.err.println("Scan:Class not found for reading file  " + filename);
                 System.exit(1);
@@ -94,11 +322,19 @@ public class Scan extends Operator {
             close();
             return null;
         }
+        if (table != null) {
+            return fill(new Batch(sizeofblock));
+        }
         Batch tuples = new Batch(sizeofblock);
         while (!tuples.isFull()) {
             try {
                 Tuple data = (Tuple) in.readObject();
-                tuples.add(data);
+                if (columns != null) {
+                    data = data.project(columns, layout);
+                }
+                if (filter == null || filter.test(data)) {
+                    tuples.add(data);
+                }
             } catch (ClassNotFoundException cnf) {
                 System.err.println("Scan:Class not found for reading file  " + filename);
                 System.exit(1);
@@ -115,11 +351,43 @@ public class Scan extends Operator {
         }
         return tuples;
     }
+    /**
+     * Fills the batch with the decoded tuples of the binary file, reading
+     * * the next page whenever all the tuples of the current page are used
+     **/
+    private Batch fill(Batch tuples) {
+        while (!tuples.isFull()) {
+            if (pendcurs == pending.size()) {
+                if (pages != null) {
+                    pageno = pages.nextSetBit(pageno);
+                    if (pageno < 0) {
+                        pageno = table.getNumPages();
+                    }
+                }
+                if (pageno == table.getNumPages()) {
+                    eos = true;
+                    return tuples;
+                }
+                pending.clear();
+                pendcurs = 0;
+                readPage(pageno++, AccessPattern.SEQUENTIAL, pending);
+                continue;
+            }
+            tuples.add(pending.get(pendcurs++));
+        }
+        return tuples;
+    }
+
     /**
      * Close the file.. This routine is called when the end of filed
      * * is already reached
      **/
     public boolean close() {
+        if (table != null) {
+            table.close();
+            pending = null;
+            return true;
+        }
         try {
             in.close();
         } catch (IOException e) {
@@ -132,8 +400,21 @@ public class Scan extends Operator {
     public Object clone() {
         String newtab = tabname;
         Scan newscan = new Scan(newtab, optype);
-        newscan.setSchema((Schema) schema.clone());
+        copyInto(newscan);
         return newscan;
     }
 
+    /**
+     * Copies the schema, the scanned columns and the predicates to another scan of the table
+     **/
+    protected void copyInto(Scan newscan) {
+        newscan.setSchema((Schema) schema.clone());
+        if (baseSchema != null) {
+            newscan.baseSchema = (Schema) baseSchema.clone();
+        }
+        newscan.columns = columns;
+        newscan.predicates = new ArrayList<>(predicates);
+        newscan.selectivity = selectivity == null ? null : selectivity.clone();
+    }
+
 }
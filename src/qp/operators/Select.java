@@ -6,11 +6,20 @@ package qp.operators;
 
 import qp.utils.*;
 
+import java.util.ArrayList;
+
+/**
+ * Selection on the output of another operator, for the conditions which
+ * * cannot be pushed into the scan of a table. A join condition between two
+ * * tables which are already joined below is such a condition. All the
+ * * conditions are checked in one pass by a ConjunctiveFilter.
+ **/
 public class Select extends Operator {
 
-    Operator base;  // Base operator
-    Condition con;  // Select condition
-    int batchsize;  // Number of tuples per outbatch
+    Operator base;                       // Base operator
+    ArrayList<Condition> conditionList;  // Select conditions, all of which must hold
+    double[] selectivity;                // Estimated fraction of tuples passing each condition
+    int batchsize;                       // Number of tuples per outbatch
 
     /**
      * The following fields are required during
@@ -21,13 +30,22 @@ public class Select extends Operator {
     Batch outbatch;  // This is the current output buffer
     int start;       // Cursor position in the input buffer
 
+    CompiledCondition filter;  // Conditions compiled against the schema
+
     /**
      * constructor
      **/
     public Select(Operator base, Condition con, int type) {
         super(type);
         this.base = base;
-        this.con = con;
+        conditionList = new ArrayList<>();
+        conditionList.add(con);
+    }
+
+    public Select(Operator base, ArrayList<Condition> conditionList, int type) {
+        super(type);
+        this.base = base;
+        this.conditionList = conditionList;
     }
 
     public Operator getBase() {
@@ -39,11 +57,38 @@ public class Select extends Operator {
     }
 
     public Condition getCondition() {
-        return con;
+        return conditionList.get(0);
     }
 
     public void setCondition(Condition cn) {
-        this.con = cn;
+        conditionList = new ArrayList<>();
+        conditionList.add(cn);
+        selectivity = null;
+    }
+
+    public ArrayList<Condition> getConditionList() {
+        return conditionList;
+    }
+
+    public void setConditionList(ArrayList<Condition> conditionList) {
+        this.conditionList = conditionList;
+        selectivity = null;
+    }
+
+    public void addCondition(Condition cn) {
+        conditionList.add(cn);
+        selectivity = null;
+    }
+
+    public double[] getSelectivity() {
+        return selectivity;
+    }
+
+    /**
+     * Sets the estimated selectivity of every condition, used for the initial evaluation order
+     */
+    public void setSelectivity(double[] selectivity) {
+        this.selectivity = selectivity;
     }
 
     /**
@@ -57,6 +102,19 @@ public class Select extends Operator {
         int tuplesize = schema.getTupleSize();
         batchsize = Batch.getPageSize() / tuplesize;
 
+        /** Resolve the columns and parse the constants once for all the tuples **/
+        CompiledCondition[] predicates = new CompiledCondition[conditionList.size()];
+        for (int i = 0; i < predicates.length; ++i) {
+            predicates[i] = CompiledCondition.compile(conditionList.get(i), schema);
+            if (predicates[i] == null)
+                return false;
+        }
+        if (predicates.length == 1) {
+            filter = predicates[0];
+        } else {
+            filter = new ConjunctiveFilter(predicates, selectivity);
+        }
+
         if (base.open())
             return true;
         else
@@ -99,7 +157,7 @@ public class Select extends Operator {
                 /** If the condition is satisfied then
                  ** this tuple is added tot he output buffer
                  **/
-                if (checkCondition(present))
+                if (filter.test(present))
                     outbatch.add(present);
             }
 
@@ -150,7 +208,7 @@ public class Select extends Operator {
                 /** If the condition is satisfied then
                  ** this tuple is added tot he output buffer
                  **/
-                if (checkCondition(present))
+                if (filter.test(present))
                     outbatch.add(present);
             }
 
@@ -174,107 +232,17 @@ public class Select extends Operator {
         return true;
     }
 
-    /**
-     * To check whether the selection condition is satisfied for
-     * * the present tuple
-     **/
-    protected boolean checkCondition(Tuple tuple) {
-        Attribute attr = con.getLhs();
-        int index = schema.indexOf(attr);
-        int datatype = schema.typeOf(attr);
-        Object srcValue = tuple.dataAt(index);
-        int exprtype = con.getExprType();
-
-        if (datatype == Attribute.INT) {
-            int srcVal = ((Integer) srcValue).intValue();
-            int checkVal = 0;
-            if (con.getRhs() instanceof String) {
-                checkVal = Integer.parseInt((String) con.getRhs());
-            } else if (con.getRhs() instanceof Attribute) {
-                checkVal = ((Integer) tuple.dataAt(schema.indexOf((Attribute) con.getRhs()))).intValue();
-            } else {
-                System.out.println("Select: Malformed condition");
-            }
-            if (exprtype == Condition.LESSTHAN) {
-                if (srcVal < checkVal)
-                    return true;
-            } else if (exprtype == Condition.GREATERTHAN) {
-                if (srcVal > checkVal)
-                    return true;
-            } else if (exprtype == Condition.LTOE) {
-                if (srcVal <= checkVal)
-                    return true;
-            } else if (exprtype == Condition.GTOE) {
-                if (srcVal >= checkVal)
-                    return true;
-            } else if (exprtype == Condition.EQUAL) {
-                if (srcVal == checkVal)
-                    return true;
-            } else if (exprtype == Condition.NOTEQUAL) {
-                if (srcVal != checkVal)
-                    return true;
-            } else {
-                System.out.println("Select: Incorrect condition operator");
-            }
-        } else if (datatype == Attribute.STRING) {
-            String srcVal = (String) srcValue;
-            int flag = 0;
-            if (con.getRhs() instanceof String) {
-                flag = srcVal.compareTo((String) con.getRhs());
-            } else if (con.getRhs() instanceof Attribute) {
-                flag = srcVal.compareTo(((String) tuple.dataAt(schema.indexOf((Attribute) con.getRhs()))));
-            } else {
-                System.out.println("Select: Malformed condition");
-            }
-            if (exprtype == Condition.LESSTHAN) {
-                if (flag < 0) return true;
-            } else if (exprtype == Condition.GREATERTHAN) {
-                if (flag > 0) return true;
-            } else if (exprtype == Condition.LTOE) {
-                if (flag <= 0) return true;
-            } else if (exprtype == Condition.GTOE) {
-                if (flag >= 0) return true;
-            } else if (exprtype == Condition.EQUAL) {
-                if (flag == 0) return true;
-            } else if (exprtype == Condition.NOTEQUAL) {
-                if (flag != 0) return true;
-            } else {
-                System.out.println("Select: Incorrect condition operator");
-            }
-        } else if (datatype == Attribute.REAL) {
-            float srcVal = ((Float) srcValue).floatValue();
-            float checkVal = 0;
-            if (con.getRhs() instanceof String) {
-                checkVal = Float.parseFloat((String) con.getRhs());
-            } else if (con.getRhs() instanceof Attribute) {
-                checkVal = ((Float) tuple.dataAt(schema.indexOf((Attribute) con.getRhs()))).floatValue();
-            } else {
-                System.out.println("Select: Malformed condition");
-            }
-            if (exprtype == Condition.LESSTHAN) {
-                if (srcVal < checkVal) return true;
-            } else if (exprtype == Condition.GREATERTHAN) {
-                if (srcVal > checkVal) return true;
-            } else if (exprtype == Condition.LTOE) {
-                if (srcVal <= checkVal) return true;
-            } else if (exprtype == Condition.GTOE) {
-                if (srcVal >= checkVal) return true;
-            } else if (exprtype == Condition.EQUAL) {
-                if (srcVal == checkVal) return true;
-            } else if (exprtype == Condition.NOTEQUAL) {
-                if (srcVal != checkVal) return true;
-            } else {
-                System.out.println("Select: Incorrect condition operator");
-            }
-        }
-        return false;
-    }
-
     public Object clone() {
         Operator newbase = (Operator) base.clone();
-        Condition newcon = (Condition) con.clone();
-        Select newsel = new Select(newbase, newcon, optype);
+        ArrayList<Condition> newcondlist = new ArrayList<>();
+        for (Condition cond : conditionList) {
+            newcondlist.add((Condition) cond.clone());
+        }
+        Select newsel = new Select(newbase, newcondlist, optype);
         newsel.setSchema((Schema) newbase.getSchema().clone());
+        if (selectivity != null) {
+            newsel.setSelectivity(selectivity.clone());
+        }
         return newsel;
     }
 
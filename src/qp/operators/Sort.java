@@ -0,0 +1,114 @@
+/**
+ * ORDER BY operator
+ **/
+
+package qp.operators;
+
+import qp.utils.Attribute;
+import qp.utils.Batch;
+
+import java.util.ArrayList;
+
+/**
+ * Sorts the result of the query on the ORDER BY attributes
+ * The input is sorted by an ExternalSort within the buffers granted to this operator, so
+ * the result is not limited by the heap. The runs are written out while the operator is
+ * opened and the first page is returned as soon as the final merge starts.
+ */
+public class Sort extends Operator {
+
+    Operator base;                      // Base operator
+    ArrayList<Attribute> sortlist;      // Attributes to sort on, in order of precedence
+    boolean[] descending;               // Whether each attribute is sorted in descending order
+    int[] keys;                         // Indices of the attributes in the schema, set on open
+    boolean[] keydescending;            // Whether each key is sorted in descending order
+    ExternalSort sorter;                // Sort of the base, created on open
+
+    public Sort(Operator base, ArrayList<Attribute> sortlist, boolean[] descending, int type) {
+        super(type);
+        this.base = base;
+        this.sortlist = sortlist;
+        this.descending = descending;
+    }
+
+    public Operator getBase() {
+        return base;
+    }
+
+    public void setBase(Operator base) {
+        this.base = base;
+    }
+
+    public ArrayList<Attribute> getSortList() {
+        return sortlist;
+    }
+
+    public boolean isDescending(int i) {
+        return descending[i];
+    }
+
+    public boolean open() {
+        if (numBuff < 3) {
+            System.err.println("Error: Sort requires at least 3 buffers.");
+            return false;
+        }
+        resolveKeys();
+        ArrayList<Integer> attrIndex = new ArrayList<>();
+        for (int key : keys) {
+            attrIndex.add(key);
+        }
+        sorter = new ExternalSort(base, numBuff, attrIndex, keydescending, "orderby");
+        return sorter.open();
+    }
+
+    /**
+     * Finds the keys in the schema, attributes which are not in the result
+     * cannot be sorted on and are skipped
+     */
+    void resolveKeys() {
+        ArrayList<Integer> indices = new ArrayList<>();
+        ArrayList<Boolean> directions = new ArrayList<>();
+        for (int i = 0; i < sortlist.size(); ++i) {
+            int index = schema.indexOf(sortlist.get(i));
+            if (index >= 0) {
+                indices.add(index);
+                directions.add(descending[i]);
+            }
+        }
+        keys = new int[indices.size()];
+        keydescending = new boolean[indices.size()];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = indices.get(i);
+            keydescending[i] = directions.get(i);
+        }
+    }
+
+    public Batch next() {
+        return sorter.next();
+    }
+
+    @Override
+    public Batch getBlock(int sizeofblock) {
+        return next();
+    }
+
+    /**
+     * Close the operator, the sort closes the base
+     */
+    public boolean close() {
+        if (sorter == null) {
+            return base.close();
+        }
+        sorter.close();
+        sorter = null;
+        return true;
+    }
+
+    public Object clone() {
+        Operator newbase = (Operator) base.clone();
+        Sort newsort = new Sort(newbase, new ArrayList<>(sortlist), descending.clone(), optype);
+        newsort.setSchema(newbase.getSchema());
+        newsort.setNumBuff(numBuff);
+        return newsort;
+    }
+}
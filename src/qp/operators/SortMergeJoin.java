@@ -5,135 +5,115 @@ import java.util.ArrayList;
 import qp.utils.Attribute;
 import qp.utils.Batch;
 import qp.utils.Condition;
+import qp.utils.MemoryGovernor;
+import qp.utils.PageFile;
 import qp.utils.Tuple;
+import qp.utils.TupleReader;
+import qp.utils.TupleWriter;
 
 /**
  * Sort Merge Join Algorithm
+ * Both inputs are written out as sorted runs. When the runs of both sides together fit in
+ * the (B-1) input buffers, the runs are merged directly into the join without any separate
+ * sort pass. Otherwise, the side with more runs is merged a pass at a time until they fit.
+ * The right tuples sharing a join key are kept in memory while they fit the grant of the
+ * join, the rest of the group is written out and read again for every matching left tuple.
  */
 public class SortMergeJoin extends Join {
+    static int filenum = 0;         // To get unique filenum for this operation
+
     int batchsize;                  // Number of tuples per out batch
+    int rightbatchsize;             // Number of tuples per page of the spilled right group
     ExternalSort leftsort;          // Sort Operator on left
     ExternalSort rightsort;         // Sort Operator on right
-    ArrayList<Integer> leftindex;   // Indices of the join attributes in left table
-    ArrayList<Integer> rightindex;  // Indices of the join attributes in right table
-    ArrayList<Tuple> temp;          // Temporary ArrayList of Tuples
+    int[] leftindex;                // Indices of the join attributes in left table
+    int[] rightindex;               // Indices of the join attributes in right table
+    boolean directMerge;            // Whether the initial runs were joined without merge passes
 
     Batch outbatch;                 // Buffer page for output
-    Batch leftbatch;                // Buffer page for left input stream
-    Batch rightbatch;               // Buffer page for right input stream
-    int lcurs;                      // Cursor for left side buffer
-    int rcurs;                      // Cursor for right side buffer
-    int tempcurs = -1;              // Temporary cursor
+    Tuple lefttuple;                // Left tuple being joined with the right group
+    Tuple groupkey;                 // First right tuple of the group, holds its join key
+    ArrayList<Tuple> group;         // Right tuples with the same join key as lefttuple, kept in memory
+    int gcurs;                      // Cursor within the right group
+    String spillfile;               // File of the right tuples of the group over the grant, null if none
+    TupleReader spillreader;        // Cursor within the spilled right tuples
     boolean eos;                    // Indicate whether end of stream is reached or not
+    MemoryGovernor.Account memory;  // Heap held by the right group
 
     public SortMergeJoin(Join jn) {
-        super(jn.getLeft(), jn.getRight(), jn.getCondition(), jn.getOpType());
+        super(jn.getLeft(), jn.getRight(), jn.getConditionList(), jn.getOpType());
         schema = jn.getSchema();
         jointype = jn.getJoinType();
         numBuff = jn.getNumBuff();
-        leftindex = new ArrayList<>();
-        rightindex = new ArrayList<>();
-        temp = new ArrayList<>();
+    }
+
+    /**
+     * Whether the last open joined the initial runs of both sides directly
+     */
+    public boolean isDirectMerge() {
+        return directMerge;
     }
 
     @Override
     public boolean open() {
         int tupleSize = schema.getTupleSize();
         this.batchsize = Batch.getPageSize() / tupleSize;
+        this.rightbatchsize = Math.max(1, Batch.getPageSize() / right.getSchema().getTupleSize());
 
         /** Throw error if page size is smaller than tuple size */
         if (batchsize < 1) {
             System.err.println("Error: Page size must be bigger than tuple size for joining.");
             return false;
         }
+        if (numBuff < 3) {
+            System.err.println("Error: Sort merge join requires at least 3 buffers.");
+            return false;
+        }
 
         /** find indices attributes of join conditions **/
-        for (Condition con : this.conditionList) {
+        ArrayList<Integer> leftattrs = new ArrayList<>();
+        ArrayList<Integer> rightattrs = new ArrayList<>();
+        leftindex = new int[conditionList.size()];
+        rightindex = new int[conditionList.size()];
+        for (int i = 0; i < conditionList.size(); ++i) {
+            Condition con = conditionList.get(i);
             Attribute leftattr = con.getLhs();
             Attribute rightattr = (Attribute) con.getRhs();
-            this.leftindex.add(left.getSchema().indexOf(leftattr));
-            this.rightindex.add(right.getSchema().indexOf(rightattr));
+            leftindex[i] = left.getSchema().indexOf(leftattr);
+            rightindex[i] = right.getSchema().indexOf(rightattr);
+            leftattrs.add(leftindex[i]);
+            rightattrs.add(rightindex[i]);
         }
 
-        /** initialize the cursors of input buffers **/
-        lcurs = 0;
-        rcurs = 0;
-        eos = false;
-        leftsort = new ExternalSort(left, numBuff, leftindex, "left");
-        rightsort = new ExternalSort(right, numBuff, rightindex, "right");
-
-        if (!leftsort.open() || !rightsort.open()) {
+        leftsort = new ExternalSort(left, numBuff, leftattrs, "left");
+        rightsort = new ExternalSort(right, numBuff, rightattrs, "right");
+        if (!leftsort.generateRuns() || !rightsort.generateRuns()) {
             return false;
         }
 
-        leftbatch = leftsort.next();
-        rightbatch = rightsort.next();
+        /** One buffer is kept for the output, the rest hold a page of every run being merged **/
+        int fanin = numBuff - 1;
+        directMerge = leftsort.getNumRemainingRuns() + rightsort.getNumRemainingRuns() <= fanin;
+        while (leftsort.getNumRemainingRuns() + rightsort.getNumRemainingRuns() > fanin) {
+            ExternalSort larger = leftsort.getNumRemainingRuns() >= rightsort.getNumRemainingRuns() ? leftsort : rightsort;
+            if (!larger.mergePass()) {
+                return false;
+            }
+        }
+        if (!leftsort.startFinalMerge() || !rightsort.startFinalMerge()) {
+            return false;
+        }
 
+        lefttuple = null;
+        group = new ArrayList<>();
+        memory = MemoryGovernor.open("SortMergeJoin", numBuff);
+        gcurs = 0;
+        eos = false;
         return true;
     }
 
     public Batch getBlock(int sizeofblock) {
-        outbatch = new Batch(sizeofblock);
-        while (leftbatch != null && rightbatch != null) {
-            Tuple lefttuple = leftbatch.get(lcurs);
-            Tuple righttuple = getRightTuple();
-
-            if (tempcurs == -1) {
-                while (Tuple.compareTuples(lefttuple, righttuple, leftindex, rightindex) < 0) {
-                    lcurs++;
-                    if (leftbatch != null && lcurs >= leftbatch.size()) {
-                        leftbatch = leftsort.next();
-                        lcurs = 0;
-                    }
-                    if (leftbatch == null) break;
-                    lefttuple = leftbatch.get(lcurs);
-                }
-
-                while (Tuple.compareTuples(lefttuple, righttuple, leftindex, rightindex) > 0) {
-                    rcurs++;
-                    if (rightbatch != null && rcurs >= rightbatch.size() + temp.size()) {
-                        temp.addAll(rightbatch.getTuples());
-                        rightbatch = rightsort.next();
-                    }
-                    if (rightbatch == null) break;
-                    righttuple = getRightTuple();
-                }
-                if (rcurs >= temp.size()) {
-                    rcurs -= temp.size();
-                }
-                tempcurs = rcurs;
-                temp.clear();
-            }
-
-            if (Tuple.compareTuples(lefttuple, righttuple, leftindex, rightindex) == 0) {
-                outbatch.add(lefttuple.joinWith(righttuple));
-                rcurs++;
-                if (rightbatch != null && rcurs >= rightbatch.size() + temp.size()) {
-                    temp.addAll(rightbatch.getTuples());
-                    rightbatch = rightsort.next();
-                }
-                if (rightbatch == null) break;
-                if (outbatch.isFull()) {
-                    return outbatch;
-                }
-            } else {
-                rcurs = tempcurs;
-                lcurs++;
-                if (leftbatch != null && lcurs >= leftbatch.size()) {
-                    leftbatch = leftsort.next();
-                    lcurs = 0;
-                }
-                if (leftbatch == null) break;
-                tempcurs = -1;
-            }
-        }
-
-        if (outbatch.isEmpty()) {
-            close();
-            return null;
-        } else {
-            return outbatch;
-        }
+        return fill(new Batch(sizeofblock));
     }
 
     /**
@@ -142,82 +122,134 @@ public class SortMergeJoin extends Join {
      */
     @Override
     public Batch next() {
-        outbatch = new Batch(batchsize);
-        while (leftbatch != null && rightbatch != null) {
-            Tuple lefttuple = leftbatch.get(lcurs);
-            Tuple righttuple = getRightTuple();
-
-            if (tempcurs == -1) {
-                while (Tuple.compareTuples(lefttuple, righttuple, leftindex, rightindex) < 0) {
-                    lcurs++;
-                    if (leftbatch != null && lcurs >= leftbatch.size()) {
-                        leftbatch = leftsort.next();
-                        lcurs = 0;
-                    }
-                    if (leftbatch == null) break;
-                    lefttuple = leftbatch.get(lcurs);
-                }
+        return fill(new Batch(batchsize));
+    }
 
-                while (Tuple.compareTuples(lefttuple, righttuple, leftindex, rightindex) > 0) {
-                    rcurs++;
-                    if (rightbatch != null && rcurs >= rightbatch.size() + temp.size()) {
-                        temp.addAll(rightbatch.getTuples());
-                        rightbatch = rightsort.next();
-                    }
-                    if (rightbatch == null) break;
-                    righttuple = getRightTuple();
-                }
-                if (rcurs >= temp.size()) {
-                    rcurs -= temp.size();
-                }
-                tempcurs = rcurs;
-                temp.clear();
+    /**
+     * Fills the output buffer with the next joined tuples, returns null at the end
+     */
+    private Batch fill(Batch batch) {
+        if (eos) {
+            return null;
+        }
+        outbatch = batch;
+        while (!outbatch.isFull()) {
+            /** Join the current left tuple with the remaining tuples of the right group **/
+            Tuple groupTuple = lefttuple == null ? null : nextGroupTuple();
+            if (groupTuple != null) {
+                outbatch.add(lefttuple.joinWith(groupTuple));
+                continue;
             }
 
-            if (Tuple.compareTuples(lefttuple, righttuple, leftindex, rightindex) == 0) {
-                outbatch.add(lefttuple.joinWith(righttuple));
-                rcurs++;
-                if (rightbatch != null && rcurs >= rightbatch.size() + temp.size()) {
-                    temp.addAll(rightbatch.getTuples());
-                    rightbatch = rightsort.next();
-                }
-                if (rightbatch == null) break;
-                if (outbatch.isFull()) {
-                    return outbatch;
+            /** The next left tuple with the same key is joined with the same group **/
+            if (lefttuple != null) {
+                Tuple nextleft = leftsort.peekTuple();
+                if (nextleft != null && Tuple.compareTuples(nextleft, groupkey, leftindex, rightindex) == 0) {
+                    lefttuple = leftsort.nextTuple();
+                    rewindGroup();
+                    continue;
                 }
+                lefttuple = null;
+                clearGroup();
+            }
+
+            /** Advance the side with the smaller key until both keys match **/
+            Tuple l = leftsort.peekTuple();
+            Tuple r = rightsort.peekTuple();
+            if (l == null || r == null) {
+                eos = true;
+                break;
+            }
+            int flag = Tuple.compareTuples(l, r, leftindex, rightindex);
+            if (flag < 0) {
+                leftsort.nextTuple();
+            } else if (flag > 0) {
+                rightsort.nextTuple();
             } else {
-                rcurs = tempcurs;
-                lcurs++;
-                if (leftbatch != null && lcurs >= leftbatch.size()) {
-                    leftbatch = leftsort.next();
-                    lcurs = 0;
-                }
-                if (leftbatch == null) break;
-                tempcurs = -1;
+                readGroup(l);
+                lefttuple = leftsort.nextTuple();
+                rewindGroup();
             }
         }
 
         if (outbatch.isEmpty()) {
             close();
             return null;
-        } else {
-            return outbatch;
         }
+        return outbatch;
     }
 
     /**
-     * Retrieval of Right Tuple
-     * @return rightTuple
+     * Reads the right tuples with the same join key as the left tuple. Once the group
+     * holds more memory than granted, the rest of it is written out to a file.
      */
-    private Tuple getRightTuple() {
-        if (temp.size() == 0) {
-            return rightbatch.get(rcurs);
-        } else {
-            if (rcurs < temp.size()) {
-                return temp.get(rcurs);
+    private void readGroup(Tuple l) {
+        groupkey = rightsort.peekTuple();
+        TupleWriter writer = null;
+        Tuple r = groupkey;
+        while (r != null && Tuple.compareTuples(l, r, leftindex, rightindex) == 0) {
+            rightsort.nextTuple();
+            if (writer == null && (group.isEmpty() || !memory.isOver())) {
+                group.add(r);
+                memory.reserve(r.memorySize());
             } else {
-                return rightbatch.get(rcurs - temp.size());
+                if (writer == null) {
+                    filenum++;
+                    spillfile = "SMJtemp-" + filenum;
+                    writer = new TupleWriter(spillfile, rightbatchsize);
+                    if (!writer.open()) {
+                        System.out.println("SortMergeJoin: Error writing to temporary file");
+                        System.exit(1);
+                    }
+                }
+                writer.next(r);
             }
+            r = rightsort.peekTuple();
+        }
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    /**
+     * Next right tuple of the group for the current left tuple, null at the end of the group
+     */
+    private Tuple nextGroupTuple() {
+        if (gcurs < group.size()) {
+            return group.get(gcurs++);
+        }
+        return spillreader == null ? null : spillreader.next();
+    }
+
+    /**
+     * Starts the group over for the next left tuple, the spilled tuples are read again
+     */
+    private void rewindGroup() {
+        gcurs = 0;
+        if (spillfile == null) {
+            return;
+        }
+        if (spillreader != null) {
+            spillreader.close();
+        }
+        spillreader = new TupleReader(spillfile, rightbatchsize);
+        if (!spillreader.open()) {
+            System.out.println("SortMergeJoin: Error reading the temporary file");
+            System.exit(1);
+        }
+    }
+
+    private void clearGroup() {
+        group.clear();
+        memory.releaseAll();
+        groupkey = null;
+        if (spillreader != null) {
+            spillreader.close();
+            spillreader = null;
+        }
+        if (spillfile != null) {
+            PageFile.delete(spillfile);
+            spillfile = null;
         }
     }
 
@@ -226,8 +258,16 @@ public class SortMergeJoin extends Join {
      */
     @Override
     public boolean close() {
-        leftsort.close();
-        rightsort.close();
+        if (leftsort != null) leftsort.close();
+        if (rightsort != null) rightsort.close();
+        if (group != null) {
+            clearGroup();
+        }
+        group = null;
+        lefttuple = null;
+        if (memory != null) {
+            memory.releaseAll();
+        }
         return true;
     }
 }
@@ -0,0 +1,142 @@
+/**
+ * ORDER BY operator with a LIMIT
+ **/
+
+package qp.operators;
+
+import qp.utils.Attribute;
+import qp.utils.Batch;
+import qp.utils.MemoryGovernor;
+import qp.utils.Tuple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts the result of the query on the ORDER BY attributes and returns its first n tuples
+ * If n tuples fit in the buffers granted to the operator, the input is read once through
+ * a bounded heap of the n first tuples seen so far, with the last of them on top. Every
+ * input tuple either replaces the top or is dropped, and nothing is written out. The base
+ * is closed as soon as it is consumed. Otherwise the input is sorted externally by a
+ * Sort under a Limit, which closes the sort as soon as n tuples are returned.
+ */
+public class TopN extends Sort {
+
+    int limit;                          // Number of tuples to return
+    int batchsize;                      // Number of tuples per out batch
+    Tuple[] result;                     // First tuples in order, null if sorted externally
+    int resultcurs;                     // Cursor for the first tuples
+    Limit sorted;                       // First tuples of the external sort, null if not sorted externally
+    boolean baseclosed;                 // Whether the base is already closed
+    MemoryGovernor.Account memory;      // Heap held by the bounded heap
+
+    public TopN(Operator base, ArrayList<Attribute> sortlist, boolean[] descending, int limit, int type) {
+        super(base, sortlist, descending, type);
+        this.limit = limit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Whether n tuples of the given number per page fit in the given number of buffers
+     */
+    public static boolean fitsInBuffers(long limit, long capacity, long numBuff) {
+        return limit <= numBuff * capacity;
+    }
+
+    public boolean open() {
+        batchsize = Batch.getPageSize() / schema.getTupleSize();
+        if (batchsize < 1) {
+            System.err.println("Error: Page size must be bigger than tuple size for sorting.");
+            return false;
+        }
+        baseclosed = false;
+        result = null;
+        sorted = null;
+        if (!fitsInBuffers(limit, batchsize, numBuff)) {
+            Sort sort = new Sort(base, sortlist, descending, optype);
+            sort.setSchema(schema);
+            sort.setNumBuff(numBuff);
+            sorted = new Limit(sort, limit, OpType.LIMIT);
+            sorted.setSchema(schema);
+            return sorted.open();
+        }
+
+        resolveKeys();
+        Comparator<Tuple> comparator = (t1, t2) -> ExternalSort.compareTuples(t1, t2, keys, keydescending);
+        memory = MemoryGovernor.open("TopN", numBuff);
+        if (!base.open()) {
+            return false;
+        }
+        PriorityQueue<Tuple> heap = new PriorityQueue<>(Math.max(1, limit), comparator.reversed());
+        Batch inbatch;
+        while (limit > 0 && (inbatch = base.next()) != null) {
+            for (int i = 0; i < inbatch.size(); ++i) {
+                Tuple t = inbatch.get(i);
+                if (heap.size() == limit) {
+                    if (comparator.compare(t, heap.peek()) >= 0) {
+                        continue;
+                    }
+                    memory.release(heap.poll().memorySize());
+                }
+                heap.add(t);
+                memory.reserve(t.memorySize());
+            }
+        }
+        base.close();
+        baseclosed = true;
+
+        result = heap.toArray(new Tuple[0]);
+        Arrays.sort(result, comparator);
+        resultcurs = 0;
+        return true;
+    }
+
+    /**
+     * Returns the next page of the first n tuples
+     */
+    public Batch next() {
+        if (sorted != null) {
+            return sorted.next();
+        }
+        if (resultcurs >= result.length) {
+            return null;
+        }
+        Batch outbatch = new Batch(batchsize);
+        while (!outbatch.isFull() && resultcurs < result.length) {
+            outbatch.add(result[resultcurs++]);
+        }
+        return outbatch;
+    }
+
+    /**
+     * Close the operator
+     */
+    public boolean close() {
+        result = null;
+        if (memory != null) {
+            memory.releaseAll();
+        }
+        if (sorted != null) {
+            sorted.close();
+            sorted = null;
+            return true;
+        }
+        if (baseclosed) {
+            return true;
+        }
+        return super.close();
+    }
+
+    public Object clone() {
+        Operator newbase = (Operator) base.clone();
+        TopN newtopn = new TopN(newbase, new ArrayList<>(sortlist), descending.clone(), limit, optype);
+        newtopn.setSchema(newbase.getSchema());
+        newtopn.setNumBuff(numBuff);
+        return newtopn;
+    }
+}
@@ -1,22 +1,37 @@
 /**
- * simple buffer manager that distributes the buffers equally among all the join operators
+ * simple buffer manager that hands out the buffers to the join and distinct operators
  **/
 
 package qp.optimizer;
 
+/**
+ * The buffers are granted to every operator of the final plan holding buffers by
+ * * PlanCost.allocateBuffers, which weighs the estimated cost of the operators
+ * * against each other. An operator without a grant gets the equal share of
+ * * the buffers among all of them.
+ **/
 public class BufferManager {
 
+    public static final int MINGRANT = 3;   // Fewest buffers any operator can run with
+
     static int numBuffer;
-    static int numJoin;
+    static int numOperators;
 
     static int buffPerJoin;
 
-    public BufferManager(int numBuffer, int numJoin) {
+    public BufferManager(int numBuffer, int numOperators) {
         this.numBuffer = numBuffer;
-        this.numJoin = numJoin;
-        buffPerJoin = numBuffer / numJoin;
+        this.numOperators = numOperators;
+        buffPerJoin = numBuffer / numOperators;
+    }
+
+    public static int getNumBuffers() {
+        return numBuffer;
     }
 
+    /**
+     * Equal share of the buffers of every operator holding buffers
+     **/
     public static int getBuffersPerJoin() {
         return buffPerJoin;
     }
@@ -7,14 +7,20 @@ package qp.optimizer;
 
 import qp.operators.*;
 import qp.utils.Attribute;
+import qp.utils.BPlusTree;
 import qp.utils.Batch;
 import qp.utils.Condition;
 import qp.utils.Schema;
+import qp.utils.TableFile;
+import qp.utils.TableMetadata;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.StringTokenizer;
 
 import static java.lang.Math.ceil;
@@ -38,18 +44,74 @@ public class PlanCost {
      **/
     HashMap<Attribute, Long> ht;
 
+    /**
+     * Sizes of the inputs of every operator of the plan holding buffers,
+     * * which decide the cost of the operator with a number of buffers
+     **/
+    ArrayList<BufferEstimate> estimates;
+
+    /**
+     * Buffers granted to the operators of the plan by allocateBuffers and the estimated
+     * * selectivity of the conditions of every scan and selection. Costing leaves the
+     * * plan untouched, makeExecPlan hands them to the operators of the final plan.
+     **/
+    IdentityHashMap<Operator, Integer> grants;
+    IdentityHashMap<Operator, double[]> selectivities;
+
+    static class BufferEstimate {
+        final Operator node;
+        final long leftpages;       // Pages of the left input of a join, or of the input of another operator
+        final long rightpages;
+        final long outpages;        // Pages of the output of a distinct or a sort, of the first n tuples of a top-n
+        final long lefttuples;
+        final long leftcapacity;    // Number of left tuples per page
+        final long leftkeydistn;    // Distinct values of the left attribute of the first condition
+        final long rightkeydistn;   // Distinct values of the right attribute of the first condition
+        final BPlusTree index;      // Index probed by an index nested loop join, or null
+
+        BufferEstimate(Join node, long leftpages, long rightpages, long lefttuples, long leftcapacity,
+                       long leftkeydistn, long rightkeydistn) {
+            this.node = node;
+            this.leftpages = leftpages;
+            this.rightpages = rightpages;
+            this.outpages = 0;
+            this.lefttuples = lefttuples;
+            this.leftcapacity = leftcapacity;
+            this.leftkeydistn = leftkeydistn;
+            this.rightkeydistn = rightkeydistn;
+            this.index = node.getJoinType() == JoinType.INDEXNESTED ? IndexNestedJoin.getIndex(node) : null;
+        }
+
+        BufferEstimate(Operator node, long inpages, long outpages) {
+            this.node = node;
+            this.leftpages = inpages;
+            this.rightpages = 0;
+            this.outpages = outpages;
+            this.lefttuples = 0;
+            this.leftcapacity = 0;
+            this.leftkeydistn = 0;
+            this.rightkeydistn = 0;
+            this.index = null;
+        }
+    }
+
 
     public PlanCost() {
         ht = new HashMap<>();
+        estimates = new ArrayList<>();
+        grants = new IdentityHashMap<>();
+        selectivities = new IdentityHashMap<>();
         cost = 0;
     }
 
     /**
-     * Returns the cost of the plan
+     * Returns the cost of the plan with the buffers granted to its operators
      **/
     public long getCost(Operator root) {
         cost = 0;
         isFeasible = true;
+        estimates.clear();
+        selectivities.clear();
         numtuple = calculateCost(root);
         if (isFeasible) {
             return cost;
@@ -59,6 +121,103 @@ public class PlanCost {
         }
     }
 
+    /**
+     * Grants the buffers to the operators of the plan holding buffers and returns its
+     * * cost with them. Every operator is granted the minimum it can run with, then the
+     * * remaining buffers are handed out in turns to the operator whose cost falls the most
+     * * per buffer, trying doubling amounts so that an operator whose cost falls only in
+     * * steps still gets them. Buffers lowering no cost go to the operator with the largest
+     * * inputs. The grants replace the equal share of every operator only if they make
+     * * the plan cheaper.
+     **/
+    public long allocateBuffers(Operator root) {
+        grants.clear();
+        long plancost = getCost(root);
+        int numops = estimates.size();
+        if (!isFeasible || numops == 0) {
+            return plancost;
+        }
+
+        long[] grants = new long[numops];
+        long[] costs = new long[numops];
+        long equalcost = 0;
+        long grantcost = 0;
+        for (int i = 0; i < numops; ++i) {
+            grants[i] = BufferManager.MINGRANT;
+            costs[i] = getBufferCost(estimates.get(i), grants[i]);
+            grantcost += costs[i];
+            equalcost += getBufferCost(estimates.get(i), BufferManager.getBuffersPerJoin());
+        }
+
+        long spare = BufferManager.getNumBuffers() - (long) BufferManager.MINGRANT * numops;
+        while (spare > 0) {
+            int best = -1;
+            long bestamount = 0;
+            long bestcost = 0;
+            double bestrate = 0;
+            for (int i = 0; i < numops; ++i) {
+                for (long amount = 1; ; amount = Math.min(2 * amount, spare)) {
+                    long c = getBufferCost(estimates.get(i), grants[i] + amount);
+                    double rate = (double) (costs[i] - c) / amount;
+                    if (c >= 0 && rate > bestrate) {
+                        best = i;
+                        bestamount = amount;
+                        bestcost = c;
+                        bestrate = rate;
+                    }
+                    if (amount == spare) {
+                        break;
+                    }
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            grants[best] += bestamount;
+            grantcost += bestcost - costs[best];
+            costs[best] = bestcost;
+            spare -= bestamount;
+        }
+
+        if (spare > 0) {
+            int largest = 0;
+            for (int i = 1; i < numops; ++i) {
+                BufferEstimate in = estimates.get(i);
+                if (in.leftpages + in.rightpages > estimates.get(largest).leftpages + estimates.get(largest).rightpages) {
+                    largest = i;
+                }
+            }
+            long c = getBufferCost(estimates.get(largest), grants[largest] + spare);
+            if (c >= 0 && c <= costs[largest]) {
+                grants[largest] += spare;
+                grantcost += c - costs[largest];
+            }
+        }
+
+        if (grantcost < equalcost) {
+            ArrayList<BufferEstimate> granted = new ArrayList<>(estimates);
+            for (int i = 0; i < numops; ++i) {
+                this.grants.put(granted.get(i).node, (int) grants[i]);
+            }
+        }
+        return getCost(root);
+    }
+
+    /**
+     * Number of buffers granted to the operator, its equal share if none was granted
+     **/
+    public int getGrant(Operator node) {
+        Integer grant = grants.get(node);
+        return grant != null ? grant : BufferManager.getBuffersPerJoin();
+    }
+
+    /**
+     * Estimated selectivity of every condition of a scan or a selection, null if unknown
+     **/
+    public double[] getSelectivity(Operator node) {
+        return selectivities.get(node);
+    }
+
     /**
      * Get number of tuples in estimated results
      **/
@@ -79,6 +238,12 @@ public class PlanCost {
             return getStatistics((Project) node);
         } else if (node.getOpType() == OpType.SCAN) {
             return getStatistics((Scan) node);
+        } else if (node.getOpType() == OpType.DISTINCT) {
+            return getStatistics((Distinct) node);
+        } else if (node.getOpType() == OpType.SORT) {
+            return getStatistics((Sort) node);
+        } else if (node.getOpType() == OpType.LIMIT) {
+            return getStatistics((Limit) node);
         }
         System.out.println("operator is not supported");
         isFeasible = false;
@@ -98,6 +263,7 @@ public class PlanCost {
      **/
     protected long getStatistics(Join node) {
         long lefttuples = calculateCost(node.getLeft());
+        long leftcost = cost;
         long righttuples = calculateCost(node.getRight());
 
         if (!isFeasible) {
@@ -118,6 +284,11 @@ public class PlanCost {
         long leftpages = (long) Math.ceil(((double) lefttuples) / (double) leftcapacity);
         long rightpages = (long) Math.ceil(((double) righttuples) / (double) rightcapacity);
 
+        /** Distinct values of the attributes of the first condition, before they are updated below **/
+        Condition firstcon = node.getConditionList().get(0);
+        long leftkeydistn = ht.get(leftschema.getAttribute(leftschema.indexOf(firstcon.getLhs())));
+        long rightkeydistn = ht.get(rightschema.getAttribute(rightschema.indexOf((Attribute) firstcon.getRhs())));
+
         double tuples = (double) lefttuples * righttuples;
         for (Condition con : node.getConditionList()) {
             Attribute leftjoinAttr = con.getLhs();
@@ -137,12 +308,154 @@ public class PlanCost {
         }
         long outtuples = (long) Math.ceil(tuples);
 
-        /** Calculate the cost of the operation **/
-        int joinType = node.getJoinType();
-        long numbuff = BufferManager.getBuffersPerJoin();
+        /** Calculate the cost of the operation with the buffers granted to the join **/
+        BufferEstimate estimate = new BufferEstimate(node, leftpages, rightpages, lefttuples, leftcapacity, leftkeydistn, rightkeydistn);
+        long joincost = getJoinCost(estimate, getGrant(node));
+        if (joincost < 0) {
+            isFeasible = false;
+            return 0;
+        }
+        if (node.getJoinType() == JoinType.INDEXNESTED) {
+            /** Only the left input is executed, the right table is probed through its index **/
+            cost = leftcost;
+        }
+        cost = cost + joincost;
+        estimates.add(estimate);
+
+        return outtuples;
+    }
+
+    /**
+     * Duplicates are eliminated as the input is read, only the part of the input which does
+     * * not fit in the hash table is written out to partitions and read again
+     **/
+    protected long getStatistics(Distinct node) {
+        long intuples = calculateCost(node.getBase());
+        if (!isFeasible) {
+            return 0;
+        }
+
+        /** There are at most as many tuples as combinations of the distinct values of the columns **/
+        Schema schema = node.getSchema();
+        double combinations = 1;
+        for (int i = 0; i < schema.getNumCols(); ++i) {
+            Long distinct = ht.get(schema.getAttribute(i));
+            combinations *= distinct == null ? intuples : Math.max(1, distinct);
+        }
+        long outtuples = (long) Math.min(intuples, Math.ceil(combinations));
+
+        long capacity = Math.max(1, Batch.getPageSize() / schema.getTupleSize());
+        long inpages = (long) Math.ceil((double) intuples / capacity);
+        long outpages = (long) Math.ceil((double) outtuples / capacity);
+        BufferEstimate estimate = new BufferEstimate(node, inpages, outpages);
+        long distinctcost = getBufferCost(estimate, getGrant(node));
+        if (distinctcost < 0) {
+            isFeasible = false;
+            return 0;
+        }
+        cost = cost + distinctcost;
+        estimates.add(estimate);
+        return outtuples;
+    }
+
+    /**
+     * The input is written out as sorted runs and read back by the merges,
+     * * the number of tuples is unchanged unless only the first n are returned.
+     * * The sort keeps the equal share of the buffers and takes no part in the
+     * * allocation, the operators below give theirs back once its input is consumed.
+     **/
+    protected long getStatistics(Sort node) {
+        long intuples = calculateCost(node.getBase());
+        if (!isFeasible) {
+            return 0;
+        }
+        long capacity = Math.max(1, Batch.getPageSize() / node.getSchema().getTupleSize());
+        long pages = (long) Math.ceil((double) intuples / capacity);
+        long outtuples = intuples;
+        long outpages = pages;
+        if (node instanceof TopN) {
+            long limit = ((TopN) node).getLimit();
+            outtuples = Math.min(intuples, limit);
+            outpages = (long) Math.ceil((double) limit / capacity);
+        }
+        BufferEstimate estimate = new BufferEstimate(node, pages, outpages);
+        long sortcost = getBufferCost(estimate, getGrant(node));
+        if (sortcost < 0) {
+            isFeasible = false;
+            return 0;
+        }
+        cost = cost + sortcost;
+        return outtuples;
+    }
+
+    /**
+     * The cost of the base is kept in full, though it is not read
+     * * to the end if the first n tuples are found earlier
+     **/
+    protected long getStatistics(Limit node) {
+        long intuples = calculateCost(node.getBase());
+        return Math.min(intuples, node.getLimit());
+    }
+
+    /**
+     * Cost of the operator with the given number of buffers, -1 if it cannot run with them
+     **/
+    protected long getBufferCost(BufferEstimate in, long numbuff) {
+        if (in.node.getOpType() == OpType.DISTINCT) {
+            return getDistinctCost(in, numbuff);
+        } else if (in.node.getOpType() == OpType.SORT) {
+            return getSortCost(in, numbuff);
+        }
+        return getJoinCost(in, numbuff);
+    }
+
+    /**
+     * The runs are written out and read once by the final merge, every merge pass
+     * * before it reads and writes the input once more. The first n tuples of a top-n
+     * * are kept in memory if they fit in the buffers, and nothing is written out.
+     **/
+    protected long getSortCost(BufferEstimate in, long numbuff) {
+        if (numbuff < 3) {
+            return -1;
+        }
+        if (in.node instanceof TopN && in.outpages <= numbuff) {
+            return 0;
+        }
+        return 2 * in.leftpages * (1 + ExternalSort.estimatePasses(in.leftpages, numbuff));
+    }
+
+    /**
+     * The input tuples arriving once the table is full are written to partitions and read
+     * * again, in as many passes as it takes a partition of distinct tuples to fit the table
+     **/
+    protected long getDistinctCost(BufferEstimate in, long numbuff) {
+        if (numbuff < 3) {
+            return -1;
+        }
+        long numparts = Distinct.numDistinctPartitions((int) numbuff);
+        long resident = Math.max(1, numbuff - 2 - numparts);
+        if (in.outpages <= resident) {
+            return 0;
+        }
+        double spilledFraction = 1 - (double) resident / in.outpages;
+        double partpages = in.outpages * spilledFraction / numparts;
+        long passes = 1;
+        while (partpages > resident && passes < Distinct.MAXLEVEL) {
+            passes++;
+            partpages = partpages / numparts;
+        }
+        return 2 * (long) Math.ceil(in.leftpages * spilledFraction) * passes;
+    }
+
+    /**
+     * Cost of the join with the given number of buffers, -1 if it cannot run with them
+     **/
+    protected long getJoinCost(BufferEstimate in, long numbuff) {
+        long leftpages = in.leftpages;
+        long rightpages = in.rightpages;
         long joincost;
 
-        switch (joinType) {
+        switch (((Join) in.node).getJoinType()) {
             case JoinType.NESTEDJOIN:
                 joincost = leftpages + (leftpages * rightpages);
                 break;
@@ -150,17 +463,86 @@ public class PlanCost {
                 joincost = leftpages + (int)Math.ceil(leftpages / (numbuff - 2)) * rightpages;
                 break;
             case JoinType.SORTMERGE:
-                long leftSortCost = 2 * leftpages * (1 + (long) Math.ceil(Math.log((long) Math.ceil(leftpages/numbuff))/Math.log(numbuff - 1)));
-                long rightSortCost = 2 * rightpages * (1 + (long) Math.ceil(Math.log((long) Math.ceil(rightpages/numbuff))/Math.log(numbuff - 1)));
-                joincost = leftSortCost + rightSortCost + leftpages + rightpages;
+                /** Both inputs are written out as runs and read once by the final merge. Merge passes,
+                 ** which read and write a side once more, are only needed on the side with more runs
+                 ** until the runs of both sides fit in the (B-1) input buffers together **/
+                if (numbuff < 3) {
+                    return -1;
+                }
+                long leftruns = ExternalSort.estimateRuns(leftpages, numbuff);
+                long rightruns = ExternalSort.estimateRuns(rightpages, numbuff);
+                long fanin = ExternalSort.estimateFanIn(numbuff);
+                long leftpasses = 0;
+                long rightpasses = 0;
+                while (leftruns + rightruns > numbuff - 1) {
+                    if (leftruns >= rightruns) {
+                        leftruns = (long) Math.ceil((double) leftruns / fanin);
+                        leftpasses++;
+                    } else {
+                        rightruns = (long) Math.ceil((double) rightruns / fanin);
+                        rightpasses++;
+                    }
+                }
+                joincost = 2 * leftpages * (1 + leftpasses) + 2 * rightpages * (1 + rightpasses);
+                break;
+            case JoinType.HASHJOIN:
+                /** Every partitioning pass reads and writes both inputs once, further passes
+                 ** are needed until a left partition fits in the (B-2) build buffers **/
+                if (numbuff < 3) {
+                    return -1;
+                }
+                long partitionPasses = 1;
+                long partitionPages = (long) Math.ceil((double) leftpages / (numbuff - 1));
+                while (partitionPages > numbuff - 2) {
+                    partitionPasses++;
+                    partitionPages = (long) Math.ceil((double) partitionPages / (numbuff - 1));
+                }
+                joincost = 2 * (leftpages + rightpages) * partitionPasses + leftpages + rightpages;
+                break;
+            case JoinType.HYBRIDHASH:
+                if (numbuff < 3) {
+                    return -1;
+                }
+                joincost = leftpages + rightpages;
+                if (leftpages > numbuff - 2) {
+                    /** Only the fraction of both inputs in the spilled partitions is written and read again,
+                     ** the partitions which stay resident are joined while the inputs are read **/
+                    long numparts = HybridHashJoin.numHybridPartitions((int) numbuff);
+                    double partpages = (double) leftpages / numparts;
+                    long numspilled = numparts;
+                    if (partpages > 1) {
+                        numspilled = Math.min(numparts, (long) Math.ceil((leftpages - (numbuff - 2)) / (partpages - 1)));
+                    }
+                    double spilledFraction = (double) numspilled / numparts;
+                    long spillPasses = 1;
+                    while (partpages > numbuff - 2) {
+                        spillPasses++;
+                        partpages = Math.ceil(partpages / (numbuff - 1));
+                    }
+                    joincost += 2 * (long) Math.ceil((leftpages + rightpages) * spilledFraction) * spillPasses;
+                }
+                break;
+            case JoinType.INDEXNESTED:
+                /** The right table is not scanned. For every block of (B-2) left pages the distinct keys
+                 ** are looked up in the index from the root, and every right page holding one of
+                 ** the keys is read once **/
+                BPlusTree index = in.index;
+                if (numbuff < 3 || index == null) {
+                    return -1;
+                }
+                long blocks = (long) Math.ceil((double) leftpages / (numbuff - 2));
+                long blocktuples = Math.min(in.lefttuples, (numbuff - 2) * in.leftcapacity);
+                long blockkeys = Math.max(1, Math.min(in.leftkeydistn, blocktuples));
+                long datpages = Math.max(1, index.getNumDataPages());
+                double entries = (double) blockkeys * index.getNumEntries() / Math.max(1, in.rightkeydistn);
+                long probepages = (long) Math.ceil(datpages * (1 - Math.pow(1 - 1.0 / datpages, entries)));
+                joincost = leftpages + blocks * (blockkeys * index.getHeight() + probepages);
                 break;
             default:
                 System.out.println("join type is not supported");
-                return 0;
+                joincost = 0;
         }
-        cost = cost + joincost;
-
-        return outtuples;
+        return joincost;
     }
 
     /**
@@ -175,27 +557,24 @@ public class PlanCost {
             return Long.MAX_VALUE;
         }
 
-        Condition con = node.getCondition();
-        Schema schema = node.getSchema();
-        Attribute attr = con.getLhs();
-        int index = schema.indexOf(attr);
-        Attribute fullattr = schema.getAttribute(index);
-        int exprtype = con.getExprType();
-
-        /** Get number of distinct values of selection attributes **/
-        long numdistinct = intuples;
-        Long temp = ht.get(fullattr);
-        numdistinct = temp.longValue();
+        double[] selectivity = new double[node.getConditionList().size()];
+        long outtuples = getSelectedTuples(node.getConditionList(), node.getSchema(), intuples, selectivity);
+        selectivities.put(node, selectivity);
+        return outtuples;
+    }
 
-        long outtuples;
-        /** Calculate the number of tuples in result **/
-        if (exprtype == Condition.EQUAL) {
-            outtuples = (long) Math.ceil((double) intuples / (double) numdistinct);
-        } else if (exprtype == Condition.NOTEQUAL) {
-            outtuples = (long) Math.ceil(intuples - ((double) intuples / (double) numdistinct));
-        } else {
-            outtuples = (long) Math.ceil(0.5 * intuples);
+    /**
+     * Number of the input tuples satisfying all the selection conditions, the
+     * * selectivity of every condition is stored in the given array
+     **/
+    protected long getSelectedTuples(ArrayList<Condition> conditionList, Schema schema, long intuples, double[] selectivity) {
+        /** Each condition is estimated on the input, assuming the conditions are independent **/
+        double fraction = 1;
+        for (int i = 0; i < conditionList.size(); ++i) {
+            selectivity[i] = getSelectivity(conditionList.get(i), schema);
+            fraction *= selectivity[i];
         }
+        long outtuples = (long) Math.ceil(fraction * intuples);
 
         /** Modify the number of distinct values of each attribute
          ** Assuming the values are distributed uniformly along entire
@@ -210,17 +589,103 @@ public class PlanCost {
         return outtuples;
     }
 
+    /**
+     * Fraction of the tuples satisfying a selection condition
+     **/
+    protected double getSelectivity(Condition con, Schema schema) {
+        Attribute attr = con.getLhs();
+        int index = schema.indexOf(attr);
+        Attribute fullattr = schema.getAttribute(index);
+        int exprtype = con.getExprType();
+
+        /** Get number of distinct values of selection attributes **/
+        long numdistinct = Math.max(1, ht.get(fullattr));
+        if (con.getRhs() instanceof Attribute) {
+            /** A comparison of two attributes is estimated like a join **/
+            Attribute rightattr = schema.getAttribute(schema.indexOf((Attribute) con.getRhs()));
+            numdistinct = Math.max(numdistinct, ht.get(rightattr));
+        }
+        if (exprtype == Condition.EQUAL) {
+            return 1.0 / numdistinct;
+        } else if (exprtype == Condition.NOTEQUAL) {
+            return 1.0 - 1.0 / numdistinct;
+        } else {
+            return 0.5;
+        }
+    }
+
     /**
      * The statistics file <tablename>.stat to find the statistics
      * * about that table;
      * * This table contains number of tuples in the table
      * * number of distinct values of each attribute
+     * * The selection conditions pushed into the scan are
+     * * evaluated on the fly, so no cost involved
      **/
     protected long getStatistics(Scan node) {
         String tablename = node.getTabName();
         String filename = tablename + ".stat";
-        Schema schema = node.getSchema();
+        Schema schema = node.getBaseSchema();
         int numAttr = schema.getNumCols();
+        long[] stats = TableMetadata.get(filename, f -> readStatistics(f, numAttr));
+        long numtuples = stats[0];
+        for (int i = 0; i < numAttr; ++i) {
+            ht.put(schema.getAttribute(i), stats[i + 1]);
+        }
+
+        /** The pages of the table file are counted, they are written with their own page size
+         ** which is kept in the header. Without a table file the tuples are read from the .tbl
+         ** file, all the columns are on the pages read from disk.
+         **/
+        long numpages;
+        TableFile table = TableMetadata.header(tablename);
+        long filepages = table != null ? table.getNumPages() : -1;
+        if (filepages >= 0) {
+            numpages = filepages;
+        } else {
+            long tuplesize = schema.getTupleSize();
+            long pagesize = Math.max(Batch.getPageSize() / tuplesize, 1);
+            numpages = (long) Math.ceil((double) numtuples / (double) pagesize);
+        }
+
+        BPlusTree index = node instanceof IndexScan ? ((IndexScan) node).getIndex() : null;
+        if (index != null) {
+            /** The index is traversed from the root, then the leaves holding the selected keys
+             ** are read, and every data page holding one of the selected tuples is read once
+             **/
+            double fraction = 1;
+            for (Condition con : ((IndexScan) node).getIndexConditions()) {
+                fraction *= getSelectivity(con, schema);
+            }
+            double selected = Math.ceil(fraction * numtuples);
+            long leafpages = (long) Math.ceil(fraction * index.getNumLeaves());
+            long datapages = (long) Math.ceil(numpages * (1 - Math.pow(1 - 1.0 / Math.max(numpages, 1), selected)));
+            numpages = index.getHeight() - 1 + Math.max(1, leafpages) + datapages;
+        } else if (!node.getPredicates().isEmpty()) {
+            /** Only the pages the zone map and the bitmap indexes cannot rule out for the selections are read **/
+            BitSet pages = Scan.candidatePages(tablename, node.getPredicates(), schema);
+            if (pages != null && filepages > 0) {
+                numpages = pages.cardinality();
+            }
+        }
+
+        cost = cost + numpages;
+
+        if (!node.getPredicates().isEmpty()) {
+            ArrayList<Condition> predicates = node.getPredicates();
+            double[] selectivity = new double[predicates.size()];
+            long outtuples = getSelectedTuples(predicates, schema, numtuples, selectivity);
+            selectivities.put(node, selectivity);
+            return outtuples;
+        }
+        return numtuples;
+    }
+
+    /**
+     * Reads the statistics file <tablename>.stat, the number of tuples
+     * * followed by the number of distinct values of every attribute
+     **/
+    private static long[] readStatistics(String filename, int numAttr) {
         BufferedReader in = null;
         try {
             in = new BufferedReader(new FileReader(filename));
@@ -255,27 +720,19 @@ public class PlanCost {
             System.out.println("incorrect format of statastics file " + filename);
             System.exit(1);
         }
+        long[] stats = new long[numAttr + 1];
+        stats[0] = numtuples;
         for (int i = 0; i < numAttr; ++i) {
-            Attribute attr = schema.getAttribute(i);
             temp = tokenizer.nextToken();
-            Long distinctValues = Long.valueOf(temp);
-            ht.put(attr, distinctValues);
+            stats[i + 1] = Long.parseLong(temp);
         }
-
-        /** Number of tuples per page**/
-        long tuplesize = schema.getTupleSize();
-        long pagesize = Math.max(Batch.getPageSize() / tuplesize, 1);
-        long numpages = (long) Math.ceil((double) numtuples / (double) pagesize);
-
-        cost = cost + numpages;
-
         try {
             in.close();
         } catch (IOException io) {
             System.out.println("error in closing the file " + filename);
             System.exit(1);
         }
-        return numtuples;
+        return stats;
     }
 
 }
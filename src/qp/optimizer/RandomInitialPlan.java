@@ -33,16 +33,42 @@ public class RandomInitialPlan {
         selectionlist = sqlquery.getSelectionList();
         joinlist = sqlquery.getJoinList();
         groupbylist = sqlquery.getGroupByList();
-        numJoin = joinlist.size();
+        numJoin = countJoins();
     }
 
     /**
-     * number of join conditions
+     * number of join operators, a join condition closing a cycle
+     * * of the join graph is checked by a selection instead
      **/
     public int getNumJoins() {
         return numJoin;
     }
 
+    /**
+     * Number of joins needed to connect the tables of the join conditions,
+     * * the other join conditions close cycles of the join graph
+     **/
+    private int countJoins() {
+        HashMap<String, Integer> component = new HashMap<>();
+        for (int i = 0; i < fromlist.size(); ++i) {
+            component.put(fromlist.get(i), i);
+        }
+        int joins = 0;
+        for (Condition cn : joinlist) {
+            int left = component.get(cn.getLhs().getTabName());
+            int right = component.get(((Attribute) cn.getRhs()).getTabName());
+            if (left != right) {
+                joins++;
+                for (HashMap.Entry<String, Integer> entry : component.entrySet()) {
+                    if (entry.getValue() == right) {
+                        entry.setValue(left);
+                    }
+                }
+            }
+        }
+        return joins;
+    }
+
     /**
      * prepare initial plan for the query
      **/
@@ -56,19 +82,65 @@ public class RandomInitialPlan {
         tab_op_hash = new HashMap<>();
         createScanOp();
         createSelectOp();
-        if (numJoin != 0) {
+        createIndexScanOp();
+        if (!joinlist.isEmpty()) {
             createJoinOp();
         }
         createProjectOp();
+        if (sqlquery.isDistinct()) {
+            createDistinctOp();
+        }
+        if (!sqlquery.getOrderByList().isEmpty()) {
+            createSortOp();
+        } else if (sqlquery.hasLimit()) {
+            createLimitOp();
+        }
 
         return root;
     }
 
+    /**
+     * Attributes the query refers to, null if all the attributes are needed
+     * * because the query projects all of them
+     **/
+    public ArrayList<Attribute> getRequiredColumns() {
+        if (projectlist == null || projectlist.isEmpty()) {
+            return null;
+        }
+        ArrayList<Attribute> required = new ArrayList<>();
+        for (Attribute attr : projectlist) {
+            addRequired(required, attr.getBaseAttribute());
+        }
+        ArrayList<Condition> conditions = new ArrayList<>(selectionlist);
+        conditions.addAll(joinlist);
+        for (Condition cn : conditions) {
+            addRequired(required, cn.getLhs());
+            if (cn.getRhs() instanceof Attribute) {
+                addRequired(required, (Attribute) cn.getRhs());
+            }
+        }
+        for (Attribute attr : groupbylist) {
+            addRequired(required, attr.getBaseAttribute());
+        }
+        for (Attribute attr : sqlquery.getOrderByList()) {
+            addRequired(required, attr.getBaseAttribute());
+        }
+        return required;
+    }
+
+    private void addRequired(ArrayList<Attribute> required, Attribute attr) {
+        if (!required.contains(attr)) {
+            required.add(attr);
+        }
+    }
+
     /**
      * Create Scan Operator for each of the table
-     * * mentioned in from list
+     * * mentioned in from list, every scan only reads
+     * * the columns of its table the query refers to
      **/
     public void createScanOp() {
+        ArrayList<Attribute> required = getRequiredColumns();
         int numtab = fromlist.size();
         Scan tempop = null;
         for (int i = 0; i < numtab; ++i) {  // For each table in from list
@@ -85,6 +157,9 @@ public class RandomInitialPlan {
                 Schema schm = (Schema) _if.readObject();
                 op1.setSchema(schm);
                 _if.close();
+                if (required != null) {
+                    op1.setColumns(required);
+                }
             } catch (Exception e) {
                 System.err.println("RandomInitialPlan:Error reading Schema of the table " + filename);
                 System.err.println(e);
@@ -106,70 +181,119 @@ public class RandomInitialPlan {
     }
 
     /**
-     * Create Selection Operators for each of the
-     * * selection condition mentioned in Condition list
+     * Push the selection conditions mentioned in Condition list into
+     * * the scan of their table, the scan evaluates them while it decodes
+     * * the tuples, so no separate Selection Operator is needed
      **/
     public void createSelectOp() {
-        Select op1 = null;
+        Operator op1 = null;
         for (int j = 0; j < selectionlist.size(); ++j) {
             Condition cn = selectionlist.get(j);
-            if (cn.getOpType() == Condition.SELECT) {
-                String tabname = cn.getLhs().getTabName();
-                Operator tempop = (Operator) tab_op_hash.get(tabname);
-                op1 = new Select(tempop, cn, OpType.SELECT);
-                /** set the schema same as base relation **/
-                op1.setSchema(tempop.getSchema());
-                modifyHashtable(tempop, op1);
-            }
+            String tabname = cn.getLhs().getTabName();
+            op1 = tab_op_hash.get(tabname);
+            ((Scan) op1).addPredicate(cn);
         }
 
-        /** The last selection is the root of the plan tre
+        /** The scan of the last selection is the root of the plan tree
          ** constructed thus far
          **/
         if (selectionlist.size() != 0)
             root = op1;
     }
 
+    /**
+     * Replace the scan of every table by an index scan when an index on
+     * * one of its selection attributes makes it cheaper to read
+     **/
+    public void createIndexScanOp() {
+        for (String tabname : fromlist) {
+            Scan scan = (Scan) tab_op_hash.get(tabname);
+            Scan best = scan;
+            long mincost = new PlanCost().getCost(scan);
+            ArrayList<Attribute> considered = new ArrayList<>();
+            for (Condition cn : scan.getPredicates()) {
+                Attribute attr = cn.getLhs();
+                if (!BPlusTree.isIndexable(cn) || considered.contains(attr)) {
+                    continue;
+                }
+                considered.add(attr);
+                if (BPlusTree.of(tabname, attr.getColName()) == null) {
+                    continue;
+                }
+                IndexScan indexscan = new IndexScan(scan, attr);
+                long cost = new PlanCost().getCost(indexscan);
+                if (cost < mincost) {
+                    best = indexscan;
+                    mincost = cost;
+                }
+            }
+            if (best != scan) {
+                modifyHashtable(scan, best);
+                if (root == scan) {
+                    root = best;
+                }
+            }
+        }
+    }
+
     /**
      * create join operators
      **/
     public void createJoinOp() {
-        BitSet bitCList = new BitSet(numJoin);
-        int jnnum = RandNumb.randInt(0, numJoin - 1);
-        Join jn = null;
+        int numCond = joinlist.size();
+        BitSet bitCList = new BitSet(numCond);
+        int jnnum = RandNumb.randInt(0, numCond - 1);
+        int nodeIndex = 0;
+        Operator last = null;
 
         /** Repeat until all the join conditions are considered **/
-        while (bitCList.cardinality() != numJoin) {
+        while (bitCList.cardinality() != numCond) {
             /** If this condition is already consider chose
              ** another join condition
              **/
             while (bitCList.get(jnnum)) {
-                jnnum = RandNumb.randInt(0, numJoin - 1);
+                jnnum = RandNumb.randInt(0, numCond - 1);
             }
             Condition cn = (Condition) joinlist.get(jnnum);
             String lefttab = cn.getLhs().getTabName();
             String righttab = ((Attribute) cn.getRhs()).getTabName();
             Operator left = (Operator) tab_op_hash.get(lefttab);
             Operator right = (Operator) tab_op_hash.get(righttab);
-            jn = new Join(left, right, cn, OpType.JOIN);
-            jn.setNodeIndex(jnnum);
+            bitCList.set(jnnum);
+
+            /** Both tables are joined already, the condition closes a cycle
+             ** of the join graph and is checked on the result of that join
+             **/
+            if (left == right) {
+                Select sel = new Select(left, cn, OpType.SELECT);
+                sel.setSchema(left.getSchema());
+                modifyHashtable(left, sel);
+                last = sel;
+                continue;
+            }
+
+            Join jn = new Join(left, right, cn, OpType.JOIN);
+            jn.setNodeIndex(nodeIndex++);
             Schema newsche = left.getSchema().joinWith(right.getSchema());
             jn.setSchema(newsche);
 
             /** randomly select a join type**/
             int numJMeth = JoinType.numJoinTypes();
             int joinMeth = RandNumb.randInt(0, numJMeth - 1);
+            if (JoinType.getForced() >= 0) {
+                joinMeth = JoinType.getForced();
+            }
             jn.setJoinType(joinMeth);
             modifyHashtable(left, jn);
             modifyHashtable(right, jn);
-            bitCList.set(jnnum);
+            last = jn;
         }
 
         /** The last join operation is the root for the
          ** constructed till now
          **/
-        if (numJoin != 0)
-            root = jn;
+        if (last != null)
+            root = last;
     }
 
     public void createProjectOp() {
@@ -184,6 +308,40 @@ public class RandomInitialPlan {
         }
     }
 
+    /**
+     * Duplicates are eliminated on the projected result
+     **/
+    public void createDistinctOp() {
+        Operator base = root;
+        root = new Distinct(base, OpType.DISTINCT);
+        root.setSchema(base.getSchema());
+    }
+
+    /**
+     * The result is sorted last, every attribute in its own direction.
+     * * With a LIMIT only the first tuples of the sorted result are kept.
+     **/
+    public void createSortOp() {
+        Operator base = root;
+        ArrayList<Attribute> sortlist = sqlquery.getOrderByList();
+        boolean[] descending = new boolean[sortlist.size()];
+        for (int i = 0; i < descending.length; ++i) {
+            descending[i] = sqlquery.isDesc(i);
+        }
+        if (sqlquery.hasLimit()) {
+            root = new TopN(base, sortlist, descending, sqlquery.getLimit(), OpType.SORT);
+        } else {
+            root = new Sort(base, sortlist, descending, OpType.SORT);
+        }
+        root.setSchema(base.getSchema());
+    }
+
+    public void createLimitOp() {
+        Operator base = root;
+        root = new Limit(base, sqlquery.getLimit(), OpType.LIMIT);
+        root.setSchema(base.getSchema());
+    }
+
     private void modifyHashtable(Operator old, Operator newop) {
         for (HashMap.Entry<String, Operator> entry : tab_op_hash.entrySet()) {
             if (entry.getValue().equals(old)) {
@@ -40,14 +40,15 @@ public class RandomOptimizer {
     /**
      * After finding a choice of method for each operator
      * * prepare an execution plan by replacing the methods with
-     * * corresponding join operator implementation
+     * * corresponding join operator implementation. The operators
+     * * get the buffers and selectivities estimated for the plan.
      **/
-    public static Operator makeExecPlan(Operator node) {
+    public static Operator makeExecPlan(Operator node, PlanCost pc) {
         if (node.getOpType() == OpType.JOIN) {
-            Operator left = makeExecPlan(((Join) node).getLeft());
-            Operator right = makeExecPlan(((Join) node).getRight());
+            Operator left = makeExecPlan(((Join) node).getLeft(), pc);
+            Operator right = makeExecPlan(((Join) node).getRight(), pc);
             int joinType = ((Join) node).getJoinType();
-            int numbuff = BufferManager.getBuffersPerJoin();
+            int numbuff = pc.getGrant((Join) node);
 
             switch (joinType) {
                 case JoinType.NESTEDJOIN:
@@ -68,16 +69,55 @@ public class RandomOptimizer {
                     sm.setRight(right);
                     sm.setNumBuff(numbuff);
                     return sm;
+                case JoinType.HASHJOIN:
+                    HashJoin hj = new HashJoin((Join) node);
+                    hj.setLeft(left);
+                    hj.setRight(right);
+                    hj.setNumBuff(numbuff);
+                    return hj;
+                case JoinType.HYBRIDHASH:
+                    HybridHashJoin hh = new HybridHashJoin((Join) node);
+                    hh.setLeft(left);
+                    hh.setRight(right);
+                    hh.setNumBuff(numbuff);
+                    return hh;
+                case JoinType.INDEXNESTED:
+                    IndexNestedJoin ij = new IndexNestedJoin((Join) node);
+                    ij.setLeft(left);
+                    ij.setRight(right);
+                    ij.setNumBuff(numbuff);
+                    return ij;
                 default:
                     return node;
             }
         } else if (node.getOpType() == OpType.SELECT) {
-            Operator base = makeExecPlan(((Select) node).getBase());
+            Operator base = makeExecPlan(((Select) node).getBase(), pc);
             ((Select) node).setBase(base);
+            ((Select) node).setSelectivity(pc.getSelectivity(node));
             return node;
         } else if (node.getOpType() == OpType.PROJECT) {
-            Operator base = makeExecPlan(((Project) node).getBase());
+            Operator base = makeExecPlan(((Project) node).getBase(), pc);
             ((Project) node).setBase(base);
+            if (((Project) node).hasAggregation()) {
+                node.setNumBuff(pc.getGrant(node));
+            }
+            return node;
+        } else if (node.getOpType() == OpType.DISTINCT) {
+            Operator base = makeExecPlan(((Distinct) node).getBase(), pc);
+            ((Distinct) node).setBase(base);
+            node.setNumBuff(pc.getGrant(node));
+            return node;
+        } else if (node.getOpType() == OpType.SORT) {
+            Operator base = makeExecPlan(((Sort) node).getBase(), pc);
+            ((Sort) node).setBase(base);
+            node.setNumBuff(pc.getGrant(node));
+            return node;
+        } else if (node.getOpType() == OpType.LIMIT) {
+            Operator base = makeExecPlan(((Limit) node).getBase(), pc);
+            ((Limit) node).setBase(base);
+            return node;
+        } else if (node.getOpType() == OpType.SCAN) {
+            ((Scan) node).setSelectivity(pc.getSelectivity(node));
             return node;
         } else {
             return node;
@@ -129,38 +169,13 @@ public class RandomOptimizer {
          *  the maximum specified number of random restarts (NUMITER)
          *  has satisfied
          **/
-        ArrayList<Attribute> orderByList = this.sqlquery.getOrderByList();
         for (int j = 0; j < NUMITER; ++j) {
             Operator initPlan = rip.prepareInitialPlan();
             modifySchema(initPlan);
             System.out.println("-----------initial Plan-------------");
-            //ArrayList<Attribute> orderByList = this.sqlquery.getOrderByList();
-            if(orderByList.size() > 0) {
-                initPlan.setOrderByList(orderByList);
-                initPlan.setIsDesc(this.sqlquery.isDesc());
-                System.out.print("OrderBy(");
-            }
-            if(this.sqlquery.isDistinct()){
-                initPlan.setIsDistinct(true);
-                System.out.print("Distinct(");
-            }
             Debug.PPrint(initPlan);
-            if(this.sqlquery.isDistinct()){
-                System.out.print(")");
-            }
-
-            if(orderByList.size() > 0) {
-                System.out.print(", <");
-                
-                for (int k = 0; k < orderByList.size(); k++) {
-                    System.out.print(orderByList.get(k));
-                    if (k + 1 != orderByList.size())
-                        System.out.print(", ");
-                }
-                System.out.print(">) ");
-            }
             PlanCost pc = new PlanCost();
-            long initCost = pc.getCost(initPlan);
+            long initCost = pc.allocateBuffers(initPlan);
             System.out.println(initCost);
 
             boolean flag = true;
@@ -175,7 +190,7 @@ public class RandomOptimizer {
                     System.out.println("--------------------------neighbor---------------");
                     Debug.PPrint(minNeighbor);
                     pc = new PlanCost();
-                    minNeighborCost = pc.getCost(minNeighbor);
+                    minNeighborCost = pc.allocateBuffers(minNeighbor);
                     System.out.println("  " + minNeighborCost);
 
                     /** In this loop we consider from the
@@ -190,7 +205,7 @@ public class RandomOptimizer {
                         pc = new PlanCost();
                         long neighborCost = 0;
                         try {
-                            neighborCost = pc.getCost(neighbor);
+                            neighborCost = pc.allocateBuffers(neighbor);
                         } catch (Exception e) {
                             System.out.println("fatal error.");
                             System.exit(0);
@@ -222,30 +237,7 @@ public class RandomOptimizer {
         }
         System.out.println("\n\n\n");
         System.out.println("---------------------------Final Plan----------------");
-        if(orderByList.size() > 0) {
-            finalPlan.setOrderByList(orderByList);
-            finalPlan.setIsDesc(this.sqlquery.isDesc());
-            System.out.print("OrderBy(");
-        }
-        if(this.sqlquery.isDistinct()){
-            finalPlan.setIsDistinct(true);
-            System.out.print("Distinct(");
-        }
         Debug.PPrint(finalPlan);
-        if(this.sqlquery.isDistinct()){
-            System.out.print(")");
-        }
-
-        if(orderByList.size() > 0) {
-            System.out.print(", <");
-            
-            for (int k = 0; k < orderByList.size(); k++) {
-                System.out.print(orderByList.get(k));
-                if (k + 1 != orderByList.size())
-                    System.out.print(", ");
-            }
-            System.out.print(">)");
-        }
         System.out.println("  " + MINCOST);
         return finalPlan;
     }
@@ -259,7 +251,7 @@ public class RandomOptimizer {
     protected Operator neighborMeth(Operator root, int joinNum) {
         System.out.println("------------------neighbor by method change----------------");
         int numJMeth = JoinType.numJoinTypes();
-        if (numJMeth > 1) {
+        if (numJMeth > 1 && JoinType.getForced() < 0) {
             /** find the node that is to be altered **/
             Join node = (Join) findNodeAt(root, joinNum);
             int prevJoinMeth = node.getJoinType();
@@ -423,6 +415,12 @@ public class RandomOptimizer {
             return findNodeAt(((Select) node).getBase(), joinNum);
         } else if (node.getOpType() == OpType.PROJECT) {
             return findNodeAt(((Project) node).getBase(), joinNum);
+        } else if (node.getOpType() == OpType.DISTINCT) {
+            return findNodeAt(((Distinct) node).getBase(), joinNum);
+        } else if (node.getOpType() == OpType.SORT) {
+            return findNodeAt(((Sort) node).getBase(), joinNum);
+        } else if (node.getOpType() == OpType.LIMIT) {
+            return findNodeAt(((Limit) node).getBase(), joinNum);
         } else {
             return null;
         }
@@ -447,6 +445,18 @@ public class RandomOptimizer {
             modifySchema(base);
             ArrayList attrlist = ((Project) node).getProjAttr();
             node.setSchema(base.getSchema().subSchema(attrlist));
+        } else if (node.getOpType() == OpType.DISTINCT) {
+            Operator base = ((Distinct) node).getBase();
+            modifySchema(base);
+            node.setSchema(base.getSchema());
+        } else if (node.getOpType() == OpType.SORT) {
+            Operator base = ((Sort) node).getBase();
+            modifySchema(base);
+            node.setSchema(base.getSchema());
+        } else if (node.getOpType() == OpType.LIMIT) {
+            Operator base = ((Limit) node).getBase();
+            modifySchema(base);
+            node.setSchema(base.getSchema());
         }
     }
 }
@@ -1,7 +1,7 @@
 
 //----------------------------------------------------
 // The following code was generated by CUP v0.10k
-// Thu Feb 25 10:53:50 SGT 2021
+// Sat Oct 17 21:06:00 UTC 2026
 //----------------------------------------------------
 
 package qp.parser;
@@ -11,7 +11,7 @@ import java_cup.runtime.*;
 import java.util.*;
 
 /** CUP v0.10k generated parser.
-  * @version Thu Feb 25 10:53:50 SGT 2021
+  * @version Sat Oct 17 21:06:00 UTC 2026
   */
 public class parser extends java_cup.runtime.lr_parser {
 
@@ -24,18 +24,20 @@ public class parser extends java_cup.runtime.lr_parser {
   /** Production table. */
   protected static final short _production_table[][] = 
     unpackFromStrings(new String[] {
-    "\000\046\000\002\003\003\000\002\002\004\000\002\003" +
-    "\005\000\002\003\005\000\002\003\007\000\002\003\006" +
-    "\000\002\003\010\000\002\004\010\000\002\004\010\000" +
-    "\002\004\006\000\002\004\006\000\002\004\011\000\002" +
-    "\004\011\000\002\004\007\000\002\004\007\000\002\005" +
-    "\005\000\002\005\003\000\002\007\005\000\002\007\003" +
-    "\000\002\010\005\000\002\010\003\000\002\011\005\000" +
-    "\002\011\005\000\002\011\004\000\002\011\004\000\002" +
-    "\006\005\000\002\006\006\000\002\006\006\000\002\006" +
-    "\006\000\002\006\006\000\002\006\006\000\002\006\004" +
-    "\000\002\012\003\000\002\012\003\000\002\012\003\000" +
-    "\002\012\003\000\002\012\003\000\002\012\003" });
+    "\000\053\000\002\003\003\000\002\002\004\000\002\003" +
+    "\005\000\002\004\003\000\002\004\005\000\002\004\005" +
+    "\000\002\004\007\000\002\005\010\000\002\005\010\000" +
+    "\002\005\006\000\002\005\006\000\002\005\011\000\002" +
+    "\005\011\000\002\005\007\000\002\005\007\000\002\006" +
+    "\005\000\002\006\003\000\002\007\005\000\002\007\003" +
+    "\000\002\010\003\000\002\010\004\000\002\010\004\000" +
+    "\002\012\005\000\002\012\003\000\002\013\005\000\002" +
+    "\013\003\000\002\014\005\000\002\014\005\000\002\014" +
+    "\004\000\002\014\004\000\002\011\005\000\002\011\006" +
+    "\000\002\011\006\000\002\011\006\000\002\011\006\000" +
+    "\002\011\006\000\002\011\004\000\002\015\003\000\002" +
+    "\015\003\000\002\015\003\000\002\015\003\000\002\015" +
+    "\003\000\002\015\003" });
 
   /** Access to production table. */
   public short[][] production_table() {return _production_table;}
@@ -43,90 +45,101 @@ public class parser extends java_cup.runtime.lr_parser {
   /** Parse-action table. */
   protected static final short[][] _action_table = 
     unpackFromStrings(new String[] {
-    "\000\120\000\004\020\006\001\002\000\010\002\001\023" +
-    "\114\024\113\001\002\000\004\002\112\001\002\000\022" +
-    "\004\016\011\014\025\013\026\020\027\010\030\012\031" +
-    "\007\032\015\001\002\000\004\006\107\001\002\000\004" +
-    "\006\104\001\002\000\014\002\ufff1\005\ufff1\021\ufff1\024" +
-    "\ufff1\033\ufff1\001\002\000\004\006\101\001\002\000\004" +
-    "\006\076\001\002\000\004\021\072\001\002\000\020\004" +
-    "\016\011\060\025\013\026\020\027\010\030\012\031\007" +
-    "\001\002\000\006\003\055\010\056\001\002\000\006\005" +
-    "\024\021\025\001\002\000\004\006\021\001\002\000\016" +
-    "\004\016\025\013\026\020\027\010\030\012\031\007\001" +
-    "\002\000\004\007\023\001\002\000\036\002\uffe6\003\uffe6" +
-    "\005\uffe6\007\uffe6\012\uffe6\013\uffe6\014\uffe6\015\uffe6\016" +
-    "\uffe6\017\uffe6\021\uffe6\023\uffe6\024\uffe6\033\uffe6\001\002" +
-    "\000\016\004\016\025\013\026\020\027\010\030\012\031" +
-    "\007\001\002\000\004\004\026\001\002\000\014\002\uffef" +
-    "\005\uffef\022\uffef\023\uffef\024\uffef\001\002\000\014\002" +
-    "\ufff8\005\030\022\031\023\ufff8\024\ufff8\001\002\000\004" +
-    "\004\053\001\002\000\020\003\034\004\016\025\013\026" +
-    "\020\027\010\030\012\031\007\001\002\000\020\003\042" +
-    "\012\044\013\046\014\047\015\041\016\043\017\045\001" +
-    "\002\000\012\002\uffed\005\uffed\023\uffed\024\uffed\001\002" +
-    "\000\004\034\040\001\002\000\012\002\ufffa\005\036\023" +
-    "\ufffa\024\ufffa\001\002\000\020\003\034\004\016\025\013" +
-    "\026\020\027\010\030\012\031\007\001\002\000\012\002" +
-    "\uffee\005\uffee\023\uffee\024\uffee\001\002\000\012\002\uffe9" +
-    "\005\uffe9\023\uffe9\024\uffe9\001\002\000\020\004\uffde\025" +
-    "\uffde\026\uffde\027\uffde\030\uffde\031\uffde\034\uffde\001\002" +
-    "\000\012\002\uffea\005\uffea\023\uffea\024\uffea\001\002\000" +
-    "\020\004\uffdc\025\uffdc\026\uffdc\027\uffdc\030\uffdc\031\uffdc" +
-    "\034\uffdc\001\002\000\020\004\uffe1\025\uffe1\026\uffe1\027" +
-    "\uffe1\030\uffe1\031\uffe1\034\uffe1\001\002\000\020\004\uffdd" +
-    "\025\uffdd\026\uffdd\027\uffdd\030\uffdd\031\uffdd\034\uffdd\001" +
-    "\002\000\020\004\uffe0\025\uffe0\026\uffe0\027\uffe0\030\uffe0" +
-    "\031\uffe0\034\uffe0\001\002\000\020\004\uffdf\025\uffdf\026" +
-    "\uffdf\027\uffdf\030\uffdf\031\uffdf\034\uffdf\001\002\000\020" +
-    "\004\016\025\013\026\020\027\010\030\012\031\007\034" +
-    "\052\001\002\000\012\002\uffeb\005\uffeb\023\uffeb\024\uffeb" +
-    "\001\002\000\012\002\uffec\005\uffec\023\uffec\024\uffec\001" +
-    "\002\000\014\002\ufff0\005\ufff0\022\ufff0\023\ufff0\024\ufff0" +
-    "\001\002\000\014\002\ufff2\005\ufff2\021\ufff2\024\ufff2\033" +
-    "\ufff2\001\002\000\036\002\uffe2\003\uffe2\005\uffe2\007\uffe2" +
-    "\012\uffe2\013\uffe2\014\uffe2\015\uffe2\016\uffe2\017\uffe2\021" +
-    "\uffe2\023\uffe2\024\uffe2\033\uffe2\001\002\000\004\004\057" +
-    "\001\002\000\036\002\uffe8\003\uffe8\005\uffe8\007\uffe8\012" +
-    "\uffe8\013\uffe8\014\uffe8\015\uffe8\016\uffe8\017\uffe8\021\uffe8" +
-    "\023\uffe8\024\uffe8\033\uffe8\001\002\000\004\021\066\001" +
-    "\002\000\006\005\024\021\062\001\002\000\004\004\026" +
-    "\001\002\000\014\002\ufff4\005\030\022\064\023\ufff4\024" +
-    "\ufff4\001\002\000\020\003\034\004\016\025\013\026\020" +
-    "\027\010\030\012\031\007\001\002\000\012\002\ufff6\005" +
-    "\036\023\ufff6\024\ufff6\001\002\000\004\004\026\001\002" +
-    "\000\014\002\ufff3\005\030\022\070\023\ufff3\024\ufff3\001" +
-    "\002\000\020\003\034\004\016\025\013\026\020\027\010" +
-    "\030\012\031\007\001\002\000\012\002\ufff5\005\036\023" +
-    "\ufff5\024\ufff5\001\002\000\004\004\026\001\002\000\014" +
-    "\002\ufff7\005\030\022\074\023\ufff7\024\ufff7\001\002\000" +
-    "\020\003\034\004\016\025\013\026\020\027\010\030\012" +
-    "\031\007\001\002\000\012\002\ufff9\005\036\023\ufff9\024" +
-    "\ufff9\001\002\000\016\004\016\025\013\026\020\027\010" +
-    "\030\012\031\007\001\002\000\004\007\100\001\002\000" +
-    "\036\002\uffe7\003\uffe7\005\uffe7\007\uffe7\012\uffe7\013\uffe7" +
-    "\014\uffe7\015\uffe7\016\uffe7\017\uffe7\021\uffe7\023\uffe7\024" +
-    "\uffe7\033\uffe7\001\002\000\016\004\016\025\013\026\020" +
-    "\027\010\030\012\031\007\001\002\000\004\007\103\001" +
-    "\002\000\036\002\uffe4\003\uffe4\005\uffe4\007\uffe4\012\uffe4" +
-    "\013\uffe4\014\uffe4\015\uffe4\016\uffe4\017\uffe4\021\uffe4\023" +
-    "\uffe4\024\uffe4\033\uffe4\001\002\000\016\004\016\025\013" +
-    "\026\020\027\010\030\012\031\007\001\002\000\004\007" +
-    "\106\001\002\000\036\002\uffe5\003\uffe5\005\uffe5\007\uffe5" +
-    "\012\uffe5\013\uffe5\014\uffe5\015\uffe5\016\uffe5\017\uffe5\021" +
-    "\uffe5\023\uffe5\024\uffe5\033\uffe5\001\002\000\016\004\016" +
-    "\025\013\026\020\027\010\030\012\031\007\001\002\000" +
-    "\004\007\111\001\002\000\036\002\uffe3\003\uffe3\005\uffe3" +
-    "\007\uffe3\012\uffe3\013\uffe3\014\uffe3\015\uffe3\016\uffe3\017" +
-    "\uffe3\021\uffe3\023\uffe3\024\uffe3\033\uffe3\001\002\000\004" +
-    "\002\000\001\002\000\016\004\016\025\013\026\020\027" +
-    "\010\030\012\031\007\001\002\000\016\004\016\025\013" +
-    "\026\020\027\010\030\012\031\007\001\002\000\010\002" +
-    "\uffff\005\024\024\116\001\002\000\016\004\016\025\013" +
-    "\026\020\027\010\030\012\031\007\001\002\000\010\002" +
-    "\ufffd\005\024\033\120\001\002\000\004\002\ufffb\001\002" +
-    "\000\010\002\ufffe\005\024\033\122\001\002\000\004\002" +
-    "\ufffc\001\002" });
+    "\000\127\000\004\020\007\001\002\000\012\002\ufffe\023" +
+    "\117\024\116\035\ufffe\001\002\000\004\002\115\001\002" +
+    "\000\006\002\001\035\113\001\002\000\022\004\017\011" +
+    "\015\025\014\026\021\027\011\030\013\031\010\032\016" +
+    "\001\002\000\004\006\110\001\002\000\004\006\105\001" +
+    "\002\000\014\002\ufff1\005\ufff1\021\ufff1\024\ufff1\035\ufff1" +
+    "\001\002\000\004\006\102\001\002\000\004\006\077\001" +
+    "\002\000\004\021\073\001\002\000\020\004\017\011\061" +
+    "\025\014\026\021\027\011\030\013\031\010\001\002\000" +
+    "\006\003\056\010\057\001\002\000\006\005\025\021\026" +
+    "\001\002\000\004\006\022\001\002\000\016\004\017\025" +
+    "\014\026\021\027\011\030\013\031\010\001\002\000\004" +
+    "\007\024\001\002\000\042\002\uffe1\003\uffe1\005\uffe1\007" +
+    "\uffe1\012\uffe1\013\uffe1\014\uffe1\015\uffe1\016\uffe1\017\uffe1" +
+    "\021\uffe1\023\uffe1\024\uffe1\033\uffe1\034\uffe1\035\uffe1\001" +
+    "\002\000\016\004\017\025\014\026\021\027\011\030\013" +
+    "\031\010\001\002\000\004\004\027\001\002\000\016\002" +
+    "\uffea\005\uffea\022\uffea\023\uffea\024\uffea\035\uffea\001\002" +
+    "\000\016\002\ufff8\005\031\022\032\023\ufff8\024\ufff8\035" +
+    "\ufff8\001\002\000\004\004\054\001\002\000\020\003\035" +
+    "\004\017\025\014\026\021\027\011\030\013\031\010\001" +
+    "\002\000\020\003\043\012\045\013\047\014\050\015\042" +
+    "\016\044\017\046\001\002\000\014\002\uffe8\005\uffe8\023" +
+    "\uffe8\024\uffe8\035\uffe8\001\002\000\004\036\041\001\002" +
+    "\000\014\002\ufffa\005\037\023\ufffa\024\ufffa\035\ufffa\001" +
+    "\002\000\020\003\035\004\017\025\014\026\021\027\011" +
+    "\030\013\031\010\001\002\000\014\002\uffe9\005\uffe9\023" +
+    "\uffe9\024\uffe9\035\uffe9\001\002\000\014\002\uffe4\005\uffe4" +
+    "\023\uffe4\024\uffe4\035\uffe4\001\002\000\020\004\uffd9\025" +
+    "\uffd9\026\uffd9\027\uffd9\030\uffd9\031\uffd9\036\uffd9\001\002" +
+    "\000\014\002\uffe5\005\uffe5\023\uffe5\024\uffe5\035\uffe5\001" +
+    "\002\000\020\004\uffd7\025\uffd7\026\uffd7\027\uffd7\030\uffd7" +
+    "\031\uffd7\036\uffd7\001\002\000\020\004\uffdc\025\uffdc\026" +
+    "\uffdc\027\uffdc\030\uffdc\031\uffdc\036\uffdc\001\002\000\020" +
+    "\004\uffd8\025\uffd8\026\uffd8\027\uffd8\030\uffd8\031\uffd8\036" +
+    "\uffd8\001\002\000\020\004\uffdb\025\uffdb\026\uffdb\027\uffdb" +
+    "\030\uffdb\031\uffdb\036\uffdb\001\002\000\020\004\uffda\025" +
+    "\uffda\026\uffda\027\uffda\030\uffda\031\uffda\036\uffda\001\002" +
+    "\000\020\004\017\025\014\026\021\027\011\030\013\031" +
+    "\010\036\053\001\002\000\014\002\uffe6\005\uffe6\023\uffe6" +
+    "\024\uffe6\035\uffe6\001\002\000\014\002\uffe7\005\uffe7\023" +
+    "\uffe7\024\uffe7\035\uffe7\001\002\000\016\002\uffeb\005\uffeb" +
+    "\022\uffeb\023\uffeb\024\uffeb\035\uffeb\001\002\000\014\002" +
+    "\ufff2\005\ufff2\021\ufff2\024\ufff2\035\ufff2\001\002\000\042" +
+    "\002\uffdd\003\uffdd\005\uffdd\007\uffdd\012\uffdd\013\uffdd\014" +
+    "\uffdd\015\uffdd\016\uffdd\017\uffdd\021\uffdd\023\uffdd\024\uffdd" +
+    "\033\uffdd\034\uffdd\035\uffdd\001\002\000\004\004\060\001" +
+    "\002\000\042\002\uffe3\003\uffe3\005\uffe3\007\uffe3\012\uffe3" +
+    "\013\uffe3\014\uffe3\015\uffe3\016\uffe3\017\uffe3\021\uffe3\023" +
+    "\uffe3\024\uffe3\033\uffe3\034\uffe3\035\uffe3\001\002\000\004" +
+    "\021\067\001\002\000\006\005\025\021\063\001\002\000" +
+    "\004\004\027\001\002\000\016\002\ufff4\005\031\022\065" +
+    "\023\ufff4\024\ufff4\035\ufff4\001\002\000\020\003\035\004" +
+    "\017\025\014\026\021\027\011\030\013\031\010\001\002" +
+    "\000\014\002\ufff6\005\037\023\ufff6\024\ufff6\035\ufff6\001" +
+    "\002\000\004\004\027\001\002\000\016\002\ufff3\005\031" +
+    "\022\071\023\ufff3\024\ufff3\035\ufff3\001\002\000\020\003" +
+    "\035\004\017\025\014\026\021\027\011\030\013\031\010" +
+    "\001\002\000\014\002\ufff5\005\037\023\ufff5\024\ufff5\035" +
+    "\ufff5\001\002\000\004\004\027\001\002\000\016\002\ufff7" +
+    "\005\031\022\075\023\ufff7\024\ufff7\035\ufff7\001\002\000" +
+    "\020\003\035\004\017\025\014\026\021\027\011\030\013" +
+    "\031\010\001\002\000\014\002\ufff9\005\037\023\ufff9\024" +
+    "\ufff9\035\ufff9\001\002\000\016\004\017\025\014\026\021" +
+    "\027\011\030\013\031\010\001\002\000\004\007\101\001" +
+    "\002\000\042\002\uffe2\003\uffe2\005\uffe2\007\uffe2\012\uffe2" +
+    "\013\uffe2\014\uffe2\015\uffe2\016\uffe2\017\uffe2\021\uffe2\023" +
+    "\uffe2\024\uffe2\033\uffe2\034\uffe2\035\uffe2\001\002\000\016" +
+    "\004\017\025\014\026\021\027\011\030\013\031\010\001" +
+    "\002\000\004\007\104\001\002\000\042\002\uffdf\003\uffdf" +
+    "\005\uffdf\007\uffdf\012\uffdf\013\uffdf\014\uffdf\015\uffdf\016" +
+    "\uffdf\017\uffdf\021\uffdf\023\uffdf\024\uffdf\033\uffdf\034\uffdf" +
+    "\035\uffdf\001\002\000\016\004\017\025\014\026\021\027" +
+    "\011\030\013\031\010\001\002\000\004\007\107\001\002" +
+    "\000\042\002\uffe0\003\uffe0\005\uffe0\007\uffe0\012\uffe0\013" +
+    "\uffe0\014\uffe0\015\uffe0\016\uffe0\017\uffe0\021\uffe0\023\uffe0" +
+    "\024\uffe0\033\uffe0\034\uffe0\035\uffe0\001\002\000\016\004" +
+    "\017\025\014\026\021\027\011\030\013\031\010\001\002" +
+    "\000\004\007\112\001\002\000\042\002\uffde\003\uffde\005" +
+    "\uffde\007\uffde\012\uffde\013\uffde\014\uffde\015\uffde\016\uffde" +
+    "\017\uffde\021\uffde\023\uffde\024\uffde\033\uffde\034\uffde\035" +
+    "\uffde\001\002\000\004\037\114\001\002\000\004\002\uffff" +
+    "\001\002\000\004\002\000\001\002\000\016\004\017\025" +
+    "\014\026\021\027\011\030\013\031\010\001\002\000\016" +
+    "\004\017\025\014\026\021\027\011\030\013\031\010\001" +
+    "\002\000\012\002\ufffd\005\025\024\121\035\ufffd\001\002" +
+    "\000\016\004\017\025\014\026\021\027\011\030\013\031" +
+    "\010\001\002\000\014\002\uffee\005\uffee\033\127\034\130" +
+    "\035\uffee\001\002\000\010\002\ufffb\005\125\035\ufffb\001" +
+    "\002\000\010\002\uffef\005\uffef\035\uffef\001\002\000\016" +
+    "\004\017\025\014\026\021\027\011\030\013\031\010\001" +
+    "\002\000\010\002\ufff0\005\ufff0\035\ufff0\001\002\000\010" +
+    "\002\uffed\005\uffed\035\uffed\001\002\000\010\002\uffec\005" +
+    "\uffec\035\uffec\001\002\000\010\002\ufffc\005\125\035\ufffc" +
+    "\001\002" });
 
   /** Access to parse-action table. */
   public short[][] action_table() {return _action_table;}
@@ -134,37 +147,40 @@ public class parser extends java_cup.runtime.lr_parser {
   /** <code>reduce_goto</code> table. */
   protected static final short[][] _reduce_table = 
     unpackFromStrings(new String[] {
-    "\000\120\000\006\003\004\004\003\001\001\000\002\001" +
-    "\001\000\002\001\001\000\006\005\016\006\010\001\001" +
-    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
+    "\000\127\000\010\003\004\004\005\005\003\001\001\000" +
     "\002\001\001\000\002\001\001\000\002\001\001\000\006" +
-    "\005\060\006\010\001\001\000\002\001\001\000\002\001" +
-    "\001\000\002\001\001\000\004\006\021\001\001\000\002" +
-    "\001\001\000\002\001\001\000\004\006\053\001\001\000" +
-    "\004\007\026\001\001\000\002\001\001\000\002\001\001" +
-    "\000\002\001\001\000\010\006\031\010\034\011\032\001" +
-    "\001\000\004\012\047\001\001\000\002\001\001\000\002" +
-    "\001\001\000\002\001\001\000\006\006\031\011\036\001" +
+    "\006\017\011\011\001\001\000\002\001\001\000\002\001" +
     "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
-    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
+    "\000\002\001\001\000\006\006\061\011\011\001\001\000" +
     "\002\001\001\000\002\001\001\000\002\001\001\000\004" +
-    "\006\050\001\001\000\002\001\001\000\002\001\001\000" +
-    "\002\001\001\000\002\001\001\000\002\001\001\000\002" +
+    "\011\022\001\001\000\002\001\001\000\002\001\001\000" +
+    "\004\011\054\001\001\000\004\012\027\001\001\000\002" +
+    "\001\001\000\002\001\001\000\002\001\001\000\010\011" +
+    "\032\013\035\014\033\001\001\000\004\015\050\001\001" +
+    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
+    "\006\011\032\014\037\001\001\000\002\001\001\000\002" +
     "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
-    "\001\000\004\007\062\001\001\000\002\001\001\000\010" +
-    "\006\031\010\064\011\032\001\001\000\002\001\001\000" +
-    "\004\007\066\001\001\000\002\001\001\000\010\006\031" +
-    "\010\070\011\032\001\001\000\002\001\001\000\004\007" +
-    "\072\001\001\000\002\001\001\000\010\006\031\010\074" +
-    "\011\032\001\001\000\002\001\001\000\004\006\076\001" +
-    "\001\000\002\001\001\000\002\001\001\000\004\006\101" +
-    "\001\001\000\002\001\001\000\002\001\001\000\004\006" +
-    "\104\001\001\000\002\001\001\000\002\001\001\000\004" +
-    "\006\107\001\001\000\002\001\001\000\002\001\001\000" +
-    "\002\001\001\000\006\005\120\006\010\001\001\000\006" +
-    "\005\114\006\010\001\001\000\002\001\001\000\006\005" +
-    "\116\006\010\001\001\000\002\001\001\000\002\001\001" +
-    "\000\002\001\001\000\002\001\001" });
+    "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
+    "\000\002\001\001\000\004\011\051\001\001\000\002\001" +
+    "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
+    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
+    "\002\001\001\000\002\001\001\000\004\012\063\001\001" +
+    "\000\002\001\001\000\010\011\032\013\065\014\033\001" +
+    "\001\000\002\001\001\000\004\012\067\001\001\000\002" +
+    "\001\001\000\010\011\032\013\071\014\033\001\001\000" +
+    "\002\001\001\000\004\012\073\001\001\000\002\001\001" +
+    "\000\010\011\032\013\075\014\033\001\001\000\002\001" +
+    "\001\000\004\011\077\001\001\000\002\001\001\000\002" +
+    "\001\001\000\004\011\102\001\001\000\002\001\001\000" +
+    "\002\001\001\000\004\011\105\001\001\000\002\001\001" +
+    "\000\002\001\001\000\004\011\110\001\001\000\002\001" +
+    "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
+    "\000\002\001\001\000\010\007\130\010\123\011\121\001" +
+    "\001\000\006\006\117\011\011\001\001\000\002\001\001" +
+    "\000\010\007\122\010\123\011\121\001\001\000\002\001" +
+    "\001\000\002\001\001\000\002\001\001\000\006\010\125" +
+    "\011\121\001\001\000\002\001\001\000\002\001\001\000" +
+    "\002\001\001\000\002\001\001" });
 
   /** Access to <code>reduce_goto</code> table. */
   public short[][] reduce_table() {return _reduce_table;}
@@ -205,6 +221,7 @@ public class parser extends java_cup.runtime.lr_parser {
  
 	
 	public SQLQuery query;
+	public ArrayList<Boolean> descending = new ArrayList<>();  // Direction of every orderby attribute
 	
 	public SQLQuery getSQLQuery() {
 		return query;
@@ -251,73 +268,73 @@ class CUP$parser$actions {
       switch (CUP$parser$act_num)
         {
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 37: // op ::= EQUAL 
+          case 42: // op ::= EQUAL 
             {
               Condition RESULT = null;
 		
 			RESULT = new Condition(Condition.EQUAL);
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(8/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(11/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 36: // op ::= NOTEQUAL 
+          case 41: // op ::= NOTEQUAL 
             {
               Condition RESULT = null;
 			
 		  RESULT = new Condition(Condition.NOTEQUAL);
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(8/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(11/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 35: // op ::= GTOE 
+          case 40: // op ::= GTOE 
             {
               Condition RESULT = null;
 		
 			RESULT = new Condition(Condition.GTOE);
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(8/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(11/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 34: // op ::= LTOE 
+          case 39: // op ::= LTOE 
             {
               Condition RESULT = null;
 		
 			RESULT = new Condition(Condition.LTOE);
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(8/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(11/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 33: // op ::= GREATERTHAN 
+          case 38: // op ::= GREATERTHAN 
             {
               Condition RESULT = null;
 		
 			RESULT = new Condition(Condition.GREATERTHAN);
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(8/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(11/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 32: // op ::= LESSTHAN 
+          case 37: // op ::= LESSTHAN 
             {
               Condition RESULT = null;
 		
 			RESULT = new Condition(Condition.LESSTHAN);
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(8/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(11/*op*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 31: // attribute ::= ID error 
+          case 36: // attribute ::= ID error 
             {
               Attribute RESULT = null;
 		int ileft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
@@ -330,12 +347,12 @@ class CUP$parser$actions {
 			System.out.println("syntax error: incorrect attribute:"+ i.text());
 			System.exit(0);
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(4/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(7/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 30: // attribute ::= AVG LEFTBRACKET attribute RIGHTBRACKET 
+          case 35: // attribute ::= AVG LEFTBRACKET attribute RIGHTBRACKET 
             {
               Attribute RESULT = null;
 		int atleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
@@ -345,12 +362,12 @@ class CUP$parser$actions {
 			at.setAggType(Attribute.AVG);
 			RESULT = at;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(4/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(7/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 29: // attribute ::= COUNT LEFTBRACKET attribute RIGHTBRACKET 
+          case 34: // attribute ::= COUNT LEFTBRACKET attribute RIGHTBRACKET 
             {
               Attribute RESULT = null;
 		int atleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
@@ -360,12 +377,12 @@ class CUP$parser$actions {
 			at.setAggType(Attribute.COUNT);
 			RESULT = at;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(4/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(7/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 28: // attribute ::= SUM LEFTBRACKET attribute RIGHTBRACKET 
+          case 33: // attribute ::= SUM LEFTBRACKET attribute RIGHTBRACKET 
             {
               Attribute RESULT = null;
 		int atleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
@@ -375,12 +392,12 @@ class CUP$parser$actions {
 			at.setAggType(Attribute.SUM);
 			RESULT = at;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(4/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(7/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 27: // attribute ::= MIN LEFTBRACKET attribute RIGHTBRACKET 
+          case 32: // attribute ::= MIN LEFTBRACKET attribute RIGHTBRACKET 
             {
               Attribute RESULT = null;
 		int atleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
@@ -390,12 +407,12 @@ class CUP$parser$actions {
 			at.setAggType(Attribute.MIN);
 			RESULT = at;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(4/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(7/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 26: // attribute ::= MAX LEFTBRACKET attribute RIGHTBRACKET 
+          case 31: // attribute ::= MAX LEFTBRACKET attribute RIGHTBRACKET 
             {
               Attribute RESULT = null;
 		int atleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
@@ -405,12 +422,12 @@ class CUP$parser$actions {
 			at.setAggType(Attribute.MAX);
 			RESULT = at;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(4/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(7/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 25: // attribute ::= ID DOT ID 
+          case 30: // attribute ::= ID DOT ID 
             {
               Attribute RESULT = null;
 		int i1left = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -422,12 +439,12 @@ class CUP$parser$actions {
 		
 			RESULT = new Attribute(i1.text(),i2.text());
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(4/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(7/*attribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 24: // condition ::= error STRINGLIT 
+          case 29: // condition ::= error STRINGLIT 
             {
               Condition RESULT = null;
 		int pleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
@@ -440,12 +457,12 @@ class CUP$parser$actions {
 			System.out.println("syntax error: incorrect condition:"+s.text());
 			System.exit(0);
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(7/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(10/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 23: // condition ::= attribute error 
+          case 28: // condition ::= attribute error 
             {
               Condition RESULT = null;
 		int atleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
@@ -458,12 +475,12 @@ class CUP$parser$actions {
 			System.out.println("syntax error: incorrect condition");
 			System.exit(0);
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(7/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(10/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 22: // condition ::= attribute op attribute 
+          case 27: // condition ::= attribute op attribute 
             {
               Condition RESULT = null;
 		int a1left = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -480,12 +497,12 @@ class CUP$parser$actions {
 			c.setOpType(Condition.JOIN);
 			RESULT = c;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(7/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(10/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 21: // condition ::= attribute op STRINGLIT 
+          case 26: // condition ::= attribute op STRINGLIT 
             {
               Condition RESULT = null;
 		int atleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -502,12 +519,12 @@ class CUP$parser$actions {
 			c.setOpType(Condition.SELECT);
 			RESULT = c;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(7/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(10/*condition*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 20: // conditionlist ::= condition 
+          case 25: // conditionlist ::= condition 
             {
               ArrayList RESULT = null;
 		int cleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
@@ -518,12 +535,12 @@ class CUP$parser$actions {
 			clist.add(c);
 			RESULT = clist;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(6/*conditionlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(9/*conditionlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 19: // conditionlist ::= conditionlist COMMA condition 
+          case 24: // conditionlist ::= conditionlist COMMA condition 
             {
               ArrayList RESULT = null;
 		int clistleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -536,12 +553,12 @@ class CUP$parser$actions {
 			clist.add(c);
 			RESULT = clist;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(6/*conditionlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(9/*conditionlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 18: // tablelist ::= ID 
+          case 23: // tablelist ::= ID 
             {
               ArrayList RESULT = null;
 		int ileft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
@@ -552,12 +569,12 @@ class CUP$parser$actions {
 			tlist.add(i.text());
 			RESULT = tlist;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(5/*tablelist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(8/*tablelist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 17: // tablelist ::= tablelist COMMA ID 
+          case 22: // tablelist ::= tablelist COMMA ID 
             {
               ArrayList RESULT = null;
 		int tlistleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -570,7 +587,86 @@ class CUP$parser$actions {
 			tlist.add(i.text());
 			RESULT = tlist;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(5/*tablelist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(8/*tablelist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 21: // orderattribute ::= attribute DESC 
+            {
+              Attribute RESULT = null;
+		int aleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
+		int aright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).right;
+		Attribute a = (Attribute)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-1)).value;
+		
+			parser.descending.add(true);
+			RESULT = a;
+		
+              CUP$parser$result = new java_cup.runtime.Symbol(6/*orderattribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 20: // orderattribute ::= attribute ASC 
+            {
+              Attribute RESULT = null;
+		int aleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
+		int aright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).right;
+		Attribute a = (Attribute)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-1)).value;
+		
+			parser.descending.add(false);
+			RESULT = a;
+		
+              CUP$parser$result = new java_cup.runtime.Symbol(6/*orderattribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 19: // orderattribute ::= attribute 
+            {
+              Attribute RESULT = null;
+		int aleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int aright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		Attribute a = (Attribute)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+			parser.descending.add(false);
+			RESULT = a;
+		
+              CUP$parser$result = new java_cup.runtime.Symbol(6/*orderattribute*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 18: // orderlist ::= orderattribute 
+            {
+              ArrayList RESULT = null;
+		int atleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int atright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		Attribute at = (Attribute)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+			ArrayList<Attribute> v = new ArrayList<>();
+			v.add(at);
+			RESULT = v;
+		
+              CUP$parser$result = new java_cup.runtime.Symbol(5/*orderlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 17: // orderlist ::= orderlist COMMA orderattribute 
+            {
+              ArrayList RESULT = null;
+		int asleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
+		int asright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).right;
+		ArrayList as = (ArrayList)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-2)).value;
+		int aleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int aright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		Attribute a = (Attribute)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+			as.add(a);
+			RESULT = as;
+	    
+              CUP$parser$result = new java_cup.runtime.Symbol(5/*orderlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
@@ -586,7 +682,7 @@ class CUP$parser$actions {
 			v.add(at);
 			RESULT = v;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(3/*attlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(4/*attlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
@@ -604,7 +700,7 @@ class CUP$parser$actions {
 			as.add(a);
 			RESULT = as;
 	    
-              CUP$parser$result = new java_cup.runtime.Symbol(3/*attlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(4/*attlist*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
@@ -621,7 +717,7 @@ class CUP$parser$actions {
 			sq.setIsDistinct(true);
 			RESULT = sq;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(2/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-4)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(3/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-4)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
@@ -640,7 +736,7 @@ class CUP$parser$actions {
 			sq.setIsDistinct(true);
 			RESULT = sq;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(2/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-4)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(3/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-4)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
@@ -660,7 +756,7 @@ class CUP$parser$actions {
 			sq.setIsDistinct(true);
 			RESULT = sq;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(2/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-6)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(3/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-6)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
@@ -682,7 +778,7 @@ class CUP$parser$actions {
 			sq.setIsDistinct(true);
 			RESULT = sq;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(2/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-6)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(3/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-6)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
@@ -698,7 +794,7 @@ class CUP$parser$actions {
 			SQLQuery sq = new SQLQuery(a,t);
 			RESULT = sq;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(2/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(3/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
@@ -716,7 +812,7 @@ class CUP$parser$actions {
 			SQLQuery sq = new SQLQuery(a,t);
 			RESULT = sq;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(2/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(3/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
@@ -735,7 +831,7 @@ class CUP$parser$actions {
 			SQLQuery sq = new SQLQuery(a,t,c);
 			RESULT = sq;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(2/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-5)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(3/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-5)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
@@ -756,56 +852,12 @@ class CUP$parser$actions {
 			SQLQuery sq = new SQLQuery(a,t,c);
 			RESULT = sq;
 		
-              CUP$parser$result = new java_cup.runtime.Symbol(2/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-5)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
-            }
-          return CUP$parser$result;
-
-          /*. . . . . . . . . . . . . . . . . . . .*/
-          case 6: // finalquery ::= sqlquery GROUPBY attlist ORDERBY attlist DESC 
-            {
-              SQLQuery RESULT = null;
-		int sleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-5)).left;
-		int sright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-5)).right;
-		SQLQuery s = (SQLQuery)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-5)).value;
-		int aleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left;
-		int aright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).right;
-		ArrayList a = (ArrayList)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-3)).value;
-		int bleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
-		int bright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).right;
-		ArrayList b = (ArrayList)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-1)).value;
-		
-            s.setGroupByList(a);
-            s.setOrderByList(b);
-			      s.setIsDesc(true);
-            parser.query = s;
-            RESULT = s;
-        
-              CUP$parser$result = new java_cup.runtime.Symbol(1/*finalquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-5)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(3/*sqlquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-5)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 5: // finalquery ::= sqlquery ORDERBY attlist DESC 
-            {
-              SQLQuery RESULT = null;
-		int sleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left;
-		int sright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).right;
-		SQLQuery s = (SQLQuery)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-3)).value;
-		int aleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).left;
-		int aright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-1)).right;
-		ArrayList a = (ArrayList)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-1)).value;
-		
-            s.setOrderByList(a);
-			      s.setIsDesc(true);
-            parser.query = s;
-            RESULT = s;
-        
-              CUP$parser$result = new java_cup.runtime.Symbol(1/*finalquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
-            }
-          return CUP$parser$result;
-
-          /*. . . . . . . . . . . . . . . . . . . .*/
-          case 4: // finalquery ::= sqlquery GROUPBY attlist ORDERBY attlist 
+          case 6: // orderedquery ::= sqlquery GROUPBY attlist ORDERBY orderlist 
             {
               SQLQuery RESULT = null;
 		int sleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-4)).left;
@@ -820,15 +872,15 @@ class CUP$parser$actions {
 		
             s.setGroupByList(a);
             s.setOrderByList(b);
-            parser.query = s;
+            s.setOrderByDesc(parser.descending);
             RESULT = s;
         
-              CUP$parser$result = new java_cup.runtime.Symbol(1/*finalquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-4)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(2/*orderedquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-4)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 3: // finalquery ::= sqlquery ORDERBY attlist 
+          case 5: // orderedquery ::= sqlquery ORDERBY orderlist 
             {
               SQLQuery RESULT = null;
 		int sleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -839,15 +891,15 @@ class CUP$parser$actions {
 		ArrayList a = (ArrayList)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
 		
             s.setOrderByList(a);
-            parser.query = s;
+            s.setOrderByDesc(parser.descending);
             RESULT = s;
         
-              CUP$parser$result = new java_cup.runtime.Symbol(1/*finalquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+              CUP$parser$result = new java_cup.runtime.Symbol(2/*orderedquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 2: // finalquery ::= sqlquery GROUPBY attlist 
+          case 4: // orderedquery ::= sqlquery GROUPBY attlist 
             {
               SQLQuery RESULT = null;
 		int sleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
@@ -858,9 +910,41 @@ class CUP$parser$actions {
 		ArrayList a = (ArrayList)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
 		
             s.setGroupByList(a);
-			parser.query = s;
             RESULT = s;
         
+              CUP$parser$result = new java_cup.runtime.Symbol(2/*orderedquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 3: // orderedquery ::= sqlquery 
+            {
+              SQLQuery RESULT = null;
+		int sleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int sright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		SQLQuery s = (SQLQuery)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+			RESULT = s;
+		
+              CUP$parser$result = new java_cup.runtime.Symbol(2/*orderedquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
+            }
+          return CUP$parser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 2: // finalquery ::= orderedquery LIMIT INTLIT 
+            {
+              SQLQuery RESULT = null;
+		int sleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left;
+		int sright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).right;
+		SQLQuery s = (SQLQuery)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-2)).value;
+		int nleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
+		int nright = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right;
+		TokenValue n = (TokenValue)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-0)).value;
+		
+			s.setLimit(Integer.parseInt(n.text()));
+			parser.query = s;
+			RESULT = s;
+		
               CUP$parser$result = new java_cup.runtime.Symbol(1/*finalquery*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-2)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
@@ -880,7 +964,7 @@ class CUP$parser$actions {
           return CUP$parser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 0: // finalquery ::= sqlquery 
+          case 0: // finalquery ::= orderedquery 
             {
               SQLQuery RESULT = null;
 		int sleft = ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).left;
@@ -1,7 +1,7 @@
 
 //----------------------------------------------------
 // The following code was generated by CUP v0.10k
-// Thu Feb 25 10:53:50 SGT 2021
+// Sat Oct 17 21:06:00 UTC 2026
 //----------------------------------------------------
 
 package qp.parser;
@@ -14,7 +14,7 @@ public class sym {
   public static final int FROM = 15;
   public static final int GROUPBY = 17;
   public static final int RIGHTBRACKET = 5;
-  public static final int DESC = 25;
+  public static final int DESC = 26;
   public static final int SELECT = 14;
   public static final int EQUAL = 12;
   public static final int NOTEQUAL = 13;
@@ -22,16 +22,19 @@ public class sym {
   public static final int LTOE = 10;
   public static final int STAR = 7;
   public static final int ID = 2;
+  public static final int LIMIT = 27;
   public static final int GTOE = 11;
+  public static final int INTLIT = 29;
   public static final int COMMA = 3;
   public static final int LESSTHAN = 8;
   public static final int EOF = 0;
-  public static final int STRINGLIT = 26;
+  public static final int STRINGLIT = 28;
   public static final int DISTINCT = 24;
   public static final int LEFTBRACKET = 4;
   public static final int AVG = 23;
   public static final int error = 1;
   public static final int DOT = 6;
+  public static final int ASC = 25;
   public static final int MIN = 20;
   public static final int MAX = 19;
   public static final int COUNT = 22;
@@ -0,0 +1,104 @@
+/**
+ * Adaptive replacement cache
+ **/
+
+package qp.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * ARC keeps the pages used once in T1 and the pages used more than once in T2, both
+ * * in LRU order, and remembers the pages recently evicted from them in the ghost lists
+ * * B1 and B2. A page loaded again while in B1 shows that T1 is too small and grows
+ * * the target size p of T1, one found in B2 shrinks it. The victim comes from T1 while
+ * * T1 is larger than p, otherwise from T2. Pages of a sequential scan are not
+ * * remembered in B1, so a scan does not move p.
+ **/
+public class ARCPolicy implements ReplacementPolicy {
+
+    int capacity;                               // Number of frames of the pool
+    double p;                                   // Target size of T1
+    LinkedHashSet<BufferPool.Frame> t1;         // Pages used once, least recently used first
+    LinkedHashSet<BufferPool.Frame> t2;         // Pages used more than once, least recently used first
+    LinkedHashSet<BufferPool.PageId> b1;        // Pages recently evicted from T1, oldest first
+    LinkedHashSet<BufferPool.PageId> b2;        // Pages recently evicted from T2, oldest first
+
+    public void init(BufferPool.Frame[] frames) {
+        capacity = frames.length;
+        p = 0;
+        t1 = new LinkedHashSet<>();
+        t2 = new LinkedHashSet<>();
+        b1 = new LinkedHashSet<>();
+        b2 = new LinkedHashSet<>();
+    }
+
+    public void loaded(BufferPool.Frame frame) {
+        BufferPool.PageId id = frame.getPageId();
+        if (b1.remove(id)) {
+            p = Math.min(capacity, p + Math.max(1.0, (double) b2.size() / Math.max(1, b1.size())));
+            t2.add(frame);
+        } else if (b2.remove(id)) {
+            p = Math.max(0, p - Math.max(1.0, (double) b1.size() / Math.max(1, b2.size())));
+            t2.add(frame);
+        } else {
+            t1.add(frame);
+        }
+    }
+
+    public void accessed(BufferPool.Frame frame) {
+        t1.remove(frame);
+        t2.remove(frame);
+        t2.add(frame);
+    }
+
+    public BufferPool.Frame victim() {
+        BufferPool.Frame victim = null;
+        if (t1.size() > p || t2.isEmpty()) {
+            victim = lruUnpinned(t1);
+        }
+        if (victim == null) {
+            victim = lruUnpinned(t2);
+        }
+        if (victim == null) {
+            victim = lruUnpinned(t1);
+        }
+        return victim;
+    }
+
+    private static BufferPool.Frame lruUnpinned(LinkedHashSet<BufferPool.Frame> list) {
+        for (BufferPool.Frame frame : list) {
+            if (!frame.isPinned()) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    public void evicted(BufferPool.Frame frame) {
+        if (t1.remove(frame)) {
+            if (frame.getAccessPattern() != AccessPattern.SEQUENTIAL) {
+                b1.add(frame.getPageId());
+            }
+        } else if (t2.remove(frame)) {
+            b2.add(frame.getPageId());
+        }
+        /** T1 and B1 together, and all four lists together, hold at most one and two pool sizes **/
+        while (!b1.isEmpty() && t1.size() + b1.size() > capacity) {
+            removeOldest(b1);
+        }
+        while (!b2.isEmpty() && t1.size() + t2.size() + b1.size() + b2.size() > 2 * capacity) {
+            removeOldest(b2);
+        }
+    }
+
+    private static void removeOldest(LinkedHashSet<BufferPool.PageId> ghosts) {
+        Iterator<BufferPool.PageId> it = ghosts.iterator();
+        it.next();
+        it.remove();
+    }
+
+    public String toString() {
+        return "arc";
+    }
+}
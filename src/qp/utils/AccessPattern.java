@@ -0,0 +1,14 @@
+/**
+ * Enumeration of the ways an operator reads the pages of a file,
+ * passed to the buffer pool as a hint for replacement
+ **/
+
+package qp.utils;
+
+public class AccessPattern {
+
+    public static final int RANDOM = 0;        // Pages are read in no particular order
+    public static final int SEQUENTIAL = 1;    // Pages are read once from the first to the last
+    public static final int LOOPING = 2;       // Pages are read from the first to the last over and over
+
+}
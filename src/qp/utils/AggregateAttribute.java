@@ -36,14 +36,16 @@ public class AggregateAttribute {
      * @param t Tuple to be processed
      */
     public void setAggVal(Tuple t) {
-        Object val = t.dataAt(attrIndex);
+        int valType = t.typeAt(attrIndex);
         switch (attrType) {
             /* INT only supports MAX, MIN, SUM and COUNT. AVG projected type is REAL. */
             case Attribute.INT:
                 int intVal = 0;
                 //Guard clause to prevent parsing STRING into INT for COUNT operation
-                if (val instanceof Number) {
-                    intVal = ((Number) val).intValue();
+                if (valType == Attribute.INT) {
+                    intVal = t.intAt(attrIndex);
+                } else if (valType == Attribute.REAL) {
+                    intVal = (int) t.realAt(attrIndex);
                 }
                 switch (aggType) {
                 case Attribute.MAX:
@@ -70,7 +72,7 @@ public class AggregateAttribute {
                 break;
             /* String only supports MAX and MIN operation since COUNT, AVG projected type is INT/REAL */
             case Attribute.STRING:
-                String stringVal = val.toString();
+                String stringVal = t.dataAt(attrIndex).toString();
                 switch (aggType) {
                 case Attribute.MAX:
                     if (aggVal == null || stringVal.compareTo((String) aggVal) > 0) {
@@ -85,7 +87,7 @@ public class AggregateAttribute {
                 break;
             /* REAL only supports MAX, MIN, SUM and AVG. COUNT projected type is INT */
             case Attribute.REAL:
-                float floatVal = ((Number) val).floatValue();
+                float floatVal = valType == Attribute.INT ? t.intAt(attrIndex) : t.realAt(attrIndex);
                 switch (aggType) {
                 case Attribute.MAX:
                     if (aggVal == null) {
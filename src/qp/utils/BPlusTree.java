@@ -0,0 +1,500 @@
+/**
+ * B+-tree secondary index over a column of a binary table file
+ **/
+
+package qp.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * BPlusTree is the index file <tablename>.<column>.idx of a column of the table file
+ * * <tablename>.dat. The file is a sequence of fixed size nodes, the first page is the
+ * * header holding the root and the shape of the tree. Leaves hold the distinct pairs of
+ * * a key and a data page holding that key, sorted by key, and are chained from left to
+ * * right. Internal nodes hold their first child followed by the pairs of the smallest key
+ * * of every other child and the child. A lookup returns the data pages to read, the scan
+ * * of those pages evaluates the conditions on the tuples again.
+ **/
+public class BPlusTree {
+
+    static final int MAGIC = 0x51504958;   // "QPIX"
+    static final int VERSION = 1;
+    static final int HEADERSIZE = 56;      // Bytes of the header page
+    static final int NODEHEADERSIZE = 12;  // Kind, number of keys and next leaf of a node
+    static final int INTERNAL = 0;
+    static final int LEAF = 1;
+
+    final String filename;      // Name of the index file
+    int pagesize;               // Number of bytes per node
+    int column;                 // Index of the indexed column in the table
+    int keytype;                // Attribute type of the indexed column
+    int root;                   // Node number of the root
+    int height;                 // Number of levels, the leaves are level 1
+    int numLeaves;              // Number of leaf nodes
+    long numEntries;            // Number of pairs of key and data page
+    int datPagesize;            // Page size of the indexed table file
+    int datNumPages;            // Number of data pages of the indexed table file
+    long datNumTuples;          // Number of tuples of the indexed table file
+
+    BPlusTree(String filename) {
+        this.filename = filename;
+    }
+
+    public static String fileName(String tabname, String colname) {
+        return tabname + "." + colname + ".idx";
+    }
+
+    public String getFileName() {
+        return filename;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getNumLeaves() {
+        return numLeaves;
+    }
+
+    public int getNumDataPages() {
+        return datNumPages;
+    }
+
+    public long getNumEntries() {
+        return numEntries;
+    }
+
+    public int getKeyType() {
+        return keytype;
+    }
+
+    /**
+     * Index on the column of the table, null if there is none or
+     * * if it was not built for the current table file
+     */
+    public static BPlusTree of(String tabname, String colname) {
+        return TableMetadata.get(fileName(tabname, colname), filename -> {
+            TableFile table = TableMetadata.header(tabname);
+            if (table == null || !new File(filename).isFile()) {
+                return null;
+            }
+            BPlusTree tree = new BPlusTree(filename);
+            if (!tree.readHeader()) {
+                return null;
+            }
+            if (table.getPageSize() != tree.datPagesize || table.getNumPages() != tree.datNumPages
+                    || table.getNumTuples() != tree.datNumTuples || tree.column >= table.getTypes().length
+                    || table.getTypes()[tree.column] != tree.keytype) {
+                return null;
+            }
+            return tree;
+        });
+    }
+
+    private boolean readHeader() {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+            ByteBuffer header = ByteBuffer.allocate(HEADERSIZE);
+            readFully(file.getChannel(), header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                System.err.println("BPlusTree: " + filename + " is not an index file");
+                return false;
+            }
+            pagesize = header.getInt();
+            column = header.getInt();
+            keytype = header.getInt();
+            root = header.getInt();
+            height = header.getInt();
+            numLeaves = header.getInt();
+            numEntries = header.getLong();
+            datPagesize = header.getInt();
+            datNumPages = header.getInt();
+            datNumTuples = header.getLong();
+        } catch (IOException io) {
+            System.err.println("BPlusTree: Error reading " + filename);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether the index can look up the condition on the indexed column
+     */
+    public static boolean isIndexable(Condition con) {
+        return con.getRhs() instanceof String && con.getExprType() != Condition.NOTEQUAL;
+    }
+
+    /**
+     * Data pages holding keys that satisfy all the indexable conditions,
+     * * the conditions must all be on the indexed column
+     */
+    public BitSet search(List<Condition> conditions) {
+        Object lo = null;
+        Object hi = null;
+        boolean loInclusive = true;
+        boolean hiInclusive = true;
+        for (Condition con : conditions) {
+            if (!isIndexable(con)) {
+                continue;
+            }
+            Object key = parseKey(keytype, (String) con.getRhs());
+            if (key == null) {
+                continue;
+            }
+            int exprtype = con.getExprType();
+            if (exprtype == Condition.EQUAL || exprtype == Condition.GREATERTHAN || exprtype == Condition.GTOE) {
+                boolean inclusive = exprtype != Condition.GREATERTHAN;
+                int flag = lo == null ? 1 : compare(keytype, key, lo);
+                if (flag > 0 || (flag == 0 && !inclusive)) {
+                    lo = key;
+                    loInclusive = inclusive;
+                }
+            }
+            if (exprtype == Condition.EQUAL || exprtype == Condition.LESSTHAN || exprtype == Condition.LTOE) {
+                boolean inclusive = exprtype != Condition.LESSTHAN;
+                int flag = hi == null ? -1 : compare(keytype, key, hi);
+                if (flag < 0 || (flag == 0 && !inclusive)) {
+                    hi = key;
+                    hiInclusive = inclusive;
+                }
+            }
+        }
+        if (lo != null && hi != null) {
+            int flag = compare(keytype, lo, hi);
+            if (flag > 0 || (flag == 0 && !(loInclusive && hiInclusive))) {
+                return new BitSet(datNumPages);
+            }
+        }
+        return search(lo, loInclusive, hi, hiInclusive);
+    }
+
+    /**
+     * Data pages holding keys within the range, a null bound leaves that side open
+     */
+    public BitSet search(Object lo, boolean loInclusive, Object hi, boolean hiInclusive) {
+        BitSet pages = new BitSet(datNumPages);
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+            search(file.getChannel(), ByteBuffer.allocate(pagesize), lo, loInclusive, hi, hiInclusive, pages);
+        } catch (IOException io) {
+            System.err.println("BPlusTree: Error reading " + filename);
+            System.exit(1);
+        }
+        return pages;
+    }
+
+    /**
+     * Data pages holding any of the keys, the keys are looked up in
+     * * increasing order so that the nodes on their paths are close
+     */
+    public BitSet lookup(Collection<Object> keys) {
+        ArrayList<Object> sorted = new ArrayList<>(keys);
+        sorted.sort((a, b) -> compare(keytype, a, b));
+        BitSet pages = new BitSet(datNumPages);
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+            FileChannel channel = file.getChannel();
+            ByteBuffer node = ByteBuffer.allocate(pagesize);
+            for (Object key : sorted) {
+                search(channel, node, key, true, key, true, pages);
+            }
+        } catch (IOException io) {
+            System.err.println("BPlusTree: Error reading " + filename);
+            System.exit(1);
+        }
+        return pages;
+    }
+
+    private void search(FileChannel channel, ByteBuffer node, Object lo, boolean loInclusive,
+                        Object hi, boolean hiInclusive, BitSet pages) throws IOException {
+        /** Descend to the leftmost leaf that may hold the lower bound **/
+        int nodeno = root;
+        readNode(channel, node, nodeno);
+        while (node.getInt() == INTERNAL) {
+            int numkeys = node.getInt();
+            node.getInt();
+            nodeno = node.getInt();
+            for (int i = 0; i < numkeys && lo != null; ++i) {
+                Object key = readKey(node, keytype);
+                int child = node.getInt();
+                if (compare(keytype, key, lo) >= 0) {
+                    break;
+                }
+                nodeno = child;
+            }
+            readNode(channel, node, nodeno);
+        }
+
+        /** Walk the leaves to the right until the upper bound is passed **/
+        while (true) {
+            int numkeys = node.getInt();
+            int next = node.getInt();
+            for (int i = 0; i < numkeys; ++i) {
+                Object key = readKey(node, keytype);
+                int page = node.getInt();
+                if (lo != null) {
+                    int flag = compare(keytype, key, lo);
+                    if (flag < 0 || (flag == 0 && !loInclusive)) {
+                        continue;
+                    }
+                }
+                if (hi != null) {
+                    int flag = compare(keytype, key, hi);
+                    if (flag > 0 || (flag == 0 && !hiInclusive)) {
+                        return;
+                    }
+                }
+                pages.set(page);
+            }
+            if (next < 0) {
+                return;
+            }
+            readNode(channel, node, next);
+            node.getInt();
+        }
+    }
+
+    private void readNode(FileChannel channel, ByteBuffer node, int nodeno) throws IOException {
+        node.clear();
+        readFully(channel, node, (long) nodeno * pagesize);
+        node.flip();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            position += n;
+        }
+    }
+
+    static int compare(int type, Object a, Object b) {
+        if (type == Attribute.INT) {
+            return Integer.compare((Integer) a, (Integer) b);
+        } else if (type == Attribute.REAL) {
+            float x = (Float) a;
+            float y = (Float) b;
+            return x < y ? -1 : (x > y ? 1 : 0);
+        }
+        return ((String) a).compareTo((String) b);
+    }
+
+    /**
+     * Parses the constant of a condition as a key of the given type, null if it is not one
+     */
+    public static Object parseKey(int type, String value) {
+        try {
+            if (type == Attribute.INT) {
+                return Integer.parseInt(value);
+            } else if (type == Attribute.REAL) {
+                return Float.parseFloat(value);
+            }
+            return value;
+        } catch (NumberFormatException nfe) {
+            return null;
+        }
+    }
+
+    private static int keySize(int type, Object key) {
+        if (type == Attribute.INT || type == Attribute.REAL) {
+            return 4;
+        }
+        return 2 + ((String) key).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void writeKey(ByteBuffer node, int type, Object key) {
+        if (type == Attribute.INT) {
+            node.putInt((Integer) key);
+        } else if (type == Attribute.REAL) {
+            node.putFloat((Float) key);
+        } else {
+            byte[] bytes = ((String) key).getBytes(StandardCharsets.UTF_8);
+            node.putShort((short) bytes.length);
+            node.put(bytes);
+        }
+    }
+
+    private static Object readKey(ByteBuffer node, int type) {
+        if (type == Attribute.INT) {
+            return node.getInt();
+        } else if (type == Attribute.REAL) {
+            return node.getFloat();
+        }
+        return TableFile.getString(node);
+    }
+
+    /**
+     * Pair of a key and the number of a data page or child node
+     **/
+    static class Pair {
+        final Object key;
+        final int ref;
+
+        Pair(Object key, int ref) {
+            this.key = key;
+            this.ref = ref;
+        }
+    }
+
+    /**
+     * Bulk loads the index of the column of the opened table file into the index file,
+     * * null keys and NaN values are not indexed
+     */
+    public static boolean build(String filename, int pagesize, TableFile table, int column) {
+        int keytype = table.getTypes()[column];
+        ArrayList<Pair> entries = new ArrayList<>();
+        int[] columns = {column};
+        TupleLayout layout = TupleLayout.of(new int[]{keytype});
+        ArrayList<Tuple> tuples = new ArrayList<>();
+        try {
+            for (int p = 0; p < table.getNumPages(); ++p) {
+                tuples.clear();
+                table.decodePage(table.readPage(p), columns, layout, tuples);
+                for (Tuple t : tuples) {
+                    Object key = t.dataAt(0);
+                    if (key != null && !(key instanceof Float && ((Float) key).isNaN())) {
+                        entries.add(new Pair(key, p));
+                    }
+                }
+            }
+        } catch (IOException io) {
+            System.err.println("BPlusTree: Error reading " + table.getFileName());
+            return false;
+        }
+        entries.sort((a, b) -> {
+            int flag = compare(keytype, a.key, b.key);
+            return flag != 0 ? flag : Integer.compare(a.ref, b.ref);
+        });
+
+        if (pagesize < HEADERSIZE) {
+            System.err.println("BPlusTree: Page size is too small for the header of " + filename);
+            return false;
+        }
+        BPlusTree tree = new BPlusTree(filename);
+        tree.pagesize = pagesize;
+        tree.column = column;
+        tree.keytype = keytype;
+        tree.datPagesize = table.getPageSize();
+        tree.datNumPages = table.getNumPages();
+        tree.datNumTuples = table.getNumTuples();
+        try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+            file.setLength(0);
+            return tree.write(file.getChannel(), entries);
+        } catch (IOException io) {
+            System.err.println("BPlusTree: Error writing " + filename);
+            return false;
+        }
+    }
+
+    private boolean write(FileChannel channel, ArrayList<Pair> entries) throws IOException {
+        ByteBuffer node = ByteBuffer.allocate(pagesize);
+        int nodeno = 1;
+
+        /** Fill the leaves from left to right, skipping repeated pairs **/
+        ArrayList<Pair> level = new ArrayList<>();
+        Pair last = null;
+        int numkeys = 0;
+        startNode(node, LEAF);
+        for (Pair e : entries) {
+            if (last != null && last.ref == e.ref && compare(keytype, last.key, e.key) == 0) {
+                continue;
+            }
+            int size = keySize(keytype, e.key) + 4;
+            if (NODEHEADERSIZE + 4 + size + size > pagesize) {
+                System.err.println("BPlusTree: Key does not fit in a node of " + filename);
+                return false;
+            }
+            if (node.position() + size > pagesize) {
+                writeNode(channel, node, nodeno, numkeys, nodeno + 1);
+                nodeno++;
+                numkeys = 0;
+                startNode(node, LEAF);
+            }
+            if (numkeys == 0) {
+                level.add(new Pair(e.key, nodeno));
+            }
+            writeKey(node, keytype, e.key);
+            node.putInt(e.ref);
+            numkeys++;
+            numEntries++;
+            last = e;
+        }
+        writeNode(channel, node, nodeno, numkeys, -1);
+        if (level.isEmpty()) {
+            level.add(new Pair(null, nodeno));
+        }
+        numLeaves = nodeno;
+        nodeno++;
+        height = 1;
+
+        /** Build the internal levels bottom up until a single root is left **/
+        while (level.size() > 1) {
+            ArrayList<Pair> parents = new ArrayList<>();
+            int i = 0;
+            while (i < level.size()) {
+                startNode(node, INTERNAL);
+                parents.add(new Pair(level.get(i).key, nodeno));
+                node.putInt(level.get(i++).ref);
+                numkeys = 0;
+                while (i < level.size() && node.position() + keySize(keytype, level.get(i).key) + 4 <= pagesize) {
+                    writeKey(node, keytype, level.get(i).key);
+                    node.putInt(level.get(i++).ref);
+                    numkeys++;
+                }
+                writeNode(channel, node, nodeno++, numkeys, -1);
+            }
+            level = parents;
+            height++;
+        }
+        root = level.get(0).ref;
+
+        ByteBuffer header = ByteBuffer.allocate(pagesize);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(pagesize);
+        header.putInt(column);
+        header.putInt(keytype);
+        header.putInt(root);
+        header.putInt(height);
+        header.putInt(numLeaves);
+        header.putLong(numEntries);
+        header.putInt(datPagesize);
+        header.putInt(datNumPages);
+        header.putLong(datNumTuples);
+        writePage(channel, header, 0);
+        return true;
+    }
+
+    private void startNode(ByteBuffer node, int kind) {
+        node.clear();
+        Arrays.fill(node.array(), (byte) 0);
+        node.putInt(kind);
+        node.putInt(0);
+        node.putInt(-1);
+    }
+
+    private void writeNode(FileChannel channel, ByteBuffer node, int nodeno, int numkeys, int next) throws IOException {
+        node.putInt(4, numkeys);
+        node.putInt(8, next);
+        writePage(channel, node, nodeno);
+    }
+
+    private void writePage(FileChannel channel, ByteBuffer page, int pageno) throws IOException {
+        page.position(0);
+        page.limit(pagesize);
+        long position = (long) pageno * pagesize;
+        while (page.hasRemaining()) {
+            position += channel.write(page, position);
+        }
+    }
+}
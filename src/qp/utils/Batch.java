@@ -91,6 +91,19 @@ public class Batch implements Serializable {
         return tuples.size();
     }
 
+    /**
+     * Estimated number of bytes of heap held by the page and its tuples
+     */
+    public long memorySize() {
+        long bytes = MemoryGovernor.align(MemoryGovernor.OBJECT + 4 + MemoryGovernor.REFERENCE)
+                + MemoryGovernor.align(MemoryGovernor.OBJECT + 8 + MemoryGovernor.REFERENCE)
+                + MemoryGovernor.arraySize(Math.max(MAX_SIZE, tuples.size()), MemoryGovernor.REFERENCE);
+        for (Tuple t : tuples) {
+            bytes += t.memorySize();
+        }
+        return bytes;
+    }
+
     public boolean isFull() {
         if (size() == capacity())
             return true;
@@ -0,0 +1,295 @@
+/**
+ * Bitmap index over a low cardinality column of a binary table file
+ **/
+
+package qp.utils;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * BitmapIndex is the index file <tablename>.<column>.bmp of a column of the table file
+ * * <tablename>.dat. Tuples are numbered by their position in the file, and for every
+ * * distinct value of the column the index holds the compressed bitmap of the positions
+ * * of the tuples with that value, together with the position of the first tuple of every
+ * * data page. A condition is evaluated as the union of the bitmaps of the values that
+ * * satisfy it, a conjunction as the intersection of those unions, and only the data
+ * * pages holding a remaining position are read.
+ **/
+public class BitmapIndex {
+
+    static final int MAGIC = 0x5150424d;   // "QPBM"
+    public static final int MAXVALUES = 1024;  // Largest number of distinct values indexed
+
+    int column;                         // Index of the indexed column in the table
+    int keytype;                        // Attribute type of the indexed column
+    int datPagesize;                    // Page size of the indexed table file
+    int datNumPages;                    // Number of data pages of the indexed table file
+    long datNumTuples;                  // Number of tuples of the indexed table file
+    int[] pageStarts;                   // Position of the first tuple of every page, and the number of tuples
+    ArrayList<Object> values;           // Distinct values of the column, increasing
+    ArrayList<RoaringBitmap> bitmaps;   // Positions of the tuples with every value
+    RoaringBitmap nulls;                // Positions of the tuples with a null
+
+    BitmapIndex() {
+        values = new ArrayList<>();
+        bitmaps = new ArrayList<>();
+        nulls = new RoaringBitmap();
+    }
+
+    public static String fileName(String tabname, String colname) {
+        return tabname + "." + colname + ".bmp";
+    }
+
+    public int getNumValues() {
+        return values.size();
+    }
+
+    public int getKeyType() {
+        return keytype;
+    }
+
+    /**
+     * Positions of the tuples that may satisfy the condition on the indexed column,
+     * * null if the condition cannot be evaluated on the index
+     */
+    public RoaringBitmap match(Condition con) {
+        if (!(con.getRhs() instanceof String)) {
+            return null;
+        }
+        Object key = BPlusTree.parseKey(keytype, (String) con.getRhs());
+        if (key == null) {
+            return null;
+        }
+        int exprtype = con.getExprType();
+        RoaringBitmap rows = exprtype == Condition.NOTEQUAL ? nulls : new RoaringBitmap();
+        for (int i = 0; i < values.size(); ++i) {
+            int flag = BPlusTree.compare(keytype, values.get(i), key);
+            boolean satisfied;
+            switch (exprtype) {
+                case Condition.LESSTHAN:
+                    satisfied = flag < 0;
+                    break;
+                case Condition.GREATERTHAN:
+                    satisfied = flag > 0;
+                    break;
+                case Condition.LTOE:
+                    satisfied = flag <= 0;
+                    break;
+                case Condition.GTOE:
+                    satisfied = flag >= 0;
+                    break;
+                case Condition.EQUAL:
+                    satisfied = flag == 0;
+                    break;
+                case Condition.NOTEQUAL:
+                    satisfied = flag != 0;
+                    break;
+                default:
+                    return null;
+            }
+            if (satisfied) {
+                rows = RoaringBitmap.or(rows, bitmaps.get(i));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Data pages holding at least one of the positions
+     */
+    public BitSet pagesOf(RoaringBitmap rows) {
+        BitSet pages = new BitSet(datNumPages);
+        int page = 0;
+        for (int pos = rows.nextSetBit(0); pos >= 0 && page < datNumPages; pos = rows.nextSetBit(pageStarts[page])) {
+            while (page < datNumPages && pageStarts[page + 1] <= pos) {
+                page++;
+            }
+            if (page < datNumPages) {
+                pages.set(page++);
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Pages that may hold tuples satisfying all the conditions on attributes of the given
+     * * schema, evaluated on the bitmap indexes of the table. Null if none of the
+     * * conditions is on a column with a bitmap index.
+     */
+    public static BitSet match(String tabname, List<Condition> conditions, Schema schema) {
+        BitmapIndex index = null;
+        RoaringBitmap rows = null;
+        for (Condition con : conditions) {
+            int attrind = schema.indexOf(con.getLhs());
+            if (attrind < 0) {
+                continue;
+            }
+            BitmapIndex colindex = of(tabname, schema.getAttribute(attrind).getColName());
+            RoaringBitmap colrows = colindex == null ? null : colindex.match(con);
+            if (colrows == null) {
+                continue;
+            }
+            index = colindex;
+            rows = rows == null ? colrows : RoaringBitmap.and(rows, colrows);
+        }
+        return rows == null ? null : index.pagesOf(rows);
+    }
+
+    /**
+     * Builds the index of a column of an open table file, fails if the column
+     * * has more than MAXVALUES distinct values
+     */
+    public static boolean build(String filename, TableFile table, int column) {
+        BitmapIndex index = new BitmapIndex();
+        index.column = column;
+        index.keytype = table.getTypes()[column];
+        index.datPagesize = table.getPageSize();
+        index.datNumPages = table.getNumPages();
+        index.datNumTuples = table.getNumTuples();
+        index.pageStarts = new int[table.getNumPages() + 1];
+        if (table.getNumTuples() > Integer.MAX_VALUE) {
+            System.err.println("BitmapIndex: Too many tuples in " + table.getFileName());
+            return false;
+        }
+
+        TreeMap<Object, RoaringBitmap> rows = new TreeMap<>((a, b) -> BPlusTree.compare(index.keytype, a, b));
+        int[] columns = {column};
+        TupleLayout layout = TupleLayout.of(new int[]{index.keytype});
+        ArrayList<Tuple> tuples = new ArrayList<>();
+        int pos = 0;
+        try {
+            for (int p = 0; p < table.getNumPages(); ++p) {
+                index.pageStarts[p] = pos;
+                tuples.clear();
+                table.decodePage(table.readPage(p), columns, layout, tuples);
+                for (Tuple t : tuples) {
+                    Object key = t.dataAt(0);
+                    if (key == null || (key instanceof Float && ((Float) key).isNaN())) {
+                        index.nulls.add(pos++);
+                        continue;
+                    }
+                    RoaringBitmap bitmap = rows.get(key);
+                    if (bitmap == null) {
+                        if (rows.size() == MAXVALUES) {
+                            System.err.println("BitmapIndex: More than " + MAXVALUES + " distinct values in the column");
+                            return false;
+                        }
+                        bitmap = new RoaringBitmap();
+                        rows.put(key, bitmap);
+                    }
+                    bitmap.add(pos++);
+                }
+            }
+        } catch (IOException io) {
+            System.err.println("BitmapIndex: Error reading " + table.getFileName());
+            return false;
+        }
+        index.pageStarts[table.getNumPages()] = pos;
+        index.values.addAll(rows.keySet());
+        index.bitmaps.addAll(rows.values());
+        return index.write(filename);
+    }
+
+    private boolean write(String filename) {
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+            out.writeInt(MAGIC);
+            out.writeInt(column);
+            out.writeInt(keytype);
+            out.writeInt(datPagesize);
+            out.writeInt(datNumPages);
+            out.writeLong(datNumTuples);
+            for (int start : pageStarts) {
+                out.writeInt(start);
+            }
+            out.writeInt(values.size());
+            for (int i = 0; i < values.size(); ++i) {
+                writeValue(out, keytype, values.get(i));
+                bitmaps.get(i).write(out);
+            }
+            nulls.write(out);
+            out.close();
+        } catch (IOException io) {
+            System.err.println("BitmapIndex: Error writing " + filename);
+            return false;
+        }
+        return true;
+    }
+
+    private static void writeValue(DataOutputStream out, int type, Object value) throws IOException {
+        if (type == Attribute.INT) {
+            out.writeInt((Integer) value);
+        } else if (type == Attribute.REAL) {
+            out.writeFloat((Float) value);
+        } else {
+            out.writeUTF((String) value);
+        }
+    }
+
+    private static Object readValue(DataInputStream in, int type) throws IOException {
+        if (type == Attribute.INT) {
+            return in.readInt();
+        } else if (type == Attribute.REAL) {
+            return in.readFloat();
+        }
+        return in.readUTF();
+    }
+
+    private static BitmapIndex read(String filename) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)));
+        try {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            BitmapIndex index = new BitmapIndex();
+            index.column = in.readInt();
+            index.keytype = in.readInt();
+            index.datPagesize = in.readInt();
+            index.datNumPages = in.readInt();
+            index.datNumTuples = in.readLong();
+            index.pageStarts = new int[index.datNumPages + 1];
+            for (int p = 0; p <= index.datNumPages; ++p) {
+                index.pageStarts[p] = in.readInt();
+            }
+            int numValues = in.readInt();
+            for (int i = 0; i < numValues; ++i) {
+                index.values.add(readValue(in, index.keytype));
+                index.bitmaps.add(RoaringBitmap.read(in));
+            }
+            index.nulls = RoaringBitmap.read(in);
+            return index;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Bitmap index of the column of the table, null if there is none
+     * * or if it was not built for the current table file
+     */
+    public static BitmapIndex of(String tabname, String colname) {
+        return TableMetadata.get(fileName(tabname, colname), filename -> {
+            TableFile table = TableMetadata.header(tabname);
+            if (table == null || !new File(filename).isFile()) {
+                return null;
+            }
+            BitmapIndex index;
+            try {
+                index = read(filename);
+            } catch (IOException io) {
+                System.err.println("BitmapIndex: Error reading " + filename);
+                return null;
+            }
+            if (table.getPageSize() != index.datPagesize || table.getNumPages() != index.datNumPages
+                    || table.getNumTuples() != index.datNumTuples || index.column >= table.getTypes().length
+                    || table.getTypes()[index.column] != index.keytype) {
+                return null;
+            }
+            return index;
+        });
+    }
+}
@@ -0,0 +1,374 @@
+/**
+ * Buffer pool caching the pages of table files and temporary files
+ **/
+
+package qp.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * BufferPool holds a fixed number of frames, each caching one page of a file under
+ * * (file, page number). A page is pinned while it is used and cannot be evicted until
+ * * it is unpinned again. When a page is needed and no frame is free, the replacement
+ * * policy chooses an unpinned page to evict. Dirty pages are written back when they
+ * * are evicted or when their file is flushed, always in the order of their page numbers
+ * * and together with the dirty pages before them, so files that are only appended to
+ * * are written sequentially.
+ * * Every pin says how the page is read, see AccessPattern. A file that is read over and
+ * * over holds at most LOOPSHARE of the frames, beyond that a new page of it replaces the
+ * * page of the same file used last. A loop longer than its share so keeps the pages at
+ * * its start cached and hits on them in every pass, where LRU like policies would evict
+ * * every page just before it is needed again.
+ * * The pool is shared by all the operators and lives as long as the process, so pages
+ * * read once stay cached for later scans of the same file.
+ **/
+public class BufferPool {
+
+    public static final int DEFAULT_FRAMES = 1024;
+    public static final double LOOPSHARE = 0.75;   // Fraction of the frames a looping file may hold
+
+    static volatile BufferPool pool = new BufferPool(DEFAULT_FRAMES, new ClockPolicy());
+
+    final Frame[] frames;                   // All the frames of the pool
+    final HashMap<PageId, Frame> table;     // Frame holding every cached page
+    final ArrayDeque<Frame> free;           // Frames holding no page
+    final ReplacementPolicy policy;         // Chooses the page to evict
+    long hits;                              // Number of pins of cached pages
+    long misses;                            // Number of pins that read the page
+    long writes;                            // Number of dirty pages written back
+    long ticks;                             // Logical time, advanced on every pin
+
+    /**
+     * Page number of a file
+     **/
+    public static class PageId {
+        final String fileId;
+        final int pageno;
+
+        PageId(String fileId, int pageno) {
+            this.fileId = fileId;
+            this.pageno = pageno;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof PageId)) {
+                return false;
+            }
+            PageId other = (PageId) o;
+            return pageno == other.pageno && fileId.equals(other.fileId);
+        }
+
+        public int hashCode() {
+            return 31 * fileId.hashCode() + pageno;
+        }
+
+        public String toString() {
+            return fileId + ":" + pageno;
+        }
+    }
+
+    /**
+     * A slot of the pool and the page it holds
+     **/
+    public static class Frame {
+        final int index;        // Position of the frame in the pool
+        PageId id;              // Page held, null if the frame is free
+        PagedFile file;         // File of the page, used to write it back
+        ByteBuffer data;        // Contents of the page
+        int pinCount;           // Number of users of the page
+        boolean dirty;          // Whether the page differs from the file
+        int pattern;            // How the page was read when it was last pinned
+        long lastUsed;          // Time the page was last pinned
+
+        Frame(int index) {
+            this.index = index;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public PageId getPageId() {
+            return id;
+        }
+
+        public boolean isPinned() {
+            return pinCount > 0;
+        }
+
+        public boolean isDirty() {
+            return dirty;
+        }
+
+        public int getAccessPattern() {
+            return pattern;
+        }
+    }
+
+    public BufferPool(int numFrames, ReplacementPolicy policy) {
+        frames = new Frame[Math.max(1, numFrames)];
+        table = new HashMap<>();
+        free = new ArrayDeque<>();
+        for (int i = 0; i < frames.length; ++i) {
+            frames[i] = new Frame(i);
+            free.add(frames[i]);
+        }
+        this.policy = policy;
+        policy.init(frames);
+    }
+
+    /**
+     * Buffer pool shared by all the operators
+     */
+    public static BufferPool get() {
+        return pool;
+    }
+
+    /**
+     * Replaces the shared pool by an empty one, the dirty pages of the old one are written first
+     */
+    public static synchronized void configure(int numFrames, ReplacementPolicy policy) {
+        pool.flushAll();
+        pool = new BufferPool(numFrames, policy);
+    }
+
+    /**
+     * Replacement policy of the given name, clock, lru-K, mru, 2q or arc, null if there is none
+     */
+    public static ReplacementPolicy policyOf(String name) {
+        name = name.toLowerCase();
+        if (name.equals("clock")) {
+            return new ClockPolicy();
+        } else if (name.equals("mru")) {
+            return new MRUPolicy();
+        } else if (name.equals("2q")) {
+            return new TwoQPolicy();
+        } else if (name.equals("arc")) {
+            return new ARCPolicy();
+        } else if (name.startsWith("lru-")) {
+            try {
+                return new LRUKPolicy(Integer.parseInt(name.substring(4)));
+            } catch (NumberFormatException nfe) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    public int getNumFrames() {
+        return frames.length;
+    }
+
+    public ReplacementPolicy getPolicy() {
+        return policy;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getWrites() {
+        return writes;
+    }
+
+    /**
+     * Pins the page for random access, reading it from the file if it is not cached
+     */
+    public ByteBuffer pin(PagedFile file, int pageno) {
+        return pin(file, pageno, AccessPattern.RANDOM);
+    }
+
+    /**
+     * Pins the page, reading it from the file if it is not cached. The returned buffer
+     * * is only valid until the page is unpinned.
+     */
+    public synchronized ByteBuffer pin(PagedFile file, int pageno, int pattern) {
+        PageId id = new PageId(file.getFileId(), pageno);
+        Frame frame = table.get(id);
+        if (frame != null) {
+            hits++;
+            frame.pinCount++;
+            frame.pattern = pattern;
+            frame.lastUsed = ++ticks;
+            policy.accessed(frame);
+            return frame.data.duplicate();
+        }
+        misses++;
+        frame = allocate(id.fileId, pattern);
+        try {
+            frame.data = file.readPage(pageno);
+        } catch (IOException io) {
+            System.err.println("BufferPool: Error reading page " + pageno + " of " + file.getFileId());
+            System.exit(1);
+        }
+        install(frame, id, file, pattern);
+        return frame.data.duplicate();
+    }
+
+    /**
+     * Pins a new page with the given contents without reading the file, the page is dirty
+     */
+    public synchronized ByteBuffer pinNew(PagedFile file, int pageno, ByteBuffer data, int pattern) {
+        PageId id = new PageId(file.getFileId(), pageno);
+        Frame frame = table.get(id);
+        if (frame != null) {
+            if (frame.isPinned()) {
+                System.err.println("BufferPool: Page " + id + " is in use");
+                System.exit(1);
+            }
+            drop(frame);
+        }
+        frame = allocate(id.fileId, pattern);
+        frame.data = data;
+        install(frame, id, file, pattern);
+        frame.dirty = true;
+        return frame.data.duplicate();
+    }
+
+    /**
+     * Unpins the page, dirty marks it as changed since it was pinned
+     */
+    public synchronized void unpin(PagedFile file, int pageno, boolean dirty) {
+        Frame frame = table.get(new PageId(file.getFileId(), pageno));
+        if (frame == null || !frame.isPinned()) {
+            System.err.println("BufferPool: Page " + pageno + " of " + file.getFileId() + " is not pinned");
+            return;
+        }
+        frame.pinCount--;
+        frame.dirty |= dirty;
+    }
+
+    private void install(Frame frame, PageId id, PagedFile file, int pattern) {
+        frame.id = id;
+        frame.file = file;
+        frame.pinCount = 1;
+        frame.dirty = false;
+        frame.pattern = pattern;
+        frame.lastUsed = ++ticks;
+        table.put(id, frame);
+        policy.loaded(frame);
+    }
+
+    /**
+     * A free frame for a page of the file, evicting a page if there is none
+     */
+    private Frame allocate(String fileId, int pattern) {
+        Frame frame = free.poll();
+        if (frame != null) {
+            return frame;
+        }
+        if (pattern == AccessPattern.LOOPING) {
+            frame = loopVictim(fileId);
+        }
+        if (frame == null) {
+            frame = policy.victim();
+        }
+        if (frame == null) {
+            System.err.println("BufferPool: All the " + frames.length + " frames are pinned");
+            System.exit(1);
+        }
+        if (frame.dirty) {
+            flush(frame.file, frame.id.pageno);
+        }
+        drop(frame);
+        return free.poll();
+    }
+
+    /**
+     * The unpinned page of the looping file used last if the file holds its share
+     * * of the frames, null if the policy is to choose
+     */
+    private Frame loopVictim(String fileId) {
+        int held = 0;
+        Frame victim = null;
+        for (Frame frame : frames) {
+            if (frame.id == null || !frame.id.fileId.equals(fileId)) {
+                continue;
+            }
+            held++;
+            if (!frame.isPinned() && (victim == null || frame.lastUsed > victim.lastUsed)) {
+                victim = frame;
+            }
+        }
+        return held >= Math.max(1, (int) (LOOPSHARE * frames.length)) ? victim : null;
+    }
+
+    /**
+     * Removes the page from its frame, which becomes free
+     */
+    private void drop(Frame frame) {
+        policy.evicted(frame);
+        table.remove(frame.id);
+        frame.id = null;
+        frame.file = null;
+        frame.data = null;
+        frame.pinCount = 0;
+        frame.dirty = false;
+        free.add(frame);
+    }
+
+    /**
+     * Writes the dirty pages of the file up to the given page, in the order of their page numbers
+     */
+    private void flush(PagedFile file, int uptopage) {
+        String fileId = file.getFileId();
+        ArrayList<Frame> dirty = new ArrayList<>();
+        for (Frame frame : frames) {
+            if (frame.dirty && frame.id.fileId.equals(fileId) && frame.id.pageno <= uptopage) {
+                dirty.add(frame);
+            }
+        }
+        dirty.sort((a, b) -> Integer.compare(a.id.pageno, b.id.pageno));
+        for (Frame frame : dirty) {
+            try {
+                frame.file.writePage(frame.id.pageno, frame.data.duplicate());
+            } catch (IOException io) {
+                System.err.println("BufferPool: Error writing page " + frame.id);
+                System.exit(1);
+            }
+            frame.dirty = false;
+            writes++;
+        }
+    }
+
+    /**
+     * Writes all the dirty pages of the file
+     */
+    public synchronized void flush(PagedFile file) {
+        flush(file, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Writes all the dirty pages of all the files
+     */
+    public synchronized void flushAll() {
+        ArrayList<PagedFile> files = new ArrayList<>();
+        for (Frame frame : frames) {
+            if (frame.dirty && !files.contains(frame.file)) {
+                files.add(frame.file);
+            }
+        }
+        for (PagedFile file : files) {
+            flush(file);
+        }
+    }
+
+    /**
+     * Drops all the pages of the file without writing them, for files that are rewritten or deleted
+     */
+    public synchronized void discard(String fileId) {
+        for (Frame frame : frames) {
+            if (frame.id != null && frame.id.fileId.equals(fileId)) {
+                drop(frame);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Clock replacement, an approximation of LRU with one reference bit per frame
+ **/
+
+package qp.utils;
+
+/**
+ * The hand sweeps the frames in a circle. A frame whose page was used since the hand
+ * * last passed gets its reference bit cleared and is passed over, the first unpinned
+ * * frame without the bit is the victim.
+ **/
+public class ClockPolicy implements ReplacementPolicy {
+
+    BufferPool.Frame[] frames;  // Frames of the pool
+    boolean[] referenced;       // Reference bit of every frame
+    int hand;                   // Next frame to look at
+
+    public void init(BufferPool.Frame[] frames) {
+        this.frames = frames;
+        referenced = new boolean[frames.length];
+        hand = 0;
+    }
+
+    /**
+     * Pages of a sequential scan start without the bit, so they are the first to go
+     */
+    public void loaded(BufferPool.Frame frame) {
+        referenced[frame.getIndex()] = frame.getAccessPattern() != AccessPattern.SEQUENTIAL;
+    }
+
+    public void accessed(BufferPool.Frame frame) {
+        referenced[frame.getIndex()] = true;
+    }
+
+    public BufferPool.Frame victim() {
+        /** Two sweeps clear all the bits, so an unpinned frame is found if there is one **/
+        for (int step = 0; step < 2 * frames.length; ++step) {
+            BufferPool.Frame frame = frames[hand];
+            hand = (hand + 1) % frames.length;
+            if (frame.isPinned()) {
+                continue;
+            }
+            if (referenced[frame.getIndex()]) {
+                referenced[frame.getIndex()] = false;
+                continue;
+            }
+            return frame;
+        }
+        return null;
+    }
+
+    public void evicted(BufferPool.Frame frame) {
+        referenced[frame.getIndex()] = false;
+    }
+
+    public String toString() {
+        return "clock";
+    }
+}
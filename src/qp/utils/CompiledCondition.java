@@ -0,0 +1,141 @@
+/**
+ * Selection condition compiled against a schema
+ **/
+
+package qp.utils;
+
+import java.util.function.IntPredicate;
+
+/**
+ * A select condition with the column ordinals resolved and the constant parsed
+ * * once, so evaluating it on a tuple is a single typed comparison. Every
+ * * combination of type and operator gets its own predicate.
+ **/
+public interface CompiledCondition {
+
+    /**
+     * Whether the tuple satisfies the condition
+     */
+    boolean test(Tuple tuple);
+
+    /**
+     * Compiles the condition for tuples of the given schema, returns null if the condition is malformed
+     */
+    static CompiledCondition compile(Condition con, Schema schema) {
+        int index = schema.indexOf(con.getLhs());
+        int datatype = schema.typeOf(con.getLhs());
+        int exprtype = con.getExprType();
+        Object rhs = con.getRhs();
+        if (index < 0) {
+            System.out.println("CompiledCondition: Unknown attribute " + con.getLhs());
+            return null;
+        }
+
+        if (rhs instanceof Attribute) {
+            int rindex = schema.indexOf((Attribute) rhs);
+            IntPredicate flagtest = flagTest(exprtype);
+            if (rindex < 0 || flagtest == null) {
+                System.out.println("Select: Malformed condition");
+                return null;
+            }
+            return t -> flagtest.test(Tuple.compareTuples(t, t, index, rindex));
+        } else if (!(rhs instanceof String)) {
+            System.out.println("Select: Malformed condition");
+            return null;
+        }
+
+        String value = (String) rhs;
+        if (datatype == Attribute.INT) {
+            return intCondition(index, exprtype, Integer.parseInt(value));
+        } else if (datatype == Attribute.REAL) {
+            return realCondition(index, exprtype, Float.parseFloat(value));
+        } else if (datatype == Attribute.STRING) {
+            return stringCondition(index, exprtype, value);
+        }
+        System.out.println("Select: Malformed condition");
+        return null;
+    }
+
+    static CompiledCondition intCondition(int index, int exprtype, int value) {
+        switch (exprtype) {
+            case Condition.LESSTHAN:
+                return t -> t.intAt(index) < value;
+            case Condition.GREATERTHAN:
+                return t -> t.intAt(index) > value;
+            case Condition.LTOE:
+                return t -> t.intAt(index) <= value;
+            case Condition.GTOE:
+                return t -> t.intAt(index) >= value;
+            case Condition.EQUAL:
+                return t -> t.intAt(index) == value;
+            case Condition.NOTEQUAL:
+                return t -> t.intAt(index) != value;
+            default:
+                System.out.println("Select: Incorrect condition operator");
+                return null;
+        }
+    }
+
+    static CompiledCondition realCondition(int index, int exprtype, float value) {
+        switch (exprtype) {
+            case Condition.LESSTHAN:
+                return t -> t.realAt(index) < value;
+            case Condition.GREATERTHAN:
+                return t -> t.realAt(index) > value;
+            case Condition.LTOE:
+                return t -> t.realAt(index) <= value;
+            case Condition.GTOE:
+                return t -> t.realAt(index) >= value;
+            case Condition.EQUAL:
+                return t -> t.realAt(index) == value;
+            case Condition.NOTEQUAL:
+                return t -> t.realAt(index) != value;
+            default:
+                System.out.println("Select: Incorrect condition operator");
+                return null;
+        }
+    }
+
+    static CompiledCondition stringCondition(int index, int exprtype, String value) {
+        switch (exprtype) {
+            case Condition.LESSTHAN:
+                return t -> t.stringAt(index).compareTo(value) < 0;
+            case Condition.GREATERTHAN:
+                return t -> t.stringAt(index).compareTo(value) > 0;
+            case Condition.LTOE:
+                return t -> t.stringAt(index).compareTo(value) <= 0;
+            case Condition.GTOE:
+                return t -> t.stringAt(index).compareTo(value) >= 0;
+            case Condition.EQUAL:
+                return t -> value.equals(t.stringAt(index));
+            case Condition.NOTEQUAL:
+                return t -> !value.equals(t.stringAt(index));
+            default:
+                System.out.println("Select: Incorrect condition operator");
+                return null;
+        }
+    }
+
+    /**
+     * Test on the result of a comparison for the given operator
+     */
+    static IntPredicate flagTest(int exprtype) {
+        switch (exprtype) {
+            case Condition.LESSTHAN:
+                return flag -> flag < 0;
+            case Condition.GREATERTHAN:
+                return flag -> flag > 0;
+            case Condition.LTOE:
+                return flag -> flag <= 0;
+            case Condition.GTOE:
+                return flag -> flag >= 0;
+            case Condition.EQUAL:
+                return flag -> flag == 0;
+            case Condition.NOTEQUAL:
+                return flag -> flag != 0;
+            default:
+                System.out.println("Select: Incorrect condition operator");
+                return null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Conjunction of compiled selection conditions
+ **/
+
+package qp.utils;
+
+/**
+ * All the conditions of a scan or a selection evaluated in a single pass. The conditions
+ * * are evaluated in the order of their estimated selectivity and the evaluation stops at
+ * * the first condition that fails. While running, the order is adjusted to the observed
+ * * pass rates of the conditions.
+ **/
+public class ConjunctiveFilter implements CompiledCondition {
+
+    static final int REORDER_INTERVAL = 1024;  // Number of tuples checked between reorderings
+    static final double PRIOR_WEIGHT = 16;     // Weight of the estimated selectivity against the observations
+
+    final CompiledCondition[] predicates;  // Conditions compiled against the schema
+    final double[] selectivity;            // Estimated fraction of tuples passing each condition, null if unknown
+    final int[] order;                     // Order in which the conditions are evaluated
+    final long[] evaluated;                // Number of tuples each condition was evaluated on
+    final long[] passed;                   // Number of tuples which satisfied each condition
+    int numChecked;                        // Number of tuples checked since the last reordering
+
+    public ConjunctiveFilter(CompiledCondition[] predicates, double[] selectivity) {
+        this.predicates = predicates;
+        this.selectivity = selectivity != null && selectivity.length == predicates.length ? selectivity : null;
+        order = new int[predicates.length];
+        for (int i = 0; i < order.length; ++i) {
+            order[i] = i;
+        }
+        evaluated = new long[predicates.length];
+        passed = new long[predicates.length];
+        reorder();
+    }
+
+    /**
+     * Order in which the conditions are evaluated now
+     */
+    public int[] getOrder() {
+        return order.clone();
+    }
+
+    public boolean test(Tuple tuple) {
+        if (++numChecked == REORDER_INTERVAL) {
+            numChecked = 0;
+            reorder();
+        }
+        for (int k : order) {
+            evaluated[k]++;
+            if (!predicates[k].test(tuple)) {
+                return false;
+            }
+            passed[k]++;
+        }
+        return true;
+    }
+
+    /**
+     * Expected fraction of tuples passing the condition, the estimate
+     * * counts as PRIOR_WEIGHT observations
+     */
+    private double passRate(int k) {
+        double estimate = selectivity != null ? selectivity[k] : 0.5;
+        return (passed[k] + estimate * PRIOR_WEIGHT) / (evaluated[k] + PRIOR_WEIGHT);
+    }
+
+    /**
+     * Sorts the conditions so the ones most likely to fail are evaluated first
+     */
+    private void reorder() {
+        for (int i = 1; i < order.length; ++i) {
+            int k = order[i];
+            double rate = passRate(k);
+            int j = i - 1;
+            while (j >= 0 && passRate(order[j]) > rate) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = k;
+        }
+    }
+}
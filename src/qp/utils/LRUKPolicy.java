@@ -0,0 +1,91 @@
+/**
+ * LRU-K replacement
+ **/
+
+package qp.utils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The victim is the unpinned page whose K-th most recent use is the oldest. Pages used
+ * * fewer than K times are evicted first, the least recently used of them first, so a
+ * * single sequential scan does not push out the pages that are used over and over.
+ * * The history of evicted pages is kept for as many pages as there are frames, so a
+ * * page that comes back soon keeps its earlier uses.
+ **/
+public class LRUKPolicy implements ReplacementPolicy {
+
+    final int k;                // Number of uses remembered per page
+    BufferPool.Frame[] frames;  // Frames of the pool
+    long clock;                 // Logical time, advanced on every use
+    long[][] history;           // Times of the last K uses of the page in every frame, most recent first
+    LinkedHashMap<BufferPool.PageId, long[]> retained;  // Histories of evicted pages
+
+    public LRUKPolicy(int k) {
+        this.k = Math.max(1, k);
+    }
+
+    public void init(BufferPool.Frame[] frames) {
+        final int capacity = frames.length;
+        this.frames = frames;
+        history = new long[frames.length][k];
+        retained = new LinkedHashMap<BufferPool.PageId, long[]>() {
+            protected boolean removeEldestEntry(Map.Entry<BufferPool.PageId, long[]> eldest) {
+                return size() > capacity;
+            }
+        };
+        clock = 0;
+    }
+
+    public void loaded(BufferPool.Frame frame) {
+        long[] uses = retained.remove(frame.getPageId());
+        if (uses == null) {
+            uses = new long[k];
+        }
+        history[frame.getIndex()] = uses;
+        accessed(frame);
+    }
+
+    public void accessed(BufferPool.Frame frame) {
+        long[] uses = history[frame.getIndex()];
+        System.arraycopy(uses, 0, uses, 1, k - 1);
+        uses[0] = ++clock;
+    }
+
+    public BufferPool.Frame victim() {
+        BufferPool.Frame victim = null;
+        for (BufferPool.Frame frame : frames) {
+            if (frame.isPinned()) {
+                continue;
+            }
+            if (victim == null || older(history[frame.getIndex()], history[victim.getIndex()])) {
+                victim = frame;
+            }
+        }
+        return victim;
+    }
+
+    /**
+     * Whether the K-th use of a is older than the one of b, uses that did not happen
+     * * are older than all others and ties go by the most recent use
+     **/
+    private boolean older(long[] a, long[] b) {
+        if (a[k - 1] != b[k - 1]) {
+            return a[k - 1] < b[k - 1];
+        }
+        return a[0] < b[0];
+    }
+
+    public void evicted(BufferPool.Frame frame) {
+        if (frame.getAccessPattern() != AccessPattern.SEQUENTIAL) {
+            retained.put(frame.getPageId(), history[frame.getIndex()]);
+        }
+        history[frame.getIndex()] = new long[k];
+    }
+
+    public String toString() {
+        return "lru-" + k;
+    }
+}
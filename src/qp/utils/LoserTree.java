@@ -0,0 +1,101 @@
+/**
+ * Tournament tree for merging sorted runs
+ **/
+
+package qp.utils;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * LoserTree merges k sorted runs by keeping the loser of every match in the
+ * * internal nodes of a tournament, so replacing the smallest tuple only replays
+ * * the matches on the path from its run to the root, which takes log(k) comparisons.
+ * * Only the current page of every run is held in memory by its TupleReader.
+ **/
+public class LoserTree {
+
+    final TupleReader[] runs;             // Cursors over the sorted runs
+    final Comparator<Tuple> comparator;   // Order of the runs
+    final Tuple[] heads;                  // Current tuple of every run, null if exhausted
+    final int[] tree;                     // Losers of the internal nodes, tree[0] holds the winner
+    final int k;                          // Number of runs
+
+    public LoserTree(List<TupleReader> runs, Comparator<Tuple> comparator) {
+        this.runs = runs.toArray(new TupleReader[0]);
+        this.comparator = comparator;
+        k = this.runs.length;
+        heads = new Tuple[k];
+        tree = new int[Math.max(1, k)];
+        for (int i = 0; i < k; ++i) {
+            heads[i] = this.runs[i].next();
+        }
+        tree[0] = k == 0 ? -1 : build(1);
+    }
+
+    /**
+     * Plays the matches of the subtree, leaves are at positions k..2k-1
+     */
+    private int build(int node) {
+        if (node >= k) {
+            return node - k;
+        }
+        int left = build(2 * node);
+        int right = build(2 * node + 1);
+        if (beats(left, right)) {
+            tree[node] = right;
+            return left;
+        }
+        tree[node] = left;
+        return right;
+    }
+
+    /**
+     * Whether the head of run a comes before the head of run b, exhausted runs always lose
+     * * and ties go to the earlier run so that the merge is stable
+     */
+    private boolean beats(int a, int b) {
+        if (heads[a] == null) return false;
+        if (heads[b] == null) return true;
+        int flag = comparator.compare(heads[a], heads[b]);
+        return flag < 0 || (flag == 0 && a < b);
+    }
+
+    public boolean isEmpty() {
+        return k == 0 || heads[tree[0]] == null;
+    }
+
+    /**
+     * Smallest tuple over all the runs without removing it, null if all runs are exhausted
+     */
+    public Tuple peek() {
+        return k == 0 ? null : heads[tree[0]];
+    }
+
+    /**
+     * Removes and returns the smallest tuple over all the runs, null if all runs are exhausted
+     */
+    public Tuple next() {
+        if (isEmpty()) {
+            return null;
+        }
+        int winner = tree[0];
+        Tuple result = heads[winner];
+        heads[winner] = runs[winner].next();
+        for (int node = (winner + k) / 2; node > 0; node /= 2) {
+            if (beats(tree[node], winner)) {
+                int loser = winner;
+                winner = tree[node];
+                tree[node] = loser;
+            }
+        }
+        tree[0] = winner;
+        return result;
+    }
+
+    public void close() {
+        for (TupleReader run : runs) {
+            run.close();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Most recently used replacement
+ **/
+
+package qp.utils;
+
+/**
+ * The victim is the unpinned page used last. When a file larger than the pool is read
+ * * over and over, LRU evicts every page just before it is needed again, while MRU keeps
+ * * the pages read first and hits on them in every later pass.
+ **/
+public class MRUPolicy implements ReplacementPolicy {
+
+    BufferPool.Frame[] frames;  // Frames of the pool
+    long[] lastUse;             // Time of the last use of the page in every frame
+    long clock;                 // Logical time, advanced on every use
+
+    public void init(BufferPool.Frame[] frames) {
+        this.frames = frames;
+        lastUse = new long[frames.length];
+        clock = 0;
+    }
+
+    public void loaded(BufferPool.Frame frame) {
+        accessed(frame);
+    }
+
+    public void accessed(BufferPool.Frame frame) {
+        lastUse[frame.getIndex()] = ++clock;
+    }
+
+    public BufferPool.Frame victim() {
+        BufferPool.Frame victim = null;
+        for (BufferPool.Frame frame : frames) {
+            if (!frame.isPinned() && (victim == null || lastUse[frame.getIndex()] > lastUse[victim.getIndex()])) {
+                victim = frame;
+            }
+        }
+        return victim;
+    }
+
+    public void evicted(BufferPool.Frame frame) {
+        lastUse[frame.getIndex()] = 0;
+    }
+
+    public String toString() {
+        return "mru";
+    }
+}
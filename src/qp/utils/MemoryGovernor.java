@@ -0,0 +1,142 @@
+/**
+ * Query level accounting of the heap memory held by the operators
+ **/
+
+package qp.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MemoryGovernor holds the number of bytes of heap the operators of a query may use for
+ * * their in-memory pages, blocks, heaps and hash tables, shared evenly among the buffers
+ * * of the query. An operator granted B buffers opens an account of B shares, reserves
+ * * the estimated size of every tuple or page it keeps and releases it when the tuple
+ * * or page is written out or dropped. An operator whose account is over its grant
+ * * spills or works on smaller blocks, even if the pages it holds are fewer than its
+ * * buffers, since the tuples of a page take several times the declared tuple size.
+ * * The sizes are estimated for a 64 bit JVM with compressed references.
+ **/
+public class MemoryGovernor {
+
+    public static final int OBJECT = 12;       // Bytes of an object header
+    public static final int ARRAY = 16;        // Bytes of an array header
+    public static final int REFERENCE = 4;     // Bytes of a reference
+
+    static long budget = Runtime.getRuntime().maxMemory() / 2;  // Bytes the operators may hold
+    static int numBuffers = 1;                                  // Number of buffers sharing the budget
+    static final ArrayList<Account> accounts = new ArrayList<>();
+
+    /**
+     * The memory held by one operator
+     **/
+    public static class Account {
+        final String name;      // Operator holding the memory
+        final long grant;       // Bytes the operator may hold
+        long used;              // Bytes held now
+        long peak;              // Most bytes held at any time
+
+        Account(String name, long grant) {
+            this.name = name;
+            this.grant = grant;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getGrant() {
+            return grant;
+        }
+
+        public synchronized long getUsed() {
+            return used;
+        }
+
+        public synchronized long getPeak() {
+            return peak;
+        }
+
+        public synchronized void reserve(long bytes) {
+            used += bytes;
+            peak = Math.max(peak, used);
+        }
+
+        public synchronized void release(long bytes) {
+            used = Math.max(0, used - bytes);
+        }
+
+        public synchronized void releaseAll() {
+            used = 0;
+        }
+
+        /**
+         * Whether the operator holds more than its grant
+         */
+        public synchronized boolean isOver() {
+            return used > grant;
+        }
+    }
+
+    /**
+     * Sets the budget of the next query and the number of buffers sharing it,
+     * * and forgets the accounts of the previous query
+     */
+    public static synchronized void configure(long budgetBytes, int buffers) {
+        budget = Math.max(1, budgetBytes);
+        numBuffers = Math.max(1, buffers);
+        accounts.clear();
+    }
+
+    public static synchronized long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Opens the account of an operator granted the given number of buffers
+     */
+    public static Account open(String name, int numBuff) {
+        return openBytes(name, grantOf(numBuff));
+    }
+
+    /**
+     * Opens the account of an operator granted the given number of bytes
+     */
+    public static synchronized Account openBytes(String name, long grant) {
+        Account account = new Account(name, grant);
+        accounts.add(account);
+        return account;
+    }
+
+    /**
+     * Bytes of heap granted with the given number of buffers
+     */
+    public static synchronized long grantOf(int numBuff) {
+        return budget / numBuffers * Math.max(1, numBuff);
+    }
+
+    /**
+     * Accounts opened since the query was configured, in the order they were opened
+     */
+    public static synchronized List<Account> getAccounts() {
+        return new ArrayList<>(accounts);
+    }
+
+    public static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Bytes of an array of the given length and element size
+     */
+    public static long arraySize(int length, int elementSize) {
+        return align(ARRAY + (long) length * elementSize);
+    }
+
+    /**
+     * Bytes of a string with its characters
+     */
+    public static long stringSize(String s) {
+        return align(OBJECT + REFERENCE + 8) + arraySize(s.length(), 2);
+    }
+}
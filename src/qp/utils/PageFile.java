@@ -0,0 +1,221 @@
+/**
+ * Temporary file of variable length pages
+ **/
+
+package qp.utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * PageFile stores every page as its length followed by its bytes, so a page can hold
+ * * a serialized batch of any size. Pages are appended through the buffer pool and only
+ * * reach the file when the pool writes them back, which happens in the order of the
+ * * page numbers. The offset of every page is kept, so any page can be read again.
+ * * The pages are written and read with the access pattern of the file, by default
+ * * sequential.
+ **/
+public class PageFile implements PagedFile {
+
+    final String filename;      // Name of the file
+    RandomAccessFile file;      // File being read and written
+    FileChannel channel;        // Channel of the file
+    long[] offsets;             // Offset of every page written to the file
+    int numWritten;             // Number of pages written to the file
+    int numPages;               // Number of pages, including those only in the pool
+    long length;                // Number of bytes written to the file
+    int pattern;                // How the pages are accessed, see AccessPattern
+
+    PageFile(String filename) {
+        this.filename = filename;
+        offsets = new long[16];
+        pattern = AccessPattern.SEQUENTIAL;
+    }
+
+    /**
+     * Creates an empty file, the pages cached for an earlier file of the same name are dropped
+     */
+    public static PageFile create(String filename) {
+        BufferPool.get().discard(filename);
+        PageFile pf = new PageFile(filename);
+        try {
+            pf.file = new RandomAccessFile(filename, "rw");
+            pf.file.setLength(0);
+            pf.channel = pf.file.getChannel();
+        } catch (IOException io) {
+            System.err.println("PageFile: Error creating " + filename);
+            return null;
+        }
+        return pf;
+    }
+
+    /**
+     * Opens an existing file and finds the offsets of its pages
+     */
+    public static PageFile open(String filename) {
+        PageFile pf = new PageFile(filename);
+        try {
+            pf.file = new RandomAccessFile(filename, "r");
+            pf.channel = pf.file.getChannel();
+            long size = pf.file.length();
+            while (pf.length < size) {
+                pf.file.seek(pf.length);
+                int pagelength = pf.file.readInt();
+                pf.addOffset(pf.length);
+                pf.length += 4 + pagelength;
+            }
+        } catch (IOException io) {
+            System.err.println("PageFile: Error reading " + filename);
+            pf.close();
+            return null;
+        }
+        pf.numPages = pf.numWritten;
+        return pf;
+    }
+
+    private void addOffset(long offset) {
+        if (numWritten == offsets.length) {
+            offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+        }
+        offsets[numWritten++] = offset;
+    }
+
+    public String getFileId() {
+        return filename;
+    }
+
+    public String getFileName() {
+        return filename;
+    }
+
+    public int getNumPages() {
+        return numPages;
+    }
+
+    public void setAccessPattern(int pattern) {
+        this.pattern = pattern;
+    }
+
+    public ByteBuffer readPage(int pageno) throws IOException {
+        if (pageno >= numWritten) {
+            throw new IOException("Page " + pageno + " of " + filename + " was never written");
+        }
+        ByteBuffer header = ByteBuffer.allocate(4);
+        readFully(header, offsets[pageno]);
+        header.flip();
+        ByteBuffer page = ByteBuffer.allocate(header.getInt());
+        readFully(page, offsets[pageno] + 4);
+        page.flip();
+        return page;
+    }
+
+    /**
+     * Appends the page to the file, pages are written in the order of their numbers
+     */
+    public void writePage(int pageno, ByteBuffer page) throws IOException {
+        if (pageno != numWritten) {
+            throw new IOException("Page " + pageno + " of " + filename + " is written out of order");
+        }
+        ByteBuffer header = ByteBuffer.allocate(4);
+        header.putInt(page.remaining());
+        header.flip();
+        long offset = length;
+        writeFully(header, offset);
+        int size = page.remaining();
+        writeFully(page, offset + 4);
+        addOffset(offset);
+        length = offset + 4 + size;
+    }
+
+    private void readFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of " + filename);
+            }
+            position += n;
+        }
+    }
+
+    private void writeFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += channel.write(buf, position);
+        }
+    }
+
+    /**
+     * Appends a page holding the batch through the buffer pool
+     */
+    public void appendBatch(Batch batch) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(batch);
+            out.close();
+        } catch (IOException io) {
+            System.err.println("PageFile: Error serializing a page of " + filename);
+            System.exit(1);
+        }
+        BufferPool pool = BufferPool.get();
+        int pageno = numPages++;
+        pool.pinNew(this, pageno, ByteBuffer.wrap(bytes.toByteArray()), pattern);
+        pool.unpin(this, pageno, true);
+    }
+
+    /**
+     * Reads the batch held by the page through the buffer pool
+     */
+    public Batch readBatch(int pageno) {
+        BufferPool pool = BufferPool.get();
+        ByteBuffer page = pool.pin(this, pageno, pattern);
+        Batch batch = null;
+        try {
+            byte[] bytes;
+            int offset;
+            if (page.hasArray()) {
+                bytes = page.array();
+                offset = page.arrayOffset() + page.position();
+            } else {
+                bytes = new byte[page.remaining()];
+                page.get(bytes);
+                offset = 0;
+            }
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes, offset, page.remaining()));
+            batch = (Batch) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("PageFile: Error deserializing page " + pageno + " of " + filename);
+            System.exit(1);
+        } finally {
+            pool.unpin(this, pageno, false);
+        }
+        return batch;
+    }
+
+    /**
+     * Writes the pages still held by the pool and closes the file
+     */
+    public void close() {
+        if (channel != null) {
+            BufferPool.get().flush(this);
+        }
+        try {
+            if (file != null) {
+                file.close();
+            }
+        } catch (IOException io) {
+            System.err.println("PageFile: Error closing " + filename);
+        }
+        file = null;
+        channel = null;
+    }
+
+    /**
+     * Deletes the file and drops its pages from the buffer pool
+     */
+    public static void delete(String filename) {
+        BufferPool.get().discard(filename);
+        new File(filename).delete();
+    }
+}
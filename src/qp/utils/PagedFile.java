@@ -0,0 +1,26 @@
+/**
+ * File read and written a page at a time through the buffer pool
+ **/
+
+package qp.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public interface PagedFile {
+
+    /**
+     * Identifies the contents of the file, pages are cached in the buffer pool under it
+     */
+    String getFileId();
+
+    /**
+     * Reads the page from the file, pages are numbered from 0
+     */
+    ByteBuffer readPage(int pageno) throws IOException;
+
+    /**
+     * Writes the page to the file
+     */
+    void writePage(int pageno, ByteBuffer page) throws IOException;
+}
@@ -0,0 +1,33 @@
+/**
+ * Chooses the frame of the buffer pool whose page is evicted
+ **/
+
+package qp.utils;
+
+public interface ReplacementPolicy {
+
+    /**
+     * Called once with all the frames of the pool before any page is loaded
+     */
+    void init(BufferPool.Frame[] frames);
+
+    /**
+     * A page was loaded into the frame
+     */
+    void loaded(BufferPool.Frame frame);
+
+    /**
+     * The page in the frame was pinned again
+     */
+    void accessed(BufferPool.Frame frame);
+
+    /**
+     * Unpinned frame whose page is to be evicted, null if all the frames are pinned
+     */
+    BufferPool.Frame victim();
+
+    /**
+     * The page in the frame was evicted or discarded
+     */
+    void evicted(BufferPool.Frame frame);
+}
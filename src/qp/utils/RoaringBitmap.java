@@ -0,0 +1,368 @@
+/**
+ * Compressed bitmap of tuple positions
+ **/
+
+package qp.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * RoaringBitmap splits the positions into chunks of 2^16 by their high 16 bits. A chunk
+ * * holding at most 4096 positions keeps the low 16 bits of its positions in a sorted
+ * * array, a denser chunk keeps a plain bitmap of 1024 longs. Intersections and unions
+ * * are computed chunk by chunk, and only chunks present in both (or either) bitmap
+ * * are touched.
+ **/
+public class RoaringBitmap {
+
+    static final int MAXARRAY = 4096;       // Largest number of positions of an array chunk
+    static final int BITMAPWORDS = 1024;    // Number of longs of a bitmap chunk
+
+    int numChunks;          // Number of chunks in use
+    char[] keys;            // High 16 bits of the positions of every chunk, increasing
+    Chunk[] chunks;         // Chunk of every key
+
+    /**
+     * Low 16 bits of the positions sharing the same high 16 bits
+     **/
+    static class Chunk {
+        int cardinality;    // Number of positions in the chunk
+        char[] array;       // Sorted positions, null for a bitmap chunk
+        long[] bitmap;      // Bits of the positions, null for an array chunk
+
+        Chunk() {
+            array = new char[4];
+        }
+
+        boolean contains(char low) {
+            if (bitmap != null) {
+                return (bitmap[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, cardinality, low) >= 0;
+        }
+
+        void add(char low) {
+            if (bitmap != null) {
+                long bit = 1L << low;
+                if ((bitmap[low >>> 6] & bit) == 0) {
+                    bitmap[low >>> 6] |= bit;
+                    cardinality++;
+                }
+                return;
+            }
+            int at = Arrays.binarySearch(array, 0, cardinality, low);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (cardinality == MAXARRAY) {
+                toBitmap();
+                add(low);
+                return;
+            }
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(MAXARRAY, 2 * array.length));
+            }
+            System.arraycopy(array, at, array, at + 1, cardinality - at);
+            array[at] = low;
+            cardinality++;
+        }
+
+        private void toBitmap() {
+            bitmap = new long[BITMAPWORDS];
+            for (int i = 0; i < cardinality; ++i) {
+                bitmap[array[i] >>> 6] |= 1L << array[i];
+            }
+            array = null;
+        }
+
+        /**
+         * Turns a bitmap chunk that became sparse back into an array chunk
+         **/
+        private void compact() {
+            if (bitmap == null || cardinality > MAXARRAY) {
+                return;
+            }
+            array = new char[Math.max(cardinality, 4)];
+            int n = 0;
+            for (int w = 0; w < BITMAPWORDS; ++w) {
+                long word = bitmap[w];
+                while (word != 0) {
+                    array[n++] = (char) (64 * w + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            bitmap = null;
+        }
+
+        /**
+         * Smallest position of the chunk not below low, -1 if there is none
+         **/
+        int next(int low) {
+            if (bitmap != null) {
+                int w = low >>> 6;
+                if (w >= BITMAPWORDS) {
+                    return -1;
+                }
+                long word = bitmap[w] & (-1L << low);
+                while (true) {
+                    if (word != 0) {
+                        return 64 * w + Long.numberOfTrailingZeros(word);
+                    }
+                    if (++w == BITMAPWORDS) {
+                        return -1;
+                    }
+                    word = bitmap[w];
+                }
+            }
+            int at = Arrays.binarySearch(array, 0, cardinality, (char) low);
+            if (at < 0) {
+                at = -at - 1;
+            }
+            return at < cardinality ? array[at] : -1;
+        }
+
+        static Chunk and(Chunk a, Chunk b) {
+            Chunk c = new Chunk();
+            if (a.bitmap != null && b.bitmap != null) {
+                c.bitmap = new long[BITMAPWORDS];
+                for (int w = 0; w < BITMAPWORDS; ++w) {
+                    c.bitmap[w] = a.bitmap[w] & b.bitmap[w];
+                    c.cardinality += Long.bitCount(c.bitmap[w]);
+                }
+                c.array = null;
+                c.compact();
+                return c;
+            }
+            if (a.bitmap != null) {
+                Chunk t = a;
+                a = b;
+                b = t;
+            }
+            /** a is an array chunk, the result is never larger than a **/
+            c.array = new char[Math.max(a.cardinality, 4)];
+            for (int i = 0; i < a.cardinality; ++i) {
+                if (b.contains(a.array[i])) {
+                    c.array[c.cardinality++] = a.array[i];
+                }
+            }
+            return c;
+        }
+
+        static Chunk or(Chunk a, Chunk b) {
+            Chunk c = new Chunk();
+            if (a.bitmap != null || b.bitmap != null || a.cardinality + b.cardinality > MAXARRAY) {
+                c.bitmap = new long[BITMAPWORDS];
+                c.array = null;
+                for (Chunk x : new Chunk[]{a, b}) {
+                    if (x.bitmap != null) {
+                        for (int w = 0; w < BITMAPWORDS; ++w) {
+                            c.bitmap[w] |= x.bitmap[w];
+                        }
+                    } else {
+                        for (int i = 0; i < x.cardinality; ++i) {
+                            c.bitmap[x.array[i] >>> 6] |= 1L << x.array[i];
+                        }
+                    }
+                }
+                for (int w = 0; w < BITMAPWORDS; ++w) {
+                    c.cardinality += Long.bitCount(c.bitmap[w]);
+                }
+                c.compact();
+                return c;
+            }
+            /** Merge of two sorted arrays **/
+            c.array = new char[Math.max(a.cardinality + b.cardinality, 4)];
+            int i = 0;
+            int j = 0;
+            while (i < a.cardinality || j < b.cardinality) {
+                char next;
+                if (j == b.cardinality || (i < a.cardinality && a.array[i] < b.array[j])) {
+                    next = a.array[i++];
+                } else if (i == a.cardinality || b.array[j] < a.array[i]) {
+                    next = b.array[j++];
+                } else {
+                    next = a.array[i++];
+                    j++;
+                }
+                c.array[c.cardinality++] = next;
+            }
+            return c;
+        }
+    }
+
+    public RoaringBitmap() {
+        keys = new char[4];
+        chunks = new Chunk[4];
+        numChunks = 0;
+    }
+
+    /**
+     * Index of the chunk of the given high bits, or -(insertion point)-1 if there is none
+     **/
+    private int chunkIndex(char high) {
+        if (numChunks > 0 && keys[numChunks - 1] == high) {
+            return numChunks - 1;
+        }
+        return Arrays.binarySearch(keys, 0, numChunks, high);
+    }
+
+    private void insertChunk(int at, char high, Chunk chunk) {
+        if (numChunks == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * keys.length);
+            chunks = Arrays.copyOf(chunks, 2 * chunks.length);
+        }
+        System.arraycopy(keys, at, keys, at + 1, numChunks - at);
+        System.arraycopy(chunks, at, chunks, at + 1, numChunks - at);
+        keys[at] = high;
+        chunks[at] = chunk;
+        numChunks++;
+    }
+
+    private void appendChunk(char high, Chunk chunk) {
+        if (chunk.cardinality > 0) {
+            insertChunk(numChunks, high, chunk);
+        }
+    }
+
+    /**
+     * Adds a position, positions must not be negative
+     **/
+    public void add(int pos) {
+        char high = (char) (pos >>> 16);
+        int at = chunkIndex(high);
+        if (at < 0) {
+            at = -at - 1;
+            insertChunk(at, high, new Chunk());
+        }
+        chunks[at].add((char) pos);
+    }
+
+    public boolean contains(int pos) {
+        int at = chunkIndex((char) (pos >>> 16));
+        return at >= 0 && chunks[at].contains((char) pos);
+    }
+
+    public long cardinality() {
+        long n = 0;
+        for (int i = 0; i < numChunks; ++i) {
+            n += chunks[i].cardinality;
+        }
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return numChunks == 0;
+    }
+
+    /**
+     * Smallest position not below from, -1 if there is none
+     **/
+    public int nextSetBit(int from) {
+        char high = (char) (from >>> 16);
+        int at = Arrays.binarySearch(keys, 0, numChunks, high);
+        int low = from & 0xffff;
+        if (at < 0) {
+            at = -at - 1;
+            low = 0;
+        }
+        for (; at < numChunks; ++at, low = 0) {
+            int next = chunks[at].next(low);
+            if (next >= 0) {
+                return (keys[at] << 16) | next;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Positions present in both bitmaps
+     **/
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap c = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.numChunks && j < b.numChunks) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (b.keys[j] < a.keys[i]) {
+                j++;
+            } else {
+                c.appendChunk(a.keys[i], Chunk.and(a.chunks[i], b.chunks[j]));
+                i++;
+                j++;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Positions present in either bitmap, the chunks present in only one bitmap are shared
+     **/
+    public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap c = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.numChunks || j < b.numChunks) {
+            if (j == b.numChunks || (i < a.numChunks && a.keys[i] < b.keys[j])) {
+                c.appendChunk(a.keys[i], a.chunks[i]);
+                i++;
+            } else if (i == a.numChunks || b.keys[j] < a.keys[i]) {
+                c.appendChunk(b.keys[j], b.chunks[j]);
+                j++;
+            } else {
+                c.appendChunk(a.keys[i], Chunk.or(a.chunks[i], b.chunks[j]));
+                i++;
+                j++;
+            }
+        }
+        return c;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(numChunks);
+        for (int i = 0; i < numChunks; ++i) {
+            Chunk chunk = chunks[i];
+            out.writeChar(keys[i]);
+            out.writeBoolean(chunk.bitmap != null);
+            out.writeInt(chunk.cardinality);
+            if (chunk.bitmap != null) {
+                for (long word : chunk.bitmap) {
+                    out.writeLong(word);
+                }
+            } else {
+                for (int k = 0; k < chunk.cardinality; ++k) {
+                    out.writeChar(chunk.array[k]);
+                }
+            }
+        }
+    }
+
+    public static RoaringBitmap read(DataInputStream in) throws IOException {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        int n = in.readInt();
+        for (int i = 0; i < n; ++i) {
+            char high = in.readChar();
+            Chunk chunk = new Chunk();
+            boolean dense = in.readBoolean();
+            chunk.cardinality = in.readInt();
+            if (dense) {
+                chunk.array = null;
+                chunk.bitmap = new long[BITMAPWORDS];
+                for (int w = 0; w < BITMAPWORDS; ++w) {
+                    chunk.bitmap[w] = in.readLong();
+                }
+            } else {
+                chunk.array = new char[Math.max(chunk.cardinality, 4)];
+                for (int k = 0; k < chunk.cardinality; ++k) {
+                    chunk.array[k] = in.readChar();
+                }
+            }
+            bitmap.appendChunk(high, chunk);
+        }
+        return bitmap;
+    }
+}
@@ -20,9 +20,11 @@ public class SQLQuery {
     ArrayList<Condition> joinList;       // List of join predicates
     ArrayList<Attribute> groupbyList;    // List of attibutes in groupby clause
     ArrayList<Attribute> orderbyList;    // List of attibutes in orderby clause
+    ArrayList<Boolean> orderbyDesc;      // Whether each attribute of the orderby clause is descending
 
     boolean isDistinct = false;          // Whether distinct key word appeared in select clause
     boolean isDesc = false;             // whether
+    int limit = -1;                      // Number of rows in the LIMIT clause, -1 if there is none
     public SQLQuery(ArrayList<Attribute> list1, ArrayList<String> list2, ArrayList<Condition> list3) {
         projectList = list1;
         fromList = list2;
@@ -96,6 +98,21 @@ public class SQLQuery {
         return joinList;
     }
 
+    /**
+     * Whether one of the projected attributes is aggregated
+     **/
+    public boolean hasAggregation() {
+        if (projectList == null) {
+            return false;
+        }
+        for (Attribute attr : projectList) {
+            if (attr.getAggType() != Attribute.NONE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void setGroupByList(ArrayList<Attribute> list) {
         groupbyList = list;
     }
@@ -106,6 +123,8 @@ public class SQLQuery {
 
     public void setOrderByList(ArrayList<Attribute> list) { orderbyList = list; }
 
+    public void setOrderByDesc(ArrayList<Boolean> list) { orderbyDesc = list; }
+
     public ArrayList<Attribute> getOrderByList() { return orderbyList; }
 
     public int getNumJoin() {
@@ -118,7 +137,29 @@ public class SQLQuery {
         return isDesc;
     }
 
+    /**
+     * Whether the i-th attribute of the orderby clause is sorted in descending order
+     **/
+    public boolean isDesc(int i) {
+        if (orderbyDesc != null && i < orderbyDesc.size()) {
+            return orderbyDesc.get(i);
+        }
+        return isDesc;
+    }
+
     public void setIsDesc(boolean value) {
         isDesc = value;
     }
+
+    public boolean hasLimit() {
+        return limit >= 0;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
 }
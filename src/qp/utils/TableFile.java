@@ -0,0 +1,431 @@
+/**
+ * Binary page oriented table file
+ **/
+
+package qp.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * TableFile is the binary format of a base table, <tablename>.dat. The file is a sequence of
+ * * fixed size pages. The first page is the header page holding the page size, the page layout
+ * * and the column types, every following page starts with the number of tuples on it.
+ * * Every field is encoded as: INT and REAL as 4 bytes, STRING as a 2 byte length and
+ * * the UTF-8 bytes, a length of -1 stands for a null string. So a string is at most
+ * * MAXSTRINGSIZE bytes long.
+ * * In the ROW layout the tuples follow one after the other. In the PAX layout the page
+ * * holds one minipage per column with the values of that column for all the tuples on the
+ * * page, preceded by the offset of every minipage, so that a scan only decodes the
+ * * columns it needs.
+ * * The file can also be memory mapped, then the pages are read straight out of the
+ * * mapping and the mapping is kept for later scans of the same unchanged file.
+ * * Scans read the pages through the buffer pool, which caches them under the name and
+ * * the modification time of the file, so a rewritten file is never served stale pages.
+ **/
+public class TableFile implements PagedFile {
+
+    public static final int MAGIC = 0x51505442;   // "QPTB"
+    public static final int VERSION = 2;
+    public static final int HEADERSIZE = 32;     // Bytes of the header page before the column types
+    public static final int PAGEHEADERSIZE = 4;  // Bytes of a data page before its tuples
+    public static final int MAXSTRINGSIZE = Short.MAX_VALUE;  // Bytes of the longest string, the length takes 2 bytes
+
+    public static final int ROW = 0;             // Tuples are stored one after the other
+    public static final int PAX = 1;             // Values are stored column by column within a page
+
+    static final int V1HEADERSIZE = 28;          // Header size of version 1 files, which are all ROW
+
+    final String filename;      // Name of the table file
+    int pagesize;               // Number of bytes per page of the file
+    int numPages;               // Number of data pages
+    long numTuples;             // Number of tuples in the table
+    int layout;                 // Page layout, ROW or PAX
+    int[] types;                // Attribute type of every column
+    int[] allColumns;           // Indices of all the columns
+    RandomAccessFile file;      // File being read
+    FileChannel channel;        // Channel of the file being read
+    ByteBuffer mapped;          // Memory mapping of the whole file, null if pages are read
+    String fileId;              // Name and modification time of the file when it was opened
+
+    /**
+     * Mappings of the files mapped so far, reused as long as the file is unchanged
+     **/
+    static final HashMap<String, Mapping> mappings = new HashMap<>();
+
+    static class Mapping {
+        final long length;              // Length of the file when it was mapped
+        final long modified;            // Modification time of the file when it was mapped
+        final MappedByteBuffer buffer;  // Mapping of the file
+
+        Mapping(long length, long modified, MappedByteBuffer buffer) {
+            this.length = length;
+            this.modified = modified;
+            this.buffer = buffer;
+        }
+    }
+
+    public TableFile(String filename) {
+        this.filename = filename;
+    }
+
+    public static String fileName(String tabname) {
+        return tabname + ".dat";
+    }
+
+    /**
+     * Whether the binary file of the table exists
+     */
+    public static boolean exists(String tabname) {
+        return new File(fileName(tabname)).isFile();
+    }
+
+    public String getFileName() {
+        return filename;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public int getPageSize() {
+        return pagesize;
+    }
+
+    public int getNumPages() {
+        return numPages;
+    }
+
+    public long getNumTuples() {
+        return numTuples;
+    }
+
+    public int getLayout() {
+        return layout;
+    }
+
+    public int[] getTypes() {
+        return types;
+    }
+
+    public boolean isMapped() {
+        return mapped != null;
+    }
+
+    /**
+     * Opens the file and reads the header page
+     */
+    public boolean open() {
+        return open(false);
+    }
+
+    /**
+     * Opens the file and reads the header page, if map is set the whole file is
+     * * memory mapped and the file itself is closed again right away
+     */
+    public boolean open(boolean map) {
+        mapped = null;
+        fileId = filename + "@" + new File(filename).lastModified();
+        try {
+            file = new RandomAccessFile(filename, "r");
+            channel = file.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADERSIZE);
+            readFully(header, 0);
+            header.flip();
+            int magic = header.getInt();
+            int version = header.getInt();
+            if (magic != MAGIC || (version != 1 && version != VERSION)) {
+                System.err.println("TableFile: " + filename + " is not a table file");
+                close();
+                return false;
+            }
+            pagesize = header.getInt();
+            numPages = header.getInt();
+            numTuples = header.getLong();
+            int numCols = header.getInt();
+            layout = version == 1 ? ROW : header.getInt();
+            ByteBuffer coltypes = ByteBuffer.allocate(4 * numCols);
+            readFully(coltypes, version == 1 ? V1HEADERSIZE : HEADERSIZE);
+            coltypes.flip();
+            types = new int[numCols];
+            allColumns = new int[numCols];
+            for (int i = 0; i < numCols; ++i) {
+                types[i] = coltypes.getInt();
+                allColumns[i] = i;
+            }
+            if (map) {
+                mapped = map();
+            }
+            if (mapped != null) {
+                file.close();
+                file = null;
+                channel = null;
+            }
+        } catch (IOException io) {
+            System.err.println("TableFile: Error reading " + filename);
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Maps the whole file read only, or reuses the mapping of an earlier scan.
+     * * Returns null for files too large for a single mapping, they are read page by page.
+     */
+    private ByteBuffer map() throws IOException {
+        long length = (long) (numPages + 1) * pagesize;
+        if (file.length() < length) {
+            throw new IOException("Unexpected end of " + filename);
+        }
+        if (length > Integer.MAX_VALUE) {
+            return null;
+        }
+        long modified = new File(filename).lastModified();
+        synchronized (mappings) {
+            Mapping mapping = mappings.get(filename);
+            if (mapping == null || mapping.length != length || mapping.modified != modified) {
+                mapping = new Mapping(length, modified, channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+                mappings.put(filename, mapping);
+            }
+            return mapping.buffer.duplicate();
+        }
+    }
+
+    /**
+     * Reads a whole data page, pages are numbered from 0. A page of a mapped
+     * * file is a view of the mapping and is not copied.
+     */
+    public ByteBuffer readPage(int pageno) throws IOException {
+        if (mapped != null) {
+            int start = (pageno + 1) * pagesize;
+            mapped.limit(start + pagesize);
+            mapped.position(start);
+            return mapped.slice();
+        }
+        ByteBuffer page = ByteBuffer.allocate(pagesize);
+        readFully(page, (long) (pageno + 1) * pagesize);
+        page.flip();
+        return page;
+    }
+
+    /**
+     * Table files are written by TableFileWriter only, the pool never holds dirty pages of them
+     */
+    public void writePage(int pageno, ByteBuffer page) throws IOException {
+        throw new IOException(filename + " is read only");
+    }
+
+    private void readFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of " + filename);
+            }
+            position += n;
+        }
+    }
+
+    public void close() {
+        try {
+            if (file != null) {
+                file.close();
+            }
+        } catch (IOException io) {
+            System.err.println("TableFile: Error closing " + filename);
+        }
+        file = null;
+        channel = null;
+        mapped = null;
+    }
+
+    /**
+     * Decodes the tuples of a data page. Only the given columns, in increasing order, are
+     * * decoded into tuples of the given layout, all the columns if columns is null.
+     */
+    public void decodePage(ByteBuffer page, int[] columns, TupleLayout target, List<Tuple> out) {
+        decodePage(page, columns, target, null, null, out);
+    }
+
+    /**
+     * Decodes the tuples of a data page that satisfy the filter, a tuple that fails the
+     * * filter is decoded into the same tuple as the next one. On PAX pages only the
+     * * positions marked as filtered are decoded before the filter is tested, the other
+     * * columns are only decoded for the tuples that pass.
+     */
+    public void decodePage(ByteBuffer page, int[] columns, TupleLayout target,
+                           CompiledCondition filter, boolean[] filtered, List<Tuple> out) {
+        if (columns == null) {
+            columns = allColumns;
+        }
+        int base = page.position();
+        int numtuples = page.getInt(base);
+        page.position(base + PAGEHEADERSIZE);
+        if (layout == PAX && filter != null) {
+            int[] pos = new int[columns.length];
+            for (int k = 0; k < columns.length; ++k) {
+                pos[k] = base + page.getInt(base + PAGEHEADERSIZE + 4 * columns[k]);
+            }
+            Tuple t = null;
+            for (int n = 0; n < numtuples; ++n) {
+                if (t == null) {
+                    t = new Tuple(target);
+                }
+                for (int k = 0; k < columns.length; ++k) {
+                    if (filtered[k]) {
+                        page.position(pos[k]);
+                        decodeField(page, types[columns[k]], t, k);
+                        pos[k] = page.position();
+                    }
+                }
+                boolean pass = filter.test(t);
+                for (int k = 0; k < columns.length; ++k) {
+                    if (!filtered[k]) {
+                        page.position(pos[k]);
+                        if (pass) {
+                            decodeField(page, types[columns[k]], t, k);
+                        } else {
+                            skipField(page, types[columns[k]]);
+                        }
+                        pos[k] = page.position();
+                    }
+                }
+                if (pass) {
+                    out.add(t);
+                    t = null;
+                }
+            }
+            return;
+        }
+        if (layout == PAX) {
+            Tuple[] tuples = new Tuple[numtuples];
+            for (int n = 0; n < numtuples; ++n) {
+                tuples[n] = new Tuple(target);
+            }
+            for (int k = 0; k < columns.length; ++k) {
+                int type = types[columns[k]];
+                page.position(base + page.getInt(base + PAGEHEADERSIZE + 4 * columns[k]));
+                for (int n = 0; n < numtuples; ++n) {
+                    decodeField(page, type, tuples[n], k);
+                }
+            }
+            for (int n = 0; n < numtuples; ++n) {
+                out.add(tuples[n]);
+            }
+            return;
+        }
+        Tuple t = null;
+        for (int n = 0; n < numtuples; ++n) {
+            if (t == null) {
+                t = new Tuple(target);
+            }
+            int k = 0;
+            for (int i = 0; i < types.length; ++i) {
+                if (k < columns.length && columns[k] == i) {
+                    decodeField(page, types[i], t, k++);
+                } else {
+                    skipField(page, types[i]);
+                }
+            }
+            if (filter == null || filter.test(t)) {
+                out.add(t);
+                t = null;
+            }
+        }
+    }
+
+    private static void decodeField(ByteBuffer page, int type, Tuple t, int index) {
+        if (type == Attribute.INT) {
+            t.setInt(index, page.getInt());
+        } else if (type == Attribute.REAL) {
+            t.setReal(index, page.getFloat());
+        } else {
+            t.setString(index, getString(page));
+        }
+    }
+
+    private static void skipField(ByteBuffer page, int type) {
+        if (type == Attribute.INT || type == Attribute.REAL) {
+            page.position(page.position() + 4);
+        } else {
+            int length = page.getShort();
+            page.position(page.position() + Math.max(length, 0));
+        }
+    }
+
+    static String getString(ByteBuffer page) {
+        int length = page.getShort();
+        if (length < 0) {
+            return null;
+        }
+        String value;
+        if (page.hasArray()) {
+            value = new String(page.array(), page.arrayOffset() + page.position(), length, StandardCharsets.UTF_8);
+            page.position(page.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            page.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    /**
+     * Number of bytes the tuple takes on a page, -1 if one of its strings
+     * * is longer than MAXSTRINGSIZE bytes and cannot be encoded
+     */
+    public static int encodedSize(Tuple t) {
+        int size = 0;
+        for (int i = 0; i < t.size(); ++i) {
+            int type = t.typeAt(i);
+            if (type == Attribute.INT || type == Attribute.REAL) {
+                size += 4;
+            } else {
+                String s = t.stringAt(i);
+                int length = s == null ? 0 : s.getBytes(StandardCharsets.UTF_8).length;
+                if (length > MAXSTRINGSIZE) {
+                    return -1;
+                }
+                size += 2 + length;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Appends the fields of the tuple to the page
+     */
+    public static void encode(Tuple t, ByteBuffer page) {
+        for (int i = 0; i < t.size(); ++i) {
+            encodeField(t, i, page);
+        }
+    }
+
+    /**
+     * Appends a single field of the tuple to the page
+     */
+    public static void encodeField(Tuple t, int index, ByteBuffer page) {
+        int type = t.typeAt(index);
+        if (type == Attribute.INT) {
+            page.putInt(t.intAt(index));
+        } else if (type == Attribute.REAL) {
+            page.putFloat(t.realAt(index));
+        } else {
+            String s = t.stringAt(index);
+            if (s == null) {
+                page.putShort((short) -1);
+            } else {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                page.putShort((short) bytes.length);
+                page.put(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Writes a base table in the binary page oriented format
+ **/
+
+package qp.utils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * TableFileWriter fills fixed size pages with tuples and writes every page out
+ * * once it is full, the header page is written when the file is closed.
+ * * In the PAX layout the tuples of a page are collected first and written
+ * * column by column when the page is full.
+ **/
+public class TableFileWriter {
+
+    final String filename;      // Name of the table file
+    final int pagesize;         // Number of bytes per page
+    final int layout;           // Page layout, TableFile.ROW or TableFile.PAX
+    final int[] types;          // Attribute type of every column
+    RandomAccessFile file;      // File being written
+    FileChannel channel;        // Channel of the file being written
+    ByteBuffer page;            // Page being filled
+    int pageTuples;             // Number of tuples on the page being filled
+    int pageBytes;              // Number of bytes used on the page being filled
+    ArrayList<Tuple> paxTuples; // Tuples of the PAX page being filled
+    int numPages;               // Number of data pages written
+    long numTuples;             // Number of tuples written
+    ZoneMap zones;              // Ranges of values of every page written
+
+    public TableFileWriter(String filename, int pagesize, Schema schema) {
+        this(filename, pagesize, schema, TableFile.ROW);
+    }
+
+    public TableFileWriter(String filename, int pagesize, Schema schema, int layout) {
+        this.filename = filename;
+        this.pagesize = pagesize;
+        this.layout = layout;
+        types = new int[schema.getNumCols()];
+        for (int i = 0; i < types.length; ++i) {
+            types[i] = schema.typeOf(i);
+        }
+    }
+
+    public int getNumPages() {
+        return numPages;
+    }
+
+    public long getNumTuples() {
+        return numTuples;
+    }
+
+    public ZoneMap getZoneMap() {
+        return zones;
+    }
+
+    public boolean open() {
+        if (TableFile.HEADERSIZE + 4 * types.length > pagesize) {
+            System.err.println("TableFileWriter: Page size is too small for the header of " + filename);
+            return false;
+        }
+        try {
+            file = new RandomAccessFile(filename, "rw");
+            file.setLength(0);
+            channel = file.getChannel();
+        } catch (IOException io) {
+            System.err.println("TableFileWriter: Error opening " + filename);
+            return false;
+        }
+        page = ByteBuffer.allocate(pagesize);
+        paxTuples = new ArrayList<>();
+        zones = new ZoneMap(types);
+        startPage();
+        numPages = 0;
+        numTuples = 0;
+        return true;
+    }
+
+    private void startPage() {
+        page.clear();
+        Arrays.fill(page.array(), (byte) 0);
+        page.putInt(0);
+        pageTuples = 0;
+        pageBytes = pageHeaderSize();
+        paxTuples.clear();
+    }
+
+    /**
+     * Bytes of a data page before its tuples, PAX pages also hold the offset of every column
+     */
+    private int pageHeaderSize() {
+        return TableFile.PAGEHEADERSIZE + (layout == TableFile.PAX ? 4 * types.length : 0);
+    }
+
+    /**
+     * Adds a tuple to the current page, starting a new page if it does not fit
+     */
+    public boolean next(Tuple t) {
+        int size = TableFile.encodedSize(t);
+        if (size < 0) {
+            System.err.println("TableFileWriter: String longer than " + TableFile.MAXSTRINGSIZE + " bytes in " + filename);
+            return false;
+        }
+        if (pageHeaderSize() + size > pagesize) {
+            System.err.println("TableFileWriter: Tuple does not fit in a page of " + filename);
+            return false;
+        }
+        if (pageBytes + size > pagesize) {
+            writePage();
+        }
+        zones.add(numPages, t);
+        if (layout == TableFile.PAX) {
+            paxTuples.add(t);
+        } else {
+            TableFile.encode(t, page);
+        }
+        pageBytes += size;
+        pageTuples++;
+        numTuples++;
+        return true;
+    }
+
+    private void writePage() {
+        page.putInt(0, pageTuples);
+        if (layout == TableFile.PAX) {
+            page.position(pageHeaderSize());
+            for (int i = 0; i < types.length; ++i) {
+                page.putInt(TableFile.PAGEHEADERSIZE + 4 * i, page.position());
+                for (Tuple t : paxTuples) {
+                    TableFile.encodeField(t, i, page);
+                }
+            }
+        }
+        write(page, (long) (numPages + 1) * pagesize);
+        numPages++;
+        startPage();
+    }
+
+    private void write(ByteBuffer buf, long position) {
+        buf.position(0);
+        buf.limit(pagesize);
+        try {
+            while (buf.hasRemaining()) {
+                position += channel.write(buf, position);
+            }
+        } catch (IOException io) {
+            System.err.println("TableFileWriter: Error writing " + filename);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Flushes the last page and writes the header page
+     */
+    public boolean close() {
+        if (pageTuples > 0) {
+            writePage();
+        }
+        ByteBuffer header = ByteBuffer.allocate(pagesize);
+        header.putInt(TableFile.MAGIC);
+        header.putInt(TableFile.VERSION);
+        header.putInt(pagesize);
+        header.putInt(numPages);
+        header.putLong(numTuples);
+        header.putInt(types.length);
+        header.putInt(layout);
+        for (int type : types) {
+            header.putInt(type);
+        }
+        write(header, 0);
+        try {
+            file.close();
+        } catch (IOException io) {
+            System.err.println("TableFileWriter: Error closing " + filename);
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Metadata of the tables read by a query
+ **/
+
+package qp.utils;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.function.Function;
+
+/**
+ * Everything read from the metadata files of the tables, the header of the table file,
+ * * the statistics, the zone map and the indexes, is kept here under the name of the file.
+ * * Every file is read at most once per query however many plans are costed. QueryMain
+ * * clears the cache before a query, so files rewritten in between are read again.
+ **/
+public class TableMetadata {
+
+    static final HashMap<String, Object> cache = new HashMap<>();  // File name to what was read from it
+
+    /**
+     * What the loader read from the file, it is called only the first time the file
+     * * is asked for. A null result is kept as well.
+     */
+    @SuppressWarnings("unchecked")
+    public static synchronized <T> T get(String filename, Function<String, T> loader) {
+        if (cache.containsKey(filename)) {
+            return (T) cache.get(filename);
+        }
+        T value = loader.apply(filename);
+        cache.put(filename, value);
+        return value;
+    }
+
+    /**
+     * Forgets the metadata read for the previous query
+     */
+    public static synchronized void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Header of the table file of the table, null if there is none. The returned
+     * * file is closed, only its page size, page count, tuple count, layout and
+     * * column types are used.
+     */
+    public static TableFile header(String tabname) {
+        return get(TableFile.fileName(tabname), filename -> {
+            if (!new File(filename).isFile()) {
+                return null;
+            }
+            TableFile table = new TableFile(filename);
+            if (!table.open()) {
+                return null;
+            }
+            table.close();
+            return table;
+        });
+    }
+}
@@ -6,28 +6,153 @@ package qp.utils;
 
 import java.util.*;
 import java.io.*;
-import java.util.stream.Collectors;
 
 /**
- * Tuple - a simple object which holds an ArrayList of data
+ * Tuple - a simple object which holds the values of a row in typed slots.
+ * * INT values are kept in an int[], REAL values in a float[] and STRING values
+ * * as references, the TupleLayout maps every column to its slot.
  */
 public class Tuple implements Serializable {
 
-    public ArrayList<Object> _data;
+    private static final int[] NOINTS = new int[0];
+    private static final float[] NOREALS = new float[0];
+    private static final Object[] NOREFS = new Object[0];
 
-    public Tuple(ArrayList<Object> d) {
-        _data = d;
+    TupleLayout layout;     // Types and slots of the columns
+    int[] ints;             // Values of the INT columns
+    float[] reals;          // Values of the REAL columns
+    Object[] refs;          // Values of the STRING columns
+
+    /**
+     * Creates a tuple of the given layout from boxed values, numbers are converted
+     * * to the type of their column and null numbers are left unset
+     */
+    public Tuple(TupleLayout layout, List<Object> d) {
+        allocate(layout);
+        for (int i = 0; i < d.size(); ++i) {
+            Object value = d.get(i);
+            if (value != null || layout.types[i] == Attribute.STRING) {
+                setDataAt(i, value);
+            }
+        }
+    }
+
+    /**
+     * Creates a tuple of the given layout with every value unset
+     */
+    public Tuple(TupleLayout layout) {
+        allocate(layout);
+    }
+
+    private void allocate(TupleLayout layout) {
+        this.layout = layout;
+        ints = layout.numInts == 0 ? NOINTS : new int[layout.numInts];
+        reals = layout.numReals == 0 ? NOREALS : new float[layout.numReals];
+        refs = layout.numRefs == 0 ? NOREFS : new Object[layout.numRefs];
+    }
+
+    public TupleLayout layout() {
+        return layout;
+    }
+
+    /**
+     * Number of columns
+     */
+    public int size() {
+        return layout.types.length;
+    }
+
+    /**
+     * Estimated number of bytes of heap held by the tuple and its values
+     */
+    public long memorySize() {
+        long bytes = MemoryGovernor.align(MemoryGovernor.OBJECT + 4 * MemoryGovernor.REFERENCE);
+        if (ints.length > 0) {
+            bytes += MemoryGovernor.arraySize(ints.length, 4);
+        }
+        if (reals.length > 0) {
+            bytes += MemoryGovernor.arraySize(reals.length, 4);
+        }
+        if (refs.length > 0) {
+            bytes += MemoryGovernor.arraySize(refs.length, MemoryGovernor.REFERENCE);
+            for (Object ref : refs) {
+                if (ref instanceof String) {
+                    bytes += MemoryGovernor.stringSize((String) ref);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    public int typeAt(int index) {
+        return layout.types[index];
+    }
+
+    public int intAt(int index) {
+        return ints[layout.slots[index]];
+    }
+
+    public float realAt(int index) {
+        return reals[layout.slots[index]];
+    }
+
+    public String stringAt(int index) {
+        return (String) refs[layout.slots[index]];
+    }
+
+    public void setInt(int index, int value) {
+        ints[layout.slots[index]] = value;
+    }
+
+    public void setReal(int index, float value) {
+        reals[layout.slots[index]] = value;
+    }
+
+    public void setString(int index, String value) {
+        refs[layout.slots[index]] = value;
     }
 
     /**
-     * Accessor for data
+     * Accessor for data, boxes all the values into a new list
      */
     public ArrayList<Object> data() {
-        return _data;
+        ArrayList<Object> data = new ArrayList<>(size());
+        for (int i = 0; i < size(); ++i) {
+            data.add(dataAt(i));
+        }
+        return data;
     }
 
+    /**
+     * Boxed value of the column
+     */
     public Object dataAt(int index) {
-        return _data.get(index);
+        int slot = layout.slots[index];
+        switch (layout.types[index]) {
+            case Attribute.INT:
+                return ints[slot];
+            case Attribute.REAL:
+                return reals[slot];
+            default:
+                return refs[slot];
+        }
+    }
+
+    /**
+     * Sets the column from a boxed value
+     */
+    public void setDataAt(int index, Object value) {
+        int slot = layout.slots[index];
+        switch (layout.types[index]) {
+            case Attribute.INT:
+                ints[slot] = ((Number) value).intValue();
+                break;
+            case Attribute.REAL:
+                reals[slot] = ((Number) value).floatValue();
+                break;
+            default:
+                refs[slot] = value;
+        }
     }
 
     /**
@@ -35,12 +160,7 @@ public class Tuple implements Serializable {
      * * before performing actual join operation
      **/
     public boolean checkJoin(Tuple right, int leftindex, int rightindex) {
-        Object leftData = dataAt(leftindex);
-        Object rightData = right.dataAt(rightindex);
-        if (leftData.equals(rightData))
-            return true;
-        else
-            return false;
+        return compareTuples(this, right, leftindex, rightindex) == 0;
     }
 
     /**
@@ -51,9 +171,18 @@ public class Tuple implements Serializable {
         if (leftindex.size() != rightindex.size())
             return false;
         for (int i = 0; i < leftindex.size(); ++i) {
-            Object leftData = dataAt(leftindex.get(i));
-            Object rightData = right.dataAt(rightindex.get(i));
-            if (!leftData.equals(rightData)) {
+            if (compareTuples(this, right, leftindex.get(i), rightindex.get(i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean checkJoin(Tuple right, int[] leftindex, int[] rightindex) {
+        if (leftindex.length != rightindex.length)
+            return false;
+        for (int i = 0; i < leftindex.length; ++i) {
+            if (compareTuples(this, right, leftindex[i], rightindex[i]) != 0) {
                 return false;
             }
         }
@@ -64,16 +193,66 @@ public class Tuple implements Serializable {
      * Joining two tuples without duplicate column elimination
      **/
     public Tuple joinWith(Tuple right) {
-        ArrayList<Object> newData = new ArrayList<>(this.data());
-        newData.addAll(right.data());
-        return new Tuple(newData);
+        Tuple joined = new Tuple(layout.joinWith(right.layout));
+        System.arraycopy(ints, 0, joined.ints, 0, ints.length);
+        System.arraycopy(right.ints, 0, joined.ints, ints.length, right.ints.length);
+        System.arraycopy(reals, 0, joined.reals, 0, reals.length);
+        System.arraycopy(right.reals, 0, joined.reals, reals.length, right.reals.length);
+        System.arraycopy(refs, 0, joined.refs, 0, refs.length);
+        System.arraycopy(right.refs, 0, joined.refs, refs.length, right.refs.length);
+        return joined;
+    }
+
+    /**
+     * Tuple made of the given columns, the target layout must be layout().project(index)
+     */
+    public Tuple project(int[] index, TupleLayout target) {
+        Tuple projected = new Tuple(target);
+        for (int i = 0; i < index.length; ++i) {
+            int from = layout.slots[index[i]];
+            int to = target.slots[i];
+            switch (target.types[i]) {
+                case Attribute.INT:
+                    projected.ints[to] = ints[from];
+                    break;
+                case Attribute.REAL:
+                    projected.reals[to] = reals[from];
+                    break;
+                default:
+                    projected.refs[to] = refs[from];
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * Hash code of the given columns
+     */
+    public int hashOf(int[] index) {
+        int h = 1;
+        for (int i : index) {
+            h = 31 * h + hashAt(i);
+        }
+        return h;
+    }
+
+    public int hashAt(int index) {
+        int slot = layout.slots[index];
+        switch (layout.types[index]) {
+            case Attribute.INT:
+                return ints[slot];
+            case Attribute.REAL:
+                return Float.floatToIntBits(reals[slot]);
+            default:
+                return refs[slot] == null ? 0 : refs[slot].hashCode();
+        }
     }
 
     /**
      * Compare whether two tuples are the same in the same table for every attribute
      */
     public boolean isEquals(Tuple tuple){
-        for(int i = 0; i < this._data.size(); i++){
+        for(int i = 0; i < size(); i++){
             if(compareTuples(this, tuple, i) != 0){
                 return false;
             }
@@ -92,18 +271,24 @@ public class Tuple implements Serializable {
      * Comparing tuples in different tables, used for join condition checking
      **/
     public static int compareTuples(Tuple left, Tuple right, int leftIndex, int rightIndex) {
-        Object leftdata = left.dataAt(leftIndex);
-        Object rightdata = right.dataAt(rightIndex);
-        if (leftdata instanceof Integer) {
-            return ((Integer) leftdata).compareTo((Integer) rightdata);
-        } else if (leftdata instanceof String) {
-            return ((String) leftdata).compareTo((String) rightdata);
-        } else if (leftdata instanceof Float) {
-            return ((Float) leftdata).compareTo((Float) rightdata);
-        } else {
-            System.out.println("Tuple: Unknown comparision of the tuples");
-            System.exit(1);
-            return 0;
+        int leftslot = left.layout.slots[leftIndex];
+        int rightslot = right.layout.slots[rightIndex];
+        switch (left.layout.types[leftIndex]) {
+            case Attribute.INT:
+                return Integer.compare(left.ints[leftslot], right.ints[rightslot]);
+            case Attribute.REAL:
+                return Float.compare(left.reals[leftslot], right.reals[rightslot]);
+            case Attribute.STRING:
+                Object leftdata = left.refs[leftslot];
+                Object rightdata = right.refs[rightslot];
+                if (leftdata == rightdata) return 0;
+                if (leftdata == null) return -1;
+                if (rightdata == null) return 1;
+                return ((String) leftdata).compareTo((String) rightdata);
+            default:
+                System.out.println("Tuple: Unknown comparision of the tuples");
+                System.exit(1);
+                return 0;
         }
     }
 
@@ -117,30 +302,29 @@ public class Tuple implements Serializable {
             return 0;
         }
         for (int i = 0; i < leftIndex.size(); ++i) {
-            Object leftdata = left.dataAt(leftIndex.get(i));
-            Object rightdata = right.dataAt(rightIndex.get(i));
-            if (leftdata.equals(rightdata)) continue;
-            if (leftdata instanceof Integer) {
-                return ((Integer) leftdata).compareTo((Integer) rightdata);
-            } else if (leftdata instanceof String) {
-                return ((String) leftdata).compareTo((String) rightdata);
-            } else if (leftdata instanceof Float) {
-                return ((Float) leftdata).compareTo((Float) rightdata);
-            } else {
-                System.out.println("Tuple: Unknown comparision of the tuples");
-                System.exit(1);
-                return 0;
+            int flag = compareTuples(left, right, leftIndex.get(i), rightIndex.get(i));
+            if (flag != 0) {
+                return flag;
             }
         }
         return 0;
     }
 
     /**
-     * Parse the array indexes to List to check for join condition
+     * Comparing tuples on the attributes at the array indexes
      */
     public static int compareTuples(Tuple left, Tuple right, int[] leftIndex, int[] rightIndex) {
-        List<Integer> leftIdx = Arrays.stream(leftIndex).boxed().collect(Collectors.toList());
-        List<Integer> rightIdx = Arrays.stream(rightIndex).boxed().collect(Collectors.toList());
-        return compareTuples(left, right, leftIdx, rightIdx);
+        if (leftIndex.length != rightIndex.length) {
+            System.out.println("Tuple: Unknown comparision of the tuples");
+            System.exit(1);
+            return 0;
+        }
+        for (int i = 0; i < leftIndex.length; ++i) {
+            int flag = compareTuples(left, right, leftIndex[i], rightIndex[i]);
+            if (flag != 0) {
+                return flag;
+            }
+        }
+        return 0;
     }
 }
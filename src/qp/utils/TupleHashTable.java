@@ -0,0 +1,157 @@
+/**
+ * In-memory hash table of tuples
+ **/
+
+package qp.utils;
+
+import java.util.ArrayList;
+
+/**
+ * Chained hash table of tuples keyed on a set of attributes. The keys are
+ * * hashed and compared on the typed slots of the tuples, so no key objects
+ * * are created for inserts or lookups.
+ **/
+public class TupleHashTable {
+
+    /**
+     * A tuple in the chain of its bucket
+     */
+    public static class Entry {
+        final int hash;
+        final Tuple tuple;
+        Entry next;
+
+        Entry(int hash, Tuple tuple, Entry next) {
+            this.hash = hash;
+            this.tuple = tuple;
+            this.next = next;
+        }
+
+        public Tuple getTuple() {
+            return tuple;
+        }
+    }
+
+    final int[] keyindex;       // Indices of the key attributes in the stored tuples
+    Entry[] buckets;            // Chains of the tuples, the length is a power of two
+    int size;                   // Number of tuples in the table
+
+    public TupleHashTable(int[] keyindex) {
+        this(keyindex, 16);
+    }
+
+    public TupleHashTable(int[] keyindex, int capacity) {
+        this.keyindex = keyindex;
+        int n = 16;
+        while (n < capacity) {
+            n <<= 1;
+        }
+        buckets = new Entry[n];
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Estimated number of bytes of heap held by the buckets and entries, without the tuples
+     */
+    public long memorySize() {
+        return MemoryGovernor.arraySize(buckets.length, MemoryGovernor.REFERENCE)
+                + size * MemoryGovernor.align(MemoryGovernor.OBJECT + 4 + 2 * MemoryGovernor.REFERENCE);
+    }
+
+    /**
+     * Estimated number of bytes of heap added by inserting the tuple
+     */
+    public static long entrySize(Tuple t) {
+        return t.memorySize() + MemoryGovernor.align(MemoryGovernor.OBJECT + 4 + 2 * MemoryGovernor.REFERENCE)
+                + 2 * MemoryGovernor.REFERENCE;
+    }
+
+    /**
+     * Spreads the bits of the key hash, so buckets do not depend on the low bits only
+     */
+    static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    public void add(Tuple t) {
+        if (size >= buckets.length - (buckets.length >> 2)) {
+            resize();
+        }
+        int h = spread(t.hashOf(keyindex));
+        int b = h & (buckets.length - 1);
+        buckets[b] = new Entry(h, t, buckets[b]);
+        size++;
+    }
+
+    private void resize() {
+        Entry[] old = buckets;
+        buckets = new Entry[old.length << 1];
+        for (Entry e : old) {
+            while (e != null) {
+                Entry next = e.next;
+                int b = e.hash & (buckets.length - 1);
+                e.next = buckets[b];
+                buckets[b] = e;
+                e = next;
+            }
+        }
+    }
+
+    /**
+     * Returns the first entry whose key equals the probe tuple on the probe attributes, or null
+     */
+    public Entry find(Tuple probe, int[] probeindex) {
+        int h = spread(probe.hashOf(probeindex));
+        return match(buckets[h & (buckets.length - 1)], h, probe, probeindex);
+    }
+
+    /**
+     * Returns the next entry after the given one that matches the same probe tuple, or null
+     */
+    public Entry findNext(Entry e, Tuple probe, int[] probeindex) {
+        return match(e.next, e.hash, probe, probeindex);
+    }
+
+    private Entry match(Entry e, int h, Tuple probe, int[] probeindex) {
+        while (e != null) {
+            if (e.hash == h && e.tuple.checkJoin(probe, keyindex, probeindex)) {
+                return e;
+            }
+            e = e.next;
+        }
+        return null;
+    }
+
+    /**
+     * Whether a tuple with the same key as the probe tuple is stored
+     */
+    public boolean contains(Tuple probe, int[] probeindex) {
+        return find(probe, probeindex) != null;
+    }
+
+    /**
+     * All the stored tuples
+     */
+    public ArrayList<Tuple> getTuples() {
+        ArrayList<Tuple> tuples = new ArrayList<>(size);
+        for (Entry e : buckets) {
+            for (; e != null; e = e.next) {
+                tuples.add(e.tuple);
+            }
+        }
+        return tuples;
+    }
+
+    public void clear() {
+        buckets = new Entry[16];
+        size = 0;
+    }
+}
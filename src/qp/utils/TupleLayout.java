@@ -0,0 +1,127 @@
+/**
+ * Layout of the typed slots of a tuple
+ **/
+
+package qp.utils;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TupleLayout maps every column of a tuple to a slot in one of its typed arrays:
+ * * INT columns are kept in an int[], REAL columns in a float[] and STRING columns
+ * * as references. Layouts are interned, so tuples of the same schema share one
+ * * instance and two layouts are equal only if they are the same object.
+ **/
+public class TupleLayout implements Serializable {
+
+    private static final long serialVersionUID = 7729981315921953519L;  // Layouts are kept in the table files
+    private static final ConcurrentHashMap<String, TupleLayout> layouts = new ConcurrentHashMap<>();
+
+    final int[] types;          // Attribute type of every column
+    final int[] slots;          // Index of every column within the array of its type
+    final int numInts;          // Number of INT columns
+    final int numReals;         // Number of REAL columns
+    final int numRefs;          // Number of STRING columns
+    final String key;           // Type signature used for interning
+
+    private final transient ConcurrentHashMap<TupleLayout, TupleLayout> joined = new ConcurrentHashMap<>();  // Layouts of joined tuples
+
+    private TupleLayout(int[] types, String key) {
+        this.types = types;
+        this.key = key;
+        slots = new int[types.length];
+        int ints = 0, reals = 0, refs = 0;
+        for (int i = 0; i < types.length; ++i) {
+            if (types[i] == Attribute.INT) {
+                slots[i] = ints++;
+            } else if (types[i] == Attribute.REAL) {
+                slots[i] = reals++;
+            } else {
+                slots[i] = refs++;
+            }
+        }
+        numInts = ints;
+        numReals = reals;
+        numRefs = refs;
+    }
+
+    /**
+     * Returns the shared layout for the given column types
+     */
+    public static TupleLayout of(int[] types) {
+        char[] sig = new char[types.length];
+        for (int i = 0; i < types.length; ++i) {
+            if (types[i] == Attribute.INT) {
+                sig[i] = 'I';
+            } else if (types[i] == Attribute.REAL) {
+                sig[i] = 'R';
+            } else {
+                sig[i] = 'S';
+            }
+        }
+        String key = new String(sig);
+        TupleLayout layout = layouts.get(key);
+        if (layout == null) {
+            int[] normalized = new int[types.length];
+            for (int i = 0; i < types.length; ++i) {
+                normalized[i] = sig[i] == 'I' ? Attribute.INT : sig[i] == 'R' ? Attribute.REAL : Attribute.STRING;
+            }
+            layout = layouts.computeIfAbsent(key, k -> new TupleLayout(normalized, k));
+        }
+        return layout;
+    }
+
+    /**
+     * Returns the layout of the tuples of the given schema, aggregated
+     * * columns take the type of their aggregated value
+     */
+    public static TupleLayout of(Schema schema) {
+        int[] types = new int[schema.getNumCols()];
+        for (int i = 0; i < types.length; ++i) {
+            types[i] = schema.getAttribute(i).getProjectedType();
+        }
+        return of(types);
+    }
+
+    public int size() {
+        return types.length;
+    }
+
+    public int typeAt(int index) {
+        return types[index];
+    }
+
+    /**
+     * Layout of the tuple made by appending a tuple of the right layout to this one
+     */
+    public TupleLayout joinWith(TupleLayout right) {
+        TupleLayout layout = joined.get(right);
+        if (layout == null) {
+            int[] types = new int[this.types.length + right.types.length];
+            System.arraycopy(this.types, 0, types, 0, this.types.length);
+            System.arraycopy(right.types, 0, types, this.types.length, right.types.length);
+            layout = of(types);
+            joined.put(right, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Layout of the tuple made of the given columns of this one
+     */
+    public TupleLayout project(int[] index) {
+        int[] types = new int[index.length];
+        for (int i = 0; i < index.length; ++i) {
+            types[i] = this.types[index[i]];
+        }
+        return of(types);
+    }
+
+    /**
+     * Tuples read from a file share the interned layout instead of their own copy
+     */
+    private Object readResolve() {
+        return of(types);
+    }
+}
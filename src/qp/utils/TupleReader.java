@@ -1,5 +1,6 @@
 /**
  * TupleReader is a helper class that allows other operators to read tuples from a file in a Batch by Batch form
+ * The Batches are the pages of a PageFile read through the buffer pool
  */
 
 package qp.utils;
@@ -20,7 +21,7 @@ public class TupleReader {
     int numBatch = 0;                        // Number of batch read
     int numTuple = 0;                        // Number of tuples read
     Tuple peekTuple = null;            // The next tuple of the batch (if peeked)
-    ObjectInputStream in;                // Input file stream
+    PageFile in;                        // Input file
 
     // filename: Filename of the output file to read from
     // batchsize: Number of tuples per batch
@@ -53,9 +54,8 @@ public class TupleReader {
 
     // Opens the input file and initializes the class for reading
     public boolean open() {
-        try {
-            in = new ObjectInputStream(new FileInputStream(filename));
-        } catch (IOException io) {
+        in = PageFile.open(filename);
+        if (in == null) {
             System.out.printf("%s:reading the temporary file error", filename);
             return false;
         }
@@ -77,24 +77,17 @@ public class TupleReader {
 
         // If the next tuple is in the next batch, we have to read from the file
         if (inBatch == null) {
-            try {
-                while (true) {
-                    inBatch = (Batch) in.readObject();
-                    numBatch++;
-                    if (inBatch.size() > 0) break;
+            while (true) {
+                if (numBatch == in.getNumPages()) {
+                    // No more batch in the file
+                    peekTuple = null;
+                    completed = true;
+                    this.close();
+                    return null;
                 }
-            } catch (EOFException e) {
-                // No more batch in the file
-                peekTuple = null;
-                completed = true;
-                this.close();
-                return null;
-            } catch (ClassNotFoundException c) {
-                System.out.printf("%s:Some error in deserialization\n", filename);
-                System.exit(1);
-            } catch (IOException io) {
-                System.out.printf("%s:temporary file reading error\n", filename);
-                System.exit(1);
+                inBatch = in.readBatch(numBatch);
+                numBatch++;
+                if (inBatch.size() > 0) break;
             }
         }
 
@@ -131,14 +124,8 @@ public class TupleReader {
         peekTuple = null;
         completed = true;
         if (in != null) {
-            try {
-                in.close();
-                in = null;
-            } catch (IOException io) {
-                System.out.printf("%s:reading the temporary file error", filename);
-                System.out.println(io);
-                return false;
-            }
+            in.close();
+            in = null;
         }
         return true;
     }
@@ -1,5 +1,6 @@
 /**
  * TupleWriter is a helper class that allows other operators to write tuples to a file in a Batch by Batch form
+ * Every Batch is a page of a PageFile appended through the buffer pool
  */
 
 package qp.utils;
@@ -17,7 +18,7 @@ public class TupleWriter {
     Batch outBatch;
     int numBatch = 0;                        // Number of batch written
     int numTuple = 0;                        // Number of tuples added
-    ObjectOutputStream out;            // Output file stream
+    PageFile out;                // Output file
 
     // filename: Filename of the output file to write to
     // batchsize: Number of tuples per batch
@@ -44,9 +45,8 @@ public class TupleWriter {
 
     // Opens the file and initializes the class for writing
     public boolean open() {
-        try {
-            out = new ObjectOutputStream(new FileOutputStream(filename));
-        } catch (IOException io) {
+        out = PageFile.create(filename);
+        if (out == null) {
             System.out.printf("%s:writing the temporary file error", filename);
             return false;
         }
@@ -71,29 +71,17 @@ public class TupleWriter {
 
     // Helper method to write a single batch to the output file
     private void writeBatch() {
-        try {
-            out.writeObject(outBatch);
-            outBatch = null;        // deallocate output buffer --> saves memory
-            ++numBatch;
-        } catch (IOException io) {
-            System.out.printf("%s:writing the temporary file error", filename);
-            System.out.println(io);
-            System.exit(1);
-        }
+        out.appendBatch(outBatch);
+        outBatch = null;        // deallocate output buffer --> saves memory
+        ++numBatch;
     }
 
     // Signals the TupleWriter to finish writing all the tuples to the file
     public boolean close() {
         if (outBatch != null) writeBatch();  // Unfilled batch (if any) will be flushed to the file
         if (out != null) {
-            try {
-                out.close();
-                out = null;
-            } catch (IOException io) {
-                System.out.printf("%s:writing the temporary file error", filename);
-                System.out.println(io);
-                System.exit(1);
-            }
+            out.close();            // pages still in the buffer pool are written here
+            out = null;
         }
         return true;
     }
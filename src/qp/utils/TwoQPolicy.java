@@ -0,0 +1,83 @@
+/**
+ * 2Q replacement
+ **/
+
+package qp.utils;
+
+import java.util.LinkedHashSet;
+
+/**
+ * Pages loaded for the first time enter the FIFO queue A1in, which holds a quarter of the
+ * * frames. Pages evicted from A1in are remembered in the ghost queue A1out, and a page
+ * * loaded again while it is remembered enters the LRU queue Am of pages in real use.
+ * * A scan only passes through A1in and leaves Am alone, pages of a sequential scan are
+ * * not remembered in A1out at all.
+ **/
+public class TwoQPolicy implements ReplacementPolicy {
+
+    int kin;                                    // Target size of A1in
+    int kout;                                   // Size of A1out
+    LinkedHashSet<BufferPool.Frame> a1in;       // Pages used once, oldest first
+    LinkedHashSet<BufferPool.Frame> am;         // Pages used again, least recently used first
+    LinkedHashSet<BufferPool.PageId> a1out;     // Pages recently evicted from A1in, oldest first
+
+    public void init(BufferPool.Frame[] frames) {
+        kin = Math.max(1, frames.length / 4);
+        kout = Math.max(1, frames.length / 2);
+        a1in = new LinkedHashSet<>();
+        am = new LinkedHashSet<>();
+        a1out = new LinkedHashSet<>();
+    }
+
+    public void loaded(BufferPool.Frame frame) {
+        if (a1out.remove(frame.getPageId())) {
+            am.add(frame);
+        } else {
+            a1in.add(frame);
+        }
+    }
+
+    public void accessed(BufferPool.Frame frame) {
+        /** Uses of a page while it is in A1in count as the same use **/
+        if (am.remove(frame)) {
+            am.add(frame);
+        }
+    }
+
+    public BufferPool.Frame victim() {
+        BufferPool.Frame victim = null;
+        if (a1in.size() > kin || am.isEmpty()) {
+            victim = oldestUnpinned(a1in);
+        }
+        if (victim == null) {
+            victim = oldestUnpinned(am);
+        }
+        if (victim == null) {
+            victim = oldestUnpinned(a1in);
+        }
+        return victim;
+    }
+
+    private static BufferPool.Frame oldestUnpinned(LinkedHashSet<BufferPool.Frame> queue) {
+        for (BufferPool.Frame frame : queue) {
+            if (!frame.isPinned()) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    public void evicted(BufferPool.Frame frame) {
+        if (a1in.remove(frame) && frame.getAccessPattern() != AccessPattern.SEQUENTIAL) {
+            a1out.add(frame.getPageId());
+            if (a1out.size() > kout) {
+                a1out.remove(a1out.iterator().next());
+            }
+        }
+        am.remove(frame);
+    }
+
+    public String toString() {
+        return "2q";
+    }
+}
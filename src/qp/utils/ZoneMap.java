@@ -0,0 +1,270 @@
+/**
+ * Per page minimum and maximum of every column of a table file
+ **/
+
+package qp.utils;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * ZoneMap is the sidecar <tablename>.zone of a binary table file. For every data page
+ * * and every column it records the smallest and the largest value on the page and
+ * * whether the page holds a null. A scan with selection conditions only needs to read
+ * * the pages whose range of values can satisfy all the conditions.
+ **/
+public class ZoneMap {
+
+    static final int MAGIC = 0x51505a4d;   // "QPZM"
+
+    final int[] types;                      // Attribute type of every column
+    final ArrayList<Object[]> mins;         // Smallest value of every column per page, null if none
+    final ArrayList<Object[]> maxs;         // Largest value of every column per page, null if none
+    final ArrayList<boolean[]> nulls;       // Whether the column holds a null per page
+    int pagesize;                           // Page size of the table file
+    long numTuples;                         // Number of tuples of the table file
+
+    public ZoneMap(int[] types) {
+        this.types = types;
+        mins = new ArrayList<>();
+        maxs = new ArrayList<>();
+        nulls = new ArrayList<>();
+    }
+
+    public static String fileName(String tabname) {
+        return tabname + ".zone";
+    }
+
+    public int getNumPages() {
+        return mins.size();
+    }
+
+    /**
+     * Widens the ranges of the given page with the values of the tuple
+     */
+    public void add(int pageno, Tuple t) {
+        while (mins.size() <= pageno) {
+            mins.add(new Object[types.length]);
+            maxs.add(new Object[types.length]);
+            nulls.add(new boolean[types.length]);
+        }
+        Object[] min = mins.get(pageno);
+        Object[] max = maxs.get(pageno);
+        for (int i = 0; i < types.length; ++i) {
+            Object value;
+            if (types[i] == Attribute.INT) {
+                value = t.intAt(i);
+            } else if (types[i] == Attribute.REAL) {
+                float f = t.realAt(i);
+                value = Float.isNaN(f) ? null : f;
+            } else {
+                value = t.stringAt(i);
+            }
+            if (value == null) {
+                nulls.get(pageno)[i] = true;
+                continue;
+            }
+            if (min[i] == null || compare(types[i], value, min[i]) < 0) {
+                min[i] = value;
+            }
+            if (max[i] == null || compare(types[i], value, max[i]) > 0) {
+                max[i] = value;
+            }
+        }
+    }
+
+    private static int compare(int type, Object a, Object b) {
+        if (type == Attribute.INT) {
+            return Integer.compare((Integer) a, (Integer) b);
+        } else if (type == Attribute.REAL) {
+            float x = (Float) a;
+            float y = (Float) b;
+            return x < y ? -1 : (x > y ? 1 : 0);
+        }
+        return ((String) a).compareTo((String) b);
+    }
+
+    /**
+     * Pages that may hold tuples satisfying all the conditions on attributes of the
+     * * given schema, conditions the zone map cannot decide keep all the pages
+     */
+    public BitSet match(List<Condition> conditions, Schema schema) {
+        int numPages = getNumPages();
+        BitSet pages = new BitSet(numPages);
+        pages.set(0, numPages);
+        for (Condition con : conditions) {
+            int index = schema.indexOf(con.getLhs());
+            if (index < 0 || index >= types.length || !(con.getRhs() instanceof String)) {
+                continue;
+            }
+            int type = types[index];
+            String rhs = (String) con.getRhs();
+            Object value;
+            try {
+                if (type == Attribute.INT) {
+                    value = Integer.parseInt(rhs);
+                } else if (type == Attribute.REAL) {
+                    value = Float.parseFloat(rhs);
+                } else {
+                    value = rhs;
+                }
+            } catch (NumberFormatException nfe) {
+                continue;
+            }
+            for (int p = pages.nextSetBit(0); p >= 0; p = pages.nextSetBit(p + 1)) {
+                if (!mayMatch(p, index, con.getExprType(), value)) {
+                    pages.clear(p);
+                }
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Whether a value of the column on the page may satisfy the comparison with the value
+     */
+    private boolean mayMatch(int pageno, int index, int exprtype, Object value) {
+        Object min = mins.get(pageno)[index];
+        Object max = maxs.get(pageno)[index];
+        if (exprtype == Condition.NOTEQUAL && nulls.get(pageno)[index]) {
+            return true;
+        }
+        if (min == null) {
+            return false;
+        }
+        int type = types[index];
+        switch (exprtype) {
+            case Condition.LESSTHAN:
+                return compare(type, min, value) < 0;
+            case Condition.GREATERTHAN:
+                return compare(type, max, value) > 0;
+            case Condition.LTOE:
+                return compare(type, min, value) <= 0;
+            case Condition.GTOE:
+                return compare(type, max, value) >= 0;
+            case Condition.EQUAL:
+                return compare(type, min, value) <= 0 && compare(type, max, value) >= 0;
+            case Condition.NOTEQUAL:
+                return compare(type, min, value) != 0 || compare(type, max, value) != 0;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Writes the zone map of a table file with the given page size and number of tuples
+     */
+    public boolean write(String filename, int pagesize, long numTuples) {
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+            out.writeInt(MAGIC);
+            out.writeInt(pagesize);
+            out.writeInt(getNumPages());
+            out.writeLong(numTuples);
+            out.writeInt(types.length);
+            for (int type : types) {
+                out.writeInt(type);
+            }
+            for (int p = 0; p < getNumPages(); ++p) {
+                for (int i = 0; i < types.length; ++i) {
+                    Object min = mins.get(p)[i];
+                    out.writeBoolean(nulls.get(p)[i]);
+                    out.writeBoolean(min != null);
+                    if (min != null) {
+                        writeValue(out, types[i], min);
+                        writeValue(out, types[i], maxs.get(p)[i]);
+                    }
+                }
+            }
+            out.close();
+        } catch (IOException io) {
+            System.err.println("ZoneMap: Error writing " + filename);
+            return false;
+        }
+        return true;
+    }
+
+    private static void writeValue(DataOutputStream out, int type, Object value) throws IOException {
+        if (type == Attribute.INT) {
+            out.writeInt((Integer) value);
+        } else if (type == Attribute.REAL) {
+            out.writeFloat((Float) value);
+        } else {
+            out.writeUTF((String) value);
+        }
+    }
+
+    private static Object readValue(DataInputStream in, int type) throws IOException {
+        if (type == Attribute.INT) {
+            return in.readInt();
+        } else if (type == Attribute.REAL) {
+            return in.readFloat();
+        }
+        return in.readUTF();
+    }
+
+    private static ZoneMap read(String filename) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)));
+        try {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            int pagesize = in.readInt();
+            int numPages = in.readInt();
+            long numTuples = in.readLong();
+            int[] types = new int[in.readInt()];
+            for (int i = 0; i < types.length; ++i) {
+                types[i] = in.readInt();
+            }
+            ZoneMap zones = new ZoneMap(types);
+            zones.pagesize = pagesize;
+            zones.numTuples = numTuples;
+            for (int p = 0; p < numPages; ++p) {
+                Object[] min = new Object[types.length];
+                Object[] max = new Object[types.length];
+                boolean[] hasnull = new boolean[types.length];
+                for (int i = 0; i < types.length; ++i) {
+                    hasnull[i] = in.readBoolean();
+                    if (in.readBoolean()) {
+                        min[i] = readValue(in, types[i]);
+                        max[i] = readValue(in, types[i]);
+                    }
+                }
+                zones.mins.add(min);
+                zones.maxs.add(max);
+                zones.nulls.add(hasnull);
+            }
+            return zones;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Zone map of the binary file of the table, null if there is none
+     * * or if it was not built for the current table file
+     */
+    public static ZoneMap of(String tabname) {
+        return TableMetadata.get(fileName(tabname), filename -> {
+            TableFile table = TableMetadata.header(tabname);
+            if (table == null || !new File(filename).isFile()) {
+                return null;
+            }
+            ZoneMap zones;
+            try {
+                zones = read(filename);
+            } catch (IOException io) {
+                System.err.println("ZoneMap: Error reading " + filename);
+                return null;
+            }
+            if (table.getPageSize() != zones.pagesize || table.getNumPages() != zones.getNumPages()
+                    || table.getNumTuples() != zones.numTuples || !Arrays.equals(table.getTypes(), zones.types)) {
+                return null;
+            }
+            return zones;
+        });
+    }
+}
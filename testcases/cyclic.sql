@@ -0,0 +1,3 @@
+SELECT CART.cartid,CARTDETAILS.iid,CUSTOMER.cid
+FROM CART,CARTDETAILS,CUSTOMER
+WHERE CART.cartid=CARTDETAILS.cartid,CART.cid=CUSTOMER.cid,CUSTOMER.cid=CARTDETAILS.qty
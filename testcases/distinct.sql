@@ -0,0 +1,3 @@
+SELECT DISTINCT CUSTOMER.gender,CARTDETAILS.qty
+FROM CUSTOMER,CART,CARTDETAILS
+WHERE CUSTOMER.cid=CART.cid,CART.cartid=CARTDETAILS.cartid
@@ -0,0 +1,3 @@
+SELECT CUSTOMER.cid,CUSTOMER.firstname,CART.cartid,CART.status
+FROM CUSTOMER,CART
+WHERE CUSTOMER.cid=CART.cid
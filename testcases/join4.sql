@@ -0,0 +1,3 @@
+SELECT CUSTOMER.cid,CART.cartid,CARTDETAILS.iid,BILL.billid,BILL.amount
+FROM CUSTOMER,CART,CARTDETAILS,BILL
+WHERE CUSTOMER.cid=CART.cid,CART.cartid=CARTDETAILS.cartid,CARTDETAILS.iid=BILL.iid,BILL.amount<"1000"
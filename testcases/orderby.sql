@@ -0,0 +1,4 @@
+SELECT CART.status,CART.cartid,CUSTOMER.cid,CUSTOMER.gender
+FROM CUSTOMER,CART
+WHERE CUSTOMER.cid=CART.cid
+ORDERBY CUSTOMER.gender DESC,CART.status ASC,CART.cartid
@@ -0,0 +1,88 @@
+#!/bin/sh
+# Runs the testcases which spill to disk and compares their results with
+# testcases/<query>.expected. Build with build.sh first, then run from the
+# top directory:
+#
+#     sh testcases/runtests.sh
+#
+# The tables are generated from the .det files with a fixed seed in a scratch
+# directory, so the expected results do not change. Every query is run with
+# 500 byte pages, the fewest buffers it needs, a pool of 4 frames and 64k of
+# heap, under every replacement policy and every join method. The joins then
+# repartition recursively, the sorts write several runs and the pool evicts.
+
+TOP=`pwd`
+CP="$TOP/classes:$TOP/lib"
+WORK=`mktemp -d`
+FAILED=0
+
+cp "$TOP"/testcases/*.det "$TOP"/testcases/*.sql "$WORK"
+cd "$WORK"
+for TABLE in CUSTOMER CART CARTDETAILS BILL; do
+    java -cp "$CP" RandomDB $TABLE 200 42 > /dev/null
+    java -cp "$CP" ConvertTxtToTbl $TABLE > /dev/null
+    java -cp "$CP" ConvertTblToDat $TABLE 500 > /dev/null
+done
+java -cp "$CP" BuildIndex BILL amount 500 > /dev/null
+java -cp "$CP" BuildIndex CUSTOMER gender bitmap > /dev/null
+
+# Number of buffers of a query, 3 for every join and distinct
+buffers() {
+    case $1 in
+        join4|cyclic|distinct) echo 9 ;;
+        *) echo 3 ;;
+    esac
+}
+
+fail() {
+    echo "FAIL $1: $2"
+    FAILED=1
+}
+
+# Compares the result of a query with the expected one, the rows of a
+# query without ORDERBY may come in any order
+check() {
+    if grep -q ORDERBY $1.sql; then
+        cmp -s $1.out "$TOP/testcases/$1.expected"
+    else
+        head -1 $1.out > $1.sorted
+        tail -n +2 $1.out | LC_ALL=C sort >> $1.sorted
+        cmp -s $1.sorted "$TOP/testcases/$1.expected"
+    fi
+}
+
+run() {
+    QUERY=$1
+    shift
+    if ! java -cp "$CP" QueryMain $QUERY.sql $QUERY.out 500 `buffers $QUERY` 1 "$@" > $QUERY.log 2>&1; then
+        fail $QUERY "$* exited with an error"
+    elif ! check $QUERY; then
+        fail $QUERY "$* returned a wrong result"
+    fi
+}
+
+for EXPECTED in "$TOP"/testcases/*.expected; do
+    QUERY=`basename $EXPECTED .expected`
+    for POLICY in clock lru-2 mru 2q arc; do
+        for JOIN in nested block sortmerge hash hybrid; do
+            run $QUERY 4 $POLICY 64k 1 block read $JOIN
+            case $QUERY:$JOIN in
+                hashjoin:hash|hashjoin:hybrid|join4:hash|distinct:hash)
+                    grep -q "Repartitioned partitions" $QUERY.log || fail $QUERY "$POLICY $JOIN did not repartition" ;;
+            esac
+            case $QUERY in
+                orderby|topn)
+                    grep -q "Runs of ExternalSort(orderby)" $QUERY.log || fail $QUERY "$POLICY $JOIN did not sort externally" ;;
+            esac
+        done
+    done
+    run $QUERY 4 clock 64k 2 replacement mmap hash
+    run $QUERY 4 arc 64k 2 block mmap hybrid
+done
+
+cd "$TOP"
+rm -rf "$WORK"
+if [ $FAILED -eq 0 ]; then
+    echo "All testcases passed"
+fi
+exit $FAILED
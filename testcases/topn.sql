@@ -0,0 +1,4 @@
+SELECT CUSTOMER.cid,CUSTOMER.gender,CUSTOMER.lastname
+FROM CUSTOMER
+ORDERBY CUSTOMER.gender ASC,CUSTOMER.cid DESC
+LIMIT 150